@@ -0,0 +1,182 @@
+package com.example.ecowattchtechdemo.network;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+import static org.junit.Assert.*;
+
+/**
+ * Connections, TLS handshakes and latency per dashboard tick for the shared
+ * client from HttpClientProvider, against a client built per call the way
+ * WillowApiClient used to. A tick is the latest-values requests of every
+ * building, sent together over HTTPS to a local MockWebServer. Results are
+ * logged under the HttpClientProviderBenchmark tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class HttpClientProviderBenchmark {
+    
+    private static final String TAG = "HttpClientProviderBenchmark";
+    private static final int TICKS = 50;
+    private static final int CALLS_PER_TICK = 6;
+    private static final int WARM_UP_CALLS = 30;
+    private static final MediaType JSON = MediaType.get("application/json");
+    
+    /**
+     * Supplies the client for each call of a tick
+     */
+    private interface ClientFactory {
+        OkHttpClient client();
+    }
+    
+    private MockWebServer server;
+    private HandshakeCertificates clientCertificates;
+    
+    @Before
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        // The name MockWebServer serves under; asking the server itself would start it before HTTPS is set
+        HeldCertificate localhost = new HeldCertificate.Builder()
+            .addSubjectAlternativeName(InetAddress.getByName("localhost").getCanonicalHostName())
+            .build();
+        HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+            .heldCertificate(localhost)
+            .build();
+        clientCertificates = new HandshakeCertificates.Builder()
+            .addTrustedCertificate(localhost.certificate())
+            .build();
+        server.useHttps(serverCertificates.sslSocketFactory(), false);
+        server.setProtocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1));
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                    .setHeader("Content-Type", "application/json")
+                    .setBody("[{\"twinId\":\"BLDG-0000-CAP-0\",\"sourceTimestamp\":\"2025-01-15T10:30:00Z\","
+                        + "\"scalarValue\":123.4}]");
+            }
+        });
+        server.start();
+        
+        // Warm up TLS and HTTP/2 on throwaway clients, so neither run pays for it in its numbers
+        for (int i = 0; i < WARM_UP_CALLS; i++) {
+            OkHttpClient client = new OkHttpClient.Builder()
+                .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+                .build();
+            client.newCall(latestValuesRequest(i % CALLS_PER_TICK)).execute().close();
+        }
+    }
+    
+    @After
+    public void tearDown() throws IOException {
+        server.shutdown();
+    }
+    
+    @Test
+    public void sharedClient() throws Exception {
+        HttpMetrics metrics = new HttpMetrics();
+        // newBuilder() keeps the shared pool and dispatcher; only trust and metrics are swapped for the test
+        OkHttpClient client = HttpClientProvider.getHttpClient().newBuilder()
+            .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+            .eventListener(metrics)
+            .build();
+        runTicks("shared", metrics, () -> client);
+        
+        assertEquals(TICKS * CALLS_PER_TICK, metrics.getCallCount());
+        assertEquals(0, metrics.getFailedCallCount());
+        // Later ticks ride on the connections the first one opened
+        assertTrue(metrics.getHandshakeCount() <= CALLS_PER_TICK);
+    }
+    
+    @Test
+    public void clientPerCall() throws Exception {
+        HttpMetrics metrics = new HttpMetrics();
+        runTicks("per-call", metrics, () -> new OkHttpClient.Builder()
+            .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+            .eventListener(metrics)
+            .build());
+        
+        assertEquals(0, metrics.getFailedCallCount());
+        assertEquals(TICKS * CALLS_PER_TICK, metrics.getHandshakeCount());
+    }
+    
+    /**
+     * Send TICKS ticks one after another and log what they cost. The first
+     * tick is reported on its own, since it is where a shared client connects.
+     */
+    private void runTicks(String name, HttpMetrics metrics, ClientFactory factory) throws Exception {
+        long[] tickNanos = new long[TICKS];
+        
+        for (int tick = 0; tick < TICKS; tick++) {
+            CountDownLatch done = new CountDownLatch(CALLS_PER_TICK);
+            AtomicInteger failures = new AtomicInteger();
+            long start = System.nanoTime();
+            for (int call = 0; call < CALLS_PER_TICK; call++) {
+                factory.client().newCall(latestValuesRequest(call)).enqueue(new Callback() {
+                    @Override
+                    public void onResponse(Call call, Response response) {
+                        response.close();
+                        done.countDown();
+                    }
+                    
+                    @Override
+                    public void onFailure(Call call, IOException e) {
+                        failures.incrementAndGet();
+                        done.countDown();
+                    }
+                });
+            }
+            assertTrue("Tick " + tick + " did not finish", done.await(30, TimeUnit.SECONDS));
+            assertEquals(0, failures.get());
+            tickNanos[tick] = System.nanoTime() - start;
+        }
+        
+        long[] warmTickNanos = Arrays.copyOfRange(tickNanos, 1, TICKS);
+        Arrays.sort(warmTickNanos);
+        Log.i(TAG, String.format(Locale.US, "[%s] ticks=%d calls=%d connects=%d tlsHandshakes=%d reused=%d"
+                + " first tick=%.1fms, later ticks p50=%.1fms p99=%.1fms, call p50=%dms p99=%dms",
+            name, TICKS, metrics.getCallCount(), metrics.getConnectCount(), metrics.getHandshakeCount(),
+            metrics.getReusedConnectionCount(), tickNanos[0] / 1e6, percentile(warmTickNanos, 50) / 1e6,
+            percentile(warmTickNanos, 99) / 1e6, metrics.getLatencyPercentile(50), metrics.getLatencyPercentile(99)));
+    }
+    
+    private Request latestValuesRequest(int building) {
+        return new Request.Builder()
+            .url(server.url("/time-series/ids/latest?includeDataQuality=true"))
+            .post(RequestBody.create("[\"BLDG-000" + building + "-CAP-0\"]", JSON))
+            .build();
+    }
+    
+    private static long percentile(long[] sorted, double percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
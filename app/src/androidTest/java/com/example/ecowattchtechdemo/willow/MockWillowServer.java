@@ -0,0 +1,419 @@
+package com.example.ecowattchtechdemo.willow;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import okhttp3.HttpUrl;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for the Willow API v3 that serves a synthetic campus.
+ * Implements oauth2/token, twins, twins/ids and the time-series endpoints the
+ * app uses, with configurable latency, error rates and page sizes, so
+ * WillowEnergyDataManager can be exercised without the real tenant.
+ */
+public class MockWillowServer {
+    
+    public static final String BUILDING_MODEL = "dtmi:com:willowinc:Building;1";
+    
+    private static final String MOCK_TOKEN = "mock-willow-token";
+    
+    /**
+     * Source of per-response latency
+     */
+    public interface LatencyModel {
+        long sampleMs(Random random);
+    }
+    
+    public static LatencyModel fixed(long latencyMs) {
+        return random -> latencyMs;
+    }
+    
+    public static LatencyModel uniform(long minMs, long maxMs) {
+        return random -> minMs + (long) (random.nextDouble() * (maxMs - minMs));
+    }
+    
+    /**
+     * Log-normal latency: most responses near the median with a long slow tail,
+     * which is what a busy tenant looks like
+     */
+    public static LatencyModel logNormal(long medianMs, double sigma) {
+        return random -> (long) (medianMs * Math.exp(sigma * random.nextGaussian()));
+    }
+    
+    /**
+     * Shape of the synthetic campus and of the faults injected into responses
+     */
+    public static class Config {
+        int buildingCount = 3;
+        int capabilitiesPerBuilding = 4;
+        double directSeriesRate = 0.5;
+        LatencyModel latency = fixed(0);
+        double errorRate = 0;
+        double throttleRate = 0;
+        int maxPageSize = 100;
+        int historyPointsPerTwin = 96;
+        long historyIntervalMs = 15 * 60 * 1000L;
+        long seed = 42;
+        
+        public Config setBuildingCount(int buildingCount) {
+            this.buildingCount = buildingCount;
+            return this;
+        }
+        
+        public Config setCapabilitiesPerBuilding(int capabilitiesPerBuilding) {
+            this.capabilitiesPerBuilding = capabilitiesPerBuilding;
+            return this;
+        }
+        
+        /**
+         * Share of buildings that answer time-series/{id}/latest directly; the
+         * rest push the manager into capability search
+         */
+        public Config setDirectSeriesRate(double directSeriesRate) {
+            this.directSeriesRate = directSeriesRate;
+            return this;
+        }
+        
+        public Config setLatency(LatencyModel latency) {
+            this.latency = latency;
+            return this;
+        }
+        
+        /**
+         * Share of responses replaced by a 500
+         */
+        public Config setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+        
+        /**
+         * Share of responses replaced by a 429 with Retry-After: 1
+         */
+        public Config setThrottleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+        
+        /**
+         * Largest page returned by twin search and time series history, whatever the client asks for
+         */
+        public Config setMaxPageSize(int maxPageSize) {
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+        
+        public Config setHistoryPointsPerTwin(int historyPointsPerTwin) {
+            this.historyPointsPerTwin = historyPointsPerTwin;
+            return this;
+        }
+        
+        public Config setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+    }
+    
+    private final Config config;
+    private final MockWebServer server = new MockWebServer();
+    private final Gson gson = new Gson();
+    private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+    
+    private final List<String> buildingIds = new ArrayList<>();
+    private final Map<String, String> twinModels = new LinkedHashMap<>();
+    private final Map<String, String> twinLocations = new ConcurrentHashMap<>();
+    private final Map<String, Double> baseValues = new ConcurrentHashMap<>();
+    private final Set<String> directSeriesBuildings = new HashSet<>();
+    
+    public MockWillowServer(Config config) {
+        this.config = config;
+        buildCampus();
+    }
+    
+    public void start() throws IOException {
+        server.setDispatcher(new WillowDispatcher());
+        server.start();
+    }
+    
+    public void shutdown() throws IOException {
+        server.shutdown();
+    }
+    
+    /**
+     * Base URL to hand to WillowEnergyDataManager (without the /api/v3 path)
+     */
+    public String getBaseUrl() {
+        return "http://" + server.getHostName() + ":" + server.getPort();
+    }
+    
+    public List<String> getBuildingIds() {
+        return Collections.unmodifiableList(buildingIds);
+    }
+    
+    /**
+     * Requests served so far, keyed like "POST twins"
+     */
+    public Map<String, Integer> getRequestCounts() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, AtomicInteger> entry : requestCounts.entrySet()) {
+            counts.put(entry.getKey(), entry.getValue().get());
+        }
+        return counts;
+    }
+    
+    private void buildCampus() {
+        Random random = new Random(config.seed);
+        for (int b = 0; b < config.buildingCount; b++) {
+            String buildingId = String.format(Locale.US, "BLDG-%04d", b);
+            buildingIds.add(buildingId);
+            twinModels.put(buildingId, BUILDING_MODEL);
+            baseValues.put(buildingId, 150 + random.nextDouble() * 300);
+            if (random.nextDouble() < config.directSeriesRate) {
+                directSeriesBuildings.add(buildingId);
+            }
+            
+            for (int c = 0; c < config.capabilitiesPerBuilding; c++) {
+                String capabilityId = buildingId + "-CAP-" + c;
+                twinModels.put(capabilityId, c % 2 == 0
+                    ? WillowApiV3Config.ENERGY_CONSUMPTION_MODEL : WillowApiV3Config.POWER_CONSUMPTION_MODEL);
+                baseValues.put(capabilityId, 20 + random.nextDouble() * 80);
+                twinLocations.put(capabilityId, buildingId);
+            }
+        }
+    }
+    
+    private class WillowDispatcher extends Dispatcher {
+        @Override
+        public MockResponse dispatch(RecordedRequest request) {
+            HttpUrl url = request.getRequestUrl();
+            String path = url.encodedPath().replaceFirst("^" + WillowApiV3Config.API_BASE_PATH, "");
+            String method = request.getMethod();
+            String[] segments = path.substring(1).split("/");
+            
+            String endpoint = method + " " + endpointName(segments);
+            AtomicInteger count = requestCounts.get(endpoint);
+            if (count == null) {
+                requestCounts.putIfAbsent(endpoint, new AtomicInteger());
+                count = requestCounts.get(endpoint);
+            }
+            count.incrementAndGet();
+            
+            if (path.equals(WillowApiV3Config.OAUTH_TOKEN_ENDPOINT)) {
+                return json("{\"access_token\":\"" + MOCK_TOKEN + "\",\"token_type\":\"Bearer\",\"expires_in\":3600}");
+            }
+            
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long latencyMs = Math.max(0, config.latency.sampleMs(random));
+            double roll = random.nextDouble();
+            MockResponse response;
+            if (roll < config.errorRate) {
+                response = new MockResponse().setResponseCode(500).setBody("{\"message\":\"Injected failure\"}");
+            } else if (roll < config.errorRate + config.throttleRate) {
+                response = new MockResponse().setResponseCode(429).setHeader("Retry-After", "1");
+            } else {
+                response = route(method, segments, url, request.getBody().readUtf8());
+            }
+            return response.setHeadersDelay(latencyMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private static String endpointName(String[] segments) {
+        if (segments.length >= 2 && segments[0].equals("twins") && !segments[1].equals("ids")) {
+            return "twins/{id}";
+        }
+        if (segments.length >= 2 && segments[0].equals("time-series") && !segments[1].equals("ids")) {
+            return segments.length == 3 ? "time-series/{id}/latest" : "time-series/{id}";
+        }
+        return String.join("/", segments);
+    }
+    
+    private MockResponse route(String method, String[] segments, HttpUrl url, String body) {
+        if (segments[0].equals("twins")) {
+            if (segments.length == 1 && method.equals("POST")) return searchTwins(body);
+            if (segments.length == 2 && segments[1].equals("ids")) return twinsByIds(body);
+            if (segments.length == 2) return twin(segments[1]);
+        } else if (segments[0].equals("time-series")) {
+            if (segments.length == 3 && segments[1].equals("ids") && segments[2].equals("latest")) {
+                return latestForIds(body);
+            }
+            if (segments.length == 2 && segments[1].equals("ids")) {
+                return history(gson.<List<String>>fromJson(body, new TypeToken<List<String>>() {}.getType()), url);
+            }
+            if (segments.length == 3 && segments[2].equals("latest")) return latestForTwin(segments[1]);
+            if (segments.length == 2) return history(Collections.singletonList(segments[1]), url);
+        }
+        return new MockResponse().setResponseCode(404).setBody("{\"message\":\"Not found\"}");
+    }
+    
+    private MockResponse twin(String twinId) {
+        if (!twinModels.containsKey(twinId)) {
+            return new MockResponse().setResponseCode(404).setBody("{\"message\":\"Twin not found\"}");
+        }
+        return json(gson.toJson(twinJson(twinId)));
+    }
+    
+    private MockResponse twinsByIds(String body) {
+        List<String> ids = gson.fromJson(body, new TypeToken<List<String>>() {}.getType());
+        List<Map<String, Object>> twins = new ArrayList<>();
+        for (String id : ids) {
+            if (twinModels.containsKey(id)) {
+                twins.add(twinJson(id));
+            }
+        }
+        return json(gson.toJson(twins));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private MockResponse searchTwins(String body) {
+        Map<String, Object> request = gson.fromJson(body, new TypeToken<Map<String, Object>>() {}.getType());
+        Map<String, Object> modelFilter = (Map<String, Object>) request.get("modelFilter");
+        List<String> modelIds = modelFilter != null ? (List<String>) modelFilter.get("modelIds") : null;
+        String locationId = (String) request.get("locationId");
+        
+        List<String> matches = new ArrayList<>();
+        for (Map.Entry<String, String> entry : twinModels.entrySet()) {
+            if ((modelIds == null || modelIds.contains(entry.getValue()))
+                && (locationId == null || locationId.equals(twinLocations.get(entry.getKey())))) {
+                matches.add(entry.getKey());
+            }
+        }
+        
+        int pageSize = pageSize(request.get("pageSize"));
+        int offset = offset((String) request.get("continuationToken"));
+        int end = Math.min(matches.size(), offset + pageSize);
+        
+        List<Map<String, Object>> content = new ArrayList<>();
+        for (String id : matches.subList(Math.min(offset, end), end)) {
+            content.add(twinJson(id));
+        }
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("content", content);
+        if (end < matches.size()) {
+            page.put("continuationToken", String.valueOf(end));
+        }
+        return json(gson.toJson(page));
+    }
+    
+    private MockResponse latestForTwin(String twinId) {
+        List<Map<String, Object>> points = new ArrayList<>();
+        boolean building = BUILDING_MODEL.equals(twinModels.get(twinId));
+        if (twinModels.containsKey(twinId) && (!building || directSeriesBuildings.contains(twinId))) {
+            points.add(point(twinId, System.currentTimeMillis()));
+        }
+        return json(gson.toJson(points));
+    }
+    
+    private MockResponse latestForIds(String body) {
+        List<String> ids = gson.fromJson(body, new TypeToken<List<String>>() {}.getType());
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (String id : ids) {
+            if (twinModels.containsKey(id) && !BUILDING_MODEL.equals(twinModels.get(id))) {
+                points.add(point(id, now));
+            }
+        }
+        return json(gson.toJson(points));
+    }
+    
+    /**
+     * Page through historyPointsPerTwin points per twin, twin by twin
+     */
+    private MockResponse history(List<String> twinIds, HttpUrl url) {
+        int total = twinIds.size() * config.historyPointsPerTwin;
+        String requested = url.queryParameter("pageSize");
+        int pageSize = pageSize(requested != null ? Integer.valueOf(requested) : null);
+        int offset = offset(url.queryParameter("continuationToken"));
+        int end = Math.min(total, offset + pageSize);
+        
+        long newest = System.currentTimeMillis();
+        List<Map<String, Object>> data = new ArrayList<>();
+        for (int i = offset; i < end; i++) {
+            String twinId = twinIds.get(i / config.historyPointsPerTwin);
+            int age = config.historyPointsPerTwin - 1 - i % config.historyPointsPerTwin;
+            data.add(point(twinId, newest - age * config.historyIntervalMs));
+        }
+        
+        Map<String, Object> page = new LinkedHashMap<>();
+        page.put("data", data);
+        if (end < total) {
+            page.put("continuationToken", String.valueOf(end));
+        }
+        return json(gson.toJson(page));
+    }
+    
+    private Map<String, Object> twinJson(String twinId) {
+        Map<String, Object> twin = new LinkedHashMap<>();
+        twin.put("id", twinId);
+        twin.put("modelId", twinModels.get(twinId));
+        twin.put("lastUpdateTime", "2025-01-01T00:00:00Z");
+        return twin;
+    }
+    
+    private Map<String, Object> point(String twinId, long timestampMs) {
+        Double base = baseValues.get(twinId);
+        double value = (base != null ? base : 100) * (0.9 + 0.2 * ThreadLocalRandom.current().nextDouble());
+        String timestamp = formatTimestamp(timestampMs);
+        
+        Map<String, Object> quality = new LinkedHashMap<>();
+        quality.put("offline", false);
+        quality.put("valueOutOfRange", false);
+        quality.put("sparse", false);
+        quality.put("flatline", false);
+        quality.put("delayed", false);
+        
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("twinId", twinId);
+        point.put("sourceTimestamp", timestamp);
+        point.put("enqueuedTimestamp", timestamp);
+        point.put("scalarValue", value);
+        point.put("dataQuality", quality);
+        return point;
+    }
+    
+    private int pageSize(Object requested) {
+        int pageSize = requested instanceof Number ? ((Number) requested).intValue() : config.maxPageSize;
+        return Math.max(1, Math.min(pageSize, config.maxPageSize));
+    }
+    
+    private static int offset(String continuationToken) {
+        if (continuationToken == null) return 0;
+        try {
+            return Integer.parseInt(continuationToken);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+    
+    private static String formatTimestamp(long timestampMs) {
+        // SimpleDateFormat is not thread-safe and the dispatcher runs on several threads
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new Date(timestampMs));
+    }
+    
+    private static MockResponse json(String body) {
+        return new MockResponse()
+            .setHeader("Content-Type", "application/json")
+            .setBody(body);
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
+import com.example.ecowattchtechdemo.willow.timeseries.TimeSeriesSink;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Load test for WillowEnergyDataManager against MockWillowServer. Each
+ * scenario drives a fixed number of building fetches at a set concurrency and
+ * logs throughput and latency percentiles under the WillowLoadTest tag.
+ * Throughput is bounded by the client's own rate limiter, so these numbers
+ * show how the manager behaves under load rather than how fast the server is.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WillowLoadTest {
+    
+    private static final String TAG = "WillowLoadTest";
+    private static final long SCENARIO_TIMEOUT_MINUTES = 5;
+    
+    private MockWillowServer server;
+    
+    @After
+    public void tearDown() throws Exception {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+    
+    @Test
+    public void steadyTenant() throws Exception {
+        LoadReport report = runScenario("steady", new MockWillowServer.Config()
+            .setBuildingCount(10)
+            .setLatency(MockWillowServer.uniform(20, 80)), 100, 8);
+        assertEquals(0, report.failures);
+    }
+    
+    @Test
+    public void slowTenant() throws Exception {
+        LoadReport report = runScenario("slow", new MockWillowServer.Config()
+            .setBuildingCount(10)
+            .setLatency(MockWillowServer.logNormal(300, 0.8)), 60, 8);
+        assertEquals(0, report.failures);
+    }
+    
+    @Test
+    public void flakyTenant() throws Exception {
+        LoadReport report = runScenario("flaky", new MockWillowServer.Config()
+            .setBuildingCount(10)
+            .setLatency(MockWillowServer.uniform(20, 80))
+            .setErrorRate(0.1)
+            .setThrottleRate(0.05), 60, 8);
+        // Injected faults should end in retries or fallback data, never a failed future
+        assertEquals(0, report.failures);
+    }
+    
+    @Test
+    public void largeCampus() throws Exception {
+        LoadReport report = runScenario("large-campus", new MockWillowServer.Config()
+            .setBuildingCount(40)
+            .setCapabilitiesPerBuilding(4)
+            .setDirectSeriesRate(0.1)
+            .setMaxPageSize(20)
+            .setLatency(MockWillowServer.uniform(20, 80)), 40, 8);
+        // Capability search pages through the whole campus, so expect fallbacks once it outgrows the fetch deadline
+        assertEquals(0, report.failures);
+    }
+    
+    @Test
+    public void streamHistory() throws Exception {
+        server = new MockWillowServer(new MockWillowServer.Config()
+            .setBuildingCount(5)
+            .setHistoryPointsPerTwin(2000)
+            .setMaxPageSize(500)
+            .setLatency(MockWillowServer.uniform(20, 80)));
+        server.start();
+        WillowEnergyDataManager manager = newManager();
+        
+        List<String> twinIds = Arrays.asList("BLDG-0000-CAP-0", "BLDG-0001-CAP-0", "BLDG-0002-CAP-0");
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger received = new AtomicInteger();
+        AtomicReference<String> error = new AtomicReference<>();
+        TimeSeriesSink sink = (twinId, sourceTimestamp, value, qualityFlags) -> received.incrementAndGet();
+        
+        long startNanos = System.nanoTime();
+        manager.streamTimeSeries(twinIds, "2025-01-01T00:00:00Z", "2025-02-01T00:00:00Z", sink,
+            new WillowEnergyDataManager.TimeSeriesStreamCallback() {
+                @Override
+                public void onComplete(int pointCount) {
+                    done.countDown();
+                }
+                
+                @Override
+                public void onError(String message) {
+                    error.set(message);
+                    done.countDown();
+                }
+            });
+        
+        assertTrue("Stream did not finish", done.await(SCENARIO_TIMEOUT_MINUTES, TimeUnit.MINUTES));
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        Log.i(TAG, String.format(Locale.US, "[stream] points=%d in %.2fs (%.0f points/s), server=%s",
+            received.get(), seconds, received.get() / seconds, server.getRequestCounts()));
+        
+        assertNull(error.get());
+        assertEquals(twinIds.size() * 2000, received.get());
+    }
+    
+    /**
+     * Fetch buildings round-robin across the campus, keeping at most
+     * concurrency fetches in flight, and log the results
+     */
+    private LoadReport runScenario(String name, MockWillowServer.Config config, int requests, int concurrency)
+            throws Exception {
+        server = new MockWillowServer(config);
+        server.start();
+        WillowEnergyDataManager manager = newManager();
+        List<String> buildingIds = server.getBuildingIds();
+        
+        long[] latenciesNanos = new long[requests];
+        AtomicInteger failures = new AtomicInteger();
+        AtomicInteger fallbacks = new AtomicInteger();
+        Semaphore inFlight = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            inFlight.acquire();
+            final int index = i;
+            final long requestStart = System.nanoTime();
+            manager.getEnergyDataAsync(buildingIds.get(i % buildingIds.size()), RequestPriority.BACKGROUND, 0)
+                .whenComplete((data, error) -> {
+                    latenciesNanos[index] = System.nanoTime() - requestStart;
+                    if (error != null) {
+                        failures.incrementAndGet();
+                        Log.w(TAG, "[" + name + "] fetch failed: " + error);
+                    } else if (!data.isDataAvailable()) {
+                        fallbacks.incrementAndGet();
+                    }
+                    inFlight.release();
+                    done.countDown();
+                });
+        }
+        
+        assertTrue("Scenario " + name + " did not finish", done.await(SCENARIO_TIMEOUT_MINUTES, TimeUnit.MINUTES));
+        LoadReport report = new LoadReport(name, requests, System.nanoTime() - startNanos, latenciesNanos,
+            failures.get(), fallbacks.get());
+        
+        Log.i(TAG, report.toString());
+        Log.i(TAG, "[" + name + "] server=" + server.getRequestCounts());
+        Log.i(TAG, "[" + name + "] " + HttpClientProvider.getMetrics().summary());
+        manager.cancelAll();
+        return report;
+    }
+    
+    private WillowEnergyDataManager newManager() throws Exception {
+        // A fresh manager per scenario, not getInstance(), so each run starts cold
+        WillowEnergyDataManager manager = new WillowEnergyDataManager((Context) null, server.getBaseUrl());
+        manager.authenticateAsync("load-test-client", "load-test-secret").get(30, TimeUnit.SECONDS);
+        return manager;
+    }
+    
+    private static final class LoadReport {
+        final String name;
+        final int requests;
+        final long elapsedNanos;
+        final long[] sortedLatenciesNanos;
+        final int failures;
+        final int fallbacks;
+        
+        LoadReport(String name, int requests, long elapsedNanos, long[] latenciesNanos, int failures, int fallbacks) {
+            this.name = name;
+            this.requests = requests;
+            this.elapsedNanos = elapsedNanos;
+            this.sortedLatenciesNanos = latenciesNanos.clone();
+            Arrays.sort(sortedLatenciesNanos);
+            this.failures = failures;
+            this.fallbacks = fallbacks;
+        }
+        
+        double throughputPerSecond() {
+            return requests / (elapsedNanos / 1e9);
+        }
+        
+        /**
+         * Nearest-rank percentile in milliseconds
+         */
+        long percentileMs(double percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sortedLatenciesNanos.length);
+            int index = Math.max(0, Math.min(sortedLatenciesNanos.length - 1, rank - 1));
+            return TimeUnit.NANOSECONDS.toMillis(sortedLatenciesNanos[index]);
+        }
+        
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "[%s] requests=%d in %.2fs, %.1f req/s, p50=%dms p95=%dms p99=%dms max=%dms, failures=%d, fallbacks=%d",
+                name, requests, elapsedNanos / 1e9, throughputPerSecond(),
+                percentileMs(50), percentileMs(95), percentileMs(99), percentileMs(100), failures, fallbacks);
+        }
+    }
+}
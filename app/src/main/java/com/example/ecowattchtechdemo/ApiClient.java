@@ -1,16 +1,19 @@
 package com.example.ecowattchtechdemo;
 
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
+
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 public class ApiClient {
     private static final String BASE_URL = "http://10.0.2.2:3000"; // No trailing slash
     private static Retrofit retrofit;
 
-    public static Retrofit getClient() {
+    public static synchronized Retrofit getClient() {
         if (retrofit == null) {
             retrofit = new Retrofit.Builder()
                     .baseUrl(BASE_URL)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .client(HttpClientProvider.getHttpClient())
+                    .addConverterFactory(GsonConverterFactory.create(HttpClientProvider.getGson()))
                     .build();
         }
         return retrofit;
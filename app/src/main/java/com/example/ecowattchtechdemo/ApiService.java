@@ -10,6 +10,9 @@ import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
 public interface ApiService {
     @POST("/login")
     Call<LoginResponse> login(@Body LoginRequest request);
+
+    @POST("/signup")
+    Call<LoginResponse> signup(@Body SignupRequest request);
     
     // Willow API integration endpoints (for future use)
     @GET("/energy/{buildingId}")
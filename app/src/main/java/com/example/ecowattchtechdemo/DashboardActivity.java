@@ -10,16 +10,27 @@ import android.widget.LinearLayout;
 import android.os.Handler;
 import android.os.Looper;
 import android.util.Log;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.text.DecimalFormat;
 import android.widget.ImageView;
 import android.widget.Button;
 import android.widget.TextView;
 
 // Willow API imports
+import com.example.ecowattchtechdemo.willow.CallScope;
+import com.example.ecowattchtechdemo.willow.DeviceConditions;
+import com.example.ecowattchtechdemo.willow.PollingScheduler;
+import com.example.ecowattchtechdemo.willow.RequestPriority;
 import com.example.ecowattchtechdemo.willow.WillowEnergyDataManager;
 import com.example.ecowattchtechdemo.willow.WillowApiV3Config;
 import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
 
 public class DashboardActivity extends AppCompatActivity {
     private static final String TAG = "DashboardActivity";
@@ -32,7 +43,7 @@ public class DashboardActivity extends AppCompatActivity {
     
     // Live data configuration
     private String currentDormName = "TINSLEY";
-    private static final long UPDATE_INTERVAL = 10000; // 10 seconds
+    private static final long UPDATE_INTERVAL = 10000; // 10 seconds, simulated data and polling baseline
     
     // Dorm data for rotation
     private String[] dormNames = {"TINSLEY", "GABALDON", "SECHRIST"};
@@ -44,6 +55,9 @@ public class DashboardActivity extends AppCompatActivity {
     private WillowEnergyDataManager energyDataManager;
     private boolean isWillowAuthenticated = false;
     private boolean useRealData = false; // Toggle between real and simulated data
+    private CallScope screenScope;
+    // Refresh still running, if any; only touched on the main thread
+    private CompletableFuture<?> pendingRefresh;
 
     // Meter components
     View meterFill;
@@ -57,6 +71,13 @@ public class DashboardActivity extends AppCompatActivity {
 
     // theme manager
     private ThemeManager tm;
+    
+    // Adapts the real-data polling cadence; simulated data keeps UPDATE_INTERVAL
+    private PollingScheduler pollingScheduler;
+    private final Runnable updateTask = () -> {
+        updateUIWithLiveData();
+        scheduleNextUpdate();
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -75,12 +96,28 @@ public class DashboardActivity extends AppCompatActivity {
     protected void onStart() {
         super.onStart();
         tm.applyTheme();
+        
+        // Back from the background: refresh now and resume the polling cycle
+        if (!pollingScheduler.isForeground()) {
+            pollingScheduler.setForeground(true);
+            updateHandler.removeCallbacks(updateTask);
+            updateHandler.post(updateTask);
+        }
+    }
+    
+    @Override
+    protected void onStop() {
+        super.onStop();
+        // Nothing on screen to update, stop polling until the dashboard is visible again
+        pollingScheduler.setForeground(false);
+        updateHandler.removeCallbacks(updateTask);
     }
     
     private void initializeComponents() {
         updateHandler = new Handler(Looper.getMainLooper());
         random = new Random();
         decimalFormat = new DecimalFormat("#,##0");
+        pollingScheduler = new PollingScheduler(new DeviceConditions(this), UPDATE_INTERVAL);
         
         // Validate BuildConfig environment variables
         Log.d(TAG, "🔐 Environment Variables Status:");
@@ -103,7 +140,12 @@ public class DashboardActivity extends AppCompatActivity {
      */
     private void initializeWillowApi() {
         try {
-            energyDataManager = new WillowEnergyDataManager();
+            // Shared with the other screens, so an existing token and readings are reused
+            energyDataManager = WillowEnergyDataManager.getInstance(this);
+            // This screen's own requests, cancelled with it in onDestroy
+            screenScope = energyDataManager.newScope();
+            // The dashboard is what users wait on, so trade a few extra calls for a shorter tail
+            energyDataManager.setHedgedFetchEnabled(true);
             
             // Try to authenticate with stored credentials
             authenticateWithWillow();
@@ -329,20 +371,25 @@ public class DashboardActivity extends AppCompatActivity {
      * Schedule the next data update
      */
     private void scheduleNextUpdate() {
-        updateHandler.postDelayed(() -> {
-            updateUIWithLiveData();
-            scheduleNextUpdate(); // Schedule the next update
-        }, UPDATE_INTERVAL);
+        updateHandler.removeCallbacks(updateTask);
+        if (!pollingScheduler.isForeground()) return;
+        
+        long delay = useRealData && isWillowAuthenticated ? pollingScheduler.nextDelayMs() : UPDATE_INTERVAL;
+        updateHandler.postDelayed(updateTask, delay);
     }
     
     /**
      * Update UI with fresh live data (real or simulated)
      */
     private void updateUIWithLiveData() {
+        updateUIWithLiveData(RequestPriority.BACKGROUND);
+    }
+    
+    private void updateUIWithLiveData(RequestPriority priority) {
         if (dashContentFragment == null || !dashContentFragment.isAdded()) {
             Log.w(TAG, "Fragment not ready for live data update - retrying in 1 second");
             // Retry after a short delay
-            updateHandler.postDelayed(() -> updateUIWithLiveData(), 1000);
+            updateHandler.postDelayed(() -> updateUIWithLiveData(priority), 1000);
             return;
         }
 
@@ -351,7 +398,7 @@ public class DashboardActivity extends AppCompatActivity {
 
         if (useRealData && isWillowAuthenticated) {
             // Fetch real data from Willow API
-            fetchRealEnergyData();
+            fetchRealEnergyData(priority);
         } else {
             // Use simulated data
             updateWithSimulatedData();
@@ -361,73 +408,83 @@ public class DashboardActivity extends AppCompatActivity {
     /**
      * Fetch real energy data from Willow API
      */
-    private void fetchRealEnergyData() {
+    private void fetchRealEnergyData(RequestPriority priority) {
         String twinId = getCurrentBuildingTwinId();
         
-        Log.d(TAG, "🌐 Fetching REAL energy data for " + currentDormName + " (Twin ID: " + twinId + ")");
+        Log.d(TAG, "🌐 Fetching REAL energy data for all dorms, showing " + currentDormName + " (Twin ID: " + twinId + ")");
         
-        energyDataManager.getEnergyData(twinId, new WillowEnergyDataManager.EnergyDataCallback() {
-            @Override
-            public void onSuccess(EnergyDataResponse data) {
-                runOnUiThread(() -> {
-                    updateUIWithRealData(data);
-                });
-            }
-            
-            @Override
-            public void onError(String error) {
-                Log.w(TAG, "Failed to fetch real data, falling back to simulated: " + error);
+        // Show what another screen or an earlier refresh already fetched while this one runs
+        EnergyDataResponse cached = energyDataManager.getLatestReading(twinId);
+        if (cached != null && pendingRefresh == null) {
+            applyViewState(DashboardViewState.fromEnergyData(cached, energyDataManager.getBuildingPosition(cached.getBuildingName())));
+        }
+        
+        // Refresh every dorm in one batched request so rotation always shows fresh data. The view
+        // state is built on the Willow executor, so the main thread only applies finished values.
+        CompletableFuture<Map<String, EnergyDataResponse>> refresh =
+            screenScope.track(energyDataManager.getAllEnergyDataAsync(priority));
+        pendingRefresh = refresh;
+        refresh
+            .thenApply(data -> {
+                // Only real readings tell the scheduler whether meters have reported
+                List<String> sourceTimestamps = new ArrayList<>();
+                for (EnergyDataResponse building : data.values()) {
+                    if (building.isDataAvailable() && building.getLastUpdated() != null) {
+                        sourceTimestamps.add(building.getLastUpdated());
+                    }
+                }
+                pollingScheduler.onPollCompleted(sourceTimestamps);
+                
+                EnergyDataResponse current = data.get(twinId);
+                return current != null
+                    ? DashboardViewState.fromEnergyData(current, energyDataManager.getBuildingPosition(current.getBuildingName()))
+                    : null;
+            })
+            .whenComplete((state, error) -> {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof CancellationException) {
+                    // Cancelled with the screen, nothing left to update
+                    return;
+                }
+                if (cause != null) {
+                    Log.w(TAG, "Failed to fetch real data, falling back to simulated: " + cause.getMessage());
+                }
                 runOnUiThread(() -> {
-                    // Fallback to simulated data
-                    updateWithSimulatedData();
+                    // Let the next refresh show cached readings again while it runs
+                    if (pendingRefresh == refresh) {
+                        pendingRefresh = null;
+                    }
+                    if (isDestroyed()) return;
+                    if (state != null) {
+                        applyViewState(state);
+                    } else {
+                        // Fallback to simulated data
+                        updateWithSimulatedData();
+                    }
                 });
-            }
-        });
+            });
     }
     
     /**
-     * Update UI with real energy data from Willow API
+     * Apply a finished view state built from real Willow data
      */
-    private void updateUIWithRealData(EnergyDataResponse data) {
-        int liveUsage = data.getCurrentUsageAsInt();
-        
+    private void applyViewState(DashboardViewState state) {
         // Update the instance variable for meter updates
-        this.currentUsage = liveUsage;
-        
-        Log.d(TAG, "🌐 REAL DATA UPDATE: " + liveUsage + "kW for " + data.getBuildingName() + 
-              " (Status: " + data.getStatus() + ")");
-        
-        // Update current usage (main display)
-        dashContentFragment.updateCurrentUsage(liveUsage + "kW");
+        this.currentUsage = state.getUsageKW();
         
-        // Update the energy meter with real usage
-        updateMeter(liveUsage, thresholdValue);
-        
-        // Update dorm status with position
-        String position = energyDataManager.getBuildingPosition(data.getBuildingName());
-        String statusText = data.getBuildingName() + " - " + (position != null ? position : "LIVE DATA");
-        dashContentFragment.updateDormStatus(statusText);
-        
-        // Use real potential energy if available
-        if (data.getPotentialEnergy() != null) {
-            dashContentFragment.updatePotentialEnergy(data.getPotentialEnergy().intValue() + " Potential Energy");
-        } else {
-            // Calculate potential energy based on real usage
-            int potentialEnergy = Math.max(0, 300 - (liveUsage - 200));
-            dashContentFragment.updatePotentialEnergy(potentialEnergy + " Potential Energy");
-        }
+        Log.d(TAG, "🌐 REAL DATA UPDATE: " + state.getUsageText() + " for " + state.getBuildingName() + 
+              " (Status: " + state.getStatus() + ")");
         
-        // Display real daily total or calculated value
-        String dailyTotalText;
-        if (data.getDailyTotalKWh() != null) {
-            dailyTotalText = "Today's Total: " + decimalFormat.format(data.getDailyTotalAsInt()) + "kWh (Real Data ✅)";
-        } else {
-            int calculatedTotal = liveUsage * 24;
-            dailyTotalText = "Estimated Daily: " + decimalFormat.format(calculatedTotal) + "kWh (Calculated)";
-        }
-        dashContentFragment.updateYesterdaysTotal(dailyTotalText);
+        dashContentFragment.updateCurrentUsage(state.getUsageText());
+        updateMeter(state.getUsageKW(), thresholdValue);
+        dashContentFragment.updateDormStatus(state.getDormStatusText());
+        dashContentFragment.updatePotentialEnergy(state.getPotentialEnergyText());
+        dashContentFragment.updateYesterdaysTotal(state.getDailyTotalText());
         
-        Log.d(TAG, "✅ Real data update completed successfully - Next update in " + (UPDATE_INTERVAL/1000) + " seconds");
+        Log.d(TAG, "✅ Real data update completed successfully");
+        Log.d(TAG, "📶 " + HttpClientProvider.getMetrics().summary() + ", fallbacks=" + energyDataManager.getFallbackCount()
+            + ", hedges=" + energyDataManager.getHedgeWinCount() + "/" + energyDataManager.getHedgeCount() + " won");
+        Log.d(TAG, "⏱️ " + pollingScheduler.summary());
     }
     
     /**
@@ -500,8 +557,10 @@ public class DashboardActivity extends AppCompatActivity {
         currentDormIndex = (currentDormIndex + 1) % dormNames.length;
         currentDormName = dormNames[currentDormIndex];
         
-        // Update UI immediately
-        updateUIWithLiveData();
+        // Update UI immediately, ahead of any background ticks, then poll fast for a while
+        pollingScheduler.onUserRefresh();
+        updateUIWithLiveData(RequestPriority.USER);
+        scheduleNextUpdate();
         
         Log.d(TAG, "Manual refresh completed - switched to: " + currentDormName);
     }
@@ -534,6 +593,10 @@ public class DashboardActivity extends AppCompatActivity {
         if (updateHandler != null) {
             updateHandler.removeCallbacksAndMessages(null);
         }
+        // Free sockets and threads now; calls another screen still waits on keep running
+        if (screenScope != null) {
+            screenScope.cancel();
+        }
         Log.d(TAG, "Live data updates stopped");
     }
 }
@@ -0,0 +1,84 @@
+package com.example.ecowattchtechdemo;
+
+import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
+import java.text.DecimalFormat;
+
+/**
+ * Finished values for one dashboard refresh. Built off the main thread from an
+ * EnergyDataResponse, so the activity only has to apply strings to views.
+ */
+public final class DashboardViewState {
+
+    private final String buildingName;
+    private final String status;
+    private final int usageKW;
+    private final String usageText;
+    private final String dormStatusText;
+    private final String potentialEnergyText;
+    private final String dailyTotalText;
+
+    private DashboardViewState(String buildingName, String status, int usageKW, String usageText,
+                               String dormStatusText, String potentialEnergyText, String dailyTotalText) {
+        this.buildingName = buildingName;
+        this.status = status;
+        this.usageKW = usageKW;
+        this.usageText = usageText;
+        this.dormStatusText = dormStatusText;
+        this.potentialEnergyText = potentialEnergyText;
+        this.dailyTotalText = dailyTotalText;
+    }
+
+    /**
+     * Build the view state for a building's latest reading
+     *
+     * @param position leaderboard position of the building, or null if unknown
+     */
+    public static DashboardViewState fromEnergyData(EnergyDataResponse data, String position) {
+        int liveUsage = data.getCurrentUsageAsInt();
+        String statusText = data.getBuildingName() + " - " + (position != null ? position : "LIVE DATA");
+
+        // Use real potential energy if available, otherwise derive it from usage
+        int potentialEnergy = data.getPotentialEnergy() != null
+            ? data.getPotentialEnergy().intValue() : Math.max(0, 300 - (liveUsage - 200));
+
+        // DecimalFormat is not thread-safe, so each build gets its own
+        DecimalFormat decimalFormat = new DecimalFormat("#,##0");
+        String dailyTotalText;
+        if (data.getDailyTotalKWh() != null) {
+            dailyTotalText = "Today's Total: " + decimalFormat.format(data.getDailyTotalAsInt()) + "kWh (Real Data ✅)";
+        } else {
+            dailyTotalText = "Estimated Daily: " + decimalFormat.format(liveUsage * 24) + "kWh (Calculated)";
+        }
+
+        return new DashboardViewState(data.getBuildingName(), data.getStatus(), liveUsage, liveUsage + "kW",
+            statusText, potentialEnergy + " Potential Energy", dailyTotalText);
+    }
+
+    public String getBuildingName() {
+        return buildingName;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public int getUsageKW() {
+        return usageKW;
+    }
+
+    public String getUsageText() {
+        return usageText;
+    }
+
+    public String getDormStatusText() {
+        return dormStatusText;
+    }
+
+    public String getPotentialEnergyText() {
+        return potentialEnergyText;
+    }
+
+    public String getDailyTotalText() {
+        return dailyTotalText;
+    }
+}
@@ -17,13 +17,12 @@ import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 
-import com.android.volley.Request;
-import com.android.volley.toolbox.JsonObjectRequest;
-import com.android.volley.toolbox.Volley;
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
 import com.google.android.material.textfield.TextInputEditText;
 
-import org.json.JSONException;
-import org.json.JSONObject;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
 
 public class SignupFragment extends Fragment {
     Button signupButton;
@@ -61,19 +60,16 @@ public class SignupFragment extends Fragment {
             String confirm = confirmPass.getText().toString().trim();
             String dormitory = dormDropdown.getText().toString().trim();
 
-            JSONObject jsonBody = new JSONObject();
-            try {
-                jsonBody.put("usernames", username);
-                jsonBody.put("passwords", password);
-                jsonBody.put("dormitory", dormitory);
-            } catch (JSONException e) {
-                e.printStackTrace();
-            }
+            SignupRequest request = new SignupRequest(username, password, dormitory);
 
-            String url = "http://10.0.2.2:3000/signup";  // local API on emulator
+            // local API on emulator, sent through the shared HTTP client
+            ApiService apiService = ApiClient.getClient().create(ApiService.class);
+            apiService.signup(request).enqueue(new Callback<LoginResponse>() {
+                @Override
+                public void onResponse(Call<LoginResponse> call, Response<LoginResponse> response) {
+                    if (!isAdded()) return;
 
-            JsonObjectRequest request = new JsonObjectRequest(Request.Method.POST, url, jsonBody,
-                    response -> {
+                    if (response.isSuccessful()) {
                         Toast.makeText(requireContext(), "Sign-up successful!", Toast.LENGTH_SHORT).show();
 
                         //get the stuff from the sign up
@@ -82,24 +78,29 @@ public class SignupFragment extends Fragment {
                         editor.putString("Username", username);
                         editor.putString("Dormitory", dormitory);
                         editor.apply();
-                    },
-                    error -> {
+                    } else {
                         String errorMsg = "Sign-up failed";
-                        if (error.networkResponse != null && error.networkResponse.data != null) {
+                        if (response.errorBody() != null) {
                             try {
-                                String responseBody = new String(error.networkResponse.data, "utf-8");
-                                JSONObject data = new JSONObject(responseBody);
-                                errorMsg = data.optString("message", errorMsg);
+                                LoginResponse data = HttpClientProvider.getGson()
+                                        .fromJson(response.errorBody().charStream(), LoginResponse.class);
+                                if (data != null && data.getMessage() != null) {
+                                    errorMsg = data.getMessage();
+                                }
                             } catch (Exception e) {
                                 // fallback to default errorMsg
                             }
                         }
                         Toast.makeText(requireContext(), errorMsg, Toast.LENGTH_LONG).show();
-                        //Toast.makeText(getApplicationContext(), "Sign-up failed: " + error.getMessage(), Toast.LENGTH_LONG).show();
                     }
-            );
-
-            Volley.newRequestQueue(requireContext()).add(request);
+                }
+
+                @Override
+                public void onFailure(Call<LoginResponse> call, Throwable t) {
+                    if (!isAdded()) return;
+                    Toast.makeText(requireContext(), "Sign-up failed", Toast.LENGTH_LONG).show();
+                }
+            });
 
             // go to dashboard
             Intent intent = new Intent(requireContext(), DashboardActivity.class);
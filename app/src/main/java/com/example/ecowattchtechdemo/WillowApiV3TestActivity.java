@@ -9,6 +9,10 @@ import android.widget.TextView;
 import android.view.View;
 import androidx.appcompat.app.AppCompatActivity;
 
+import java.util.concurrent.CancellationException;
+
+import com.example.ecowattchtechdemo.willow.CallScope;
+import com.example.ecowattchtechdemo.willow.RequestPriority;
 import com.example.ecowattchtechdemo.willow.WillowEnergyDataManager;
 import com.example.ecowattchtechdemo.willow.WillowApiV3Config;
 import com.example.ecowattchtechdemo.willow.models.EnergyDataResponse;
@@ -36,6 +40,7 @@ public class WillowApiV3TestActivity extends AppCompatActivity {
     
     // API Manager
     private WillowEnergyDataManager energyDataManager;
+    private CallScope screenScope;
     private boolean isAuthenticated = false;
     
     @Override
@@ -90,6 +95,16 @@ public class WillowApiV3TestActivity extends AppCompatActivity {
         appendOutput("  • Gabaldon Hall: " + WillowApiV3Config.TWIN_ID_GABALDON);
         appendOutput("  • Sechrist Hall: " + WillowApiV3Config.TWIN_ID_SECHRIST);
         appendOutput("\n✨ Ready to test - Click 'Authenticate' to begin");
+        
+        // The dashboard may already hold a token for the default tenant
+        WillowEnergyDataManager shared = WillowEnergyDataManager.getInstance(this);
+        if (shared.isAuthenticated()) {
+            energyDataManager = shared;
+            isAuthenticated = true;
+            setDataButtonsEnabled(true);
+            updateStatusText("✅ Reusing existing Willow session", false);
+            appendOutput("🔑 Reusing existing Willow session, no new authentication needed");
+        }
     }
     
     private void performAuthentication() {
@@ -109,8 +124,14 @@ public class WillowApiV3TestActivity extends AppCompatActivity {
         appendOutput("📍 Organization URL: " + orgUrl);
         appendOutput("🆔 Client ID: " + clientId.substring(0, 8) + "...");
         
-        // Initialize energy data manager with custom URL
-        energyDataManager = new WillowEnergyDataManager(orgUrl);
+        // Shared manager for this URL; a still-valid token for these credentials is reused
+        WillowEnergyDataManager manager = WillowEnergyDataManager.getInstance(this, orgUrl);
+        if (manager != energyDataManager && screenScope != null) {
+            // Requests on the previous manager are no longer wanted
+            screenScope.cancel();
+            screenScope = null;
+        }
+        energyDataManager = manager;
         
         energyDataManager.authenticate(clientId, clientSecret, new WillowEnergyDataManager.AuthenticationCallback() {
             @Override
@@ -154,24 +175,22 @@ public class WillowApiV3TestActivity extends AppCompatActivity {
         appendOutput("\n🏢 Fetching energy data for " + buildingName);
         appendOutput("🔍 Twin ID: " + twinId);
         
-        energyDataManager.getEnergyData(twinId, new WillowEnergyDataManager.EnergyDataCallback() {
-            @Override
-            public void onSuccess(EnergyDataResponse data) {
+        screenScope().track(energyDataManager.getEnergyDataAsync(twinId, RequestPriority.USER, 0))
+            .whenComplete((data, error) -> {
+                // Cancelled with the screen, nothing left to update
+                if (error instanceof CancellationException) return;
+                
                 runOnUiThread(() -> {
-                    updateStatusText("✅ Data retrieved for " + buildingName, false);
-                    displayEnergyData(data);
+                    if (error == null) {
+                        updateStatusText("✅ Data retrieved for " + buildingName, false);
+                        displayEnergyData(data);
+                    } else {
+                        updateStatusText("❌ Failed to get data: " + error.getMessage(), true);
+                        appendOutput("❌ Error fetching data for " + buildingName);
+                        appendOutput("🔍 Error: " + error.getMessage());
+                    }
                 });
-            }
-            
-            @Override
-            public void onError(String error) {
-                runOnUiThread(() -> {
-                    updateStatusText("❌ Failed to get data: " + error, true);
-                    appendOutput("❌ Error fetching data for " + buildingName);
-                    appendOutput("🔍 Error: " + error);
-                });
-            }
-        });
+            });
     }
     
     private void getAllBuildingsData() {
@@ -183,15 +202,35 @@ public class WillowApiV3TestActivity extends AppCompatActivity {
         updateStatusText("Fetching all buildings data...", false);
         appendOutput("\n🏢 Fetching energy data for all buildings...");
         
-        // Get data for all buildings sequentially
-        getEnergyData(WillowApiV3Config.TWIN_ID_TINSLEY, "Tinsley Hall");
-        
-        // Add slight delays to avoid overwhelming the API
-        new android.os.Handler().postDelayed(() -> 
-            getEnergyData(WillowApiV3Config.TWIN_ID_GABALDON, "Gabaldon Hall"), 1000);
-        
-        new android.os.Handler().postDelayed(() -> 
-            getEnergyData(WillowApiV3Config.TWIN_ID_SECHRIST, "Sechrist Hall"), 2000);
+        // One batched request covers every building with resolved capabilities
+        screenScope().track(energyDataManager.getAllEnergyDataAsync(RequestPriority.USER))
+            .whenComplete((data, error) -> {
+                if (error instanceof CancellationException) return;
+                
+                runOnUiThread(() -> {
+                    if (error == null) {
+                        updateStatusText("✅ Data retrieved for " + data.size() + " buildings", false);
+                        for (EnergyDataResponse buildingData : data.values()) {
+                            displayEnergyData(buildingData);
+                        }
+                    } else {
+                        updateStatusText("❌ Failed to get data: " + error.getMessage(), true);
+                        appendOutput("❌ Error fetching data for all buildings");
+                        appendOutput("🔍 Error: " + error.getMessage());
+                    }
+                });
+            });
+    }
+    
+    /**
+     * Get the scope for this screen's requests on the current manager, which
+     * changes when authenticating against another organization URL
+     */
+    private CallScope screenScope() {
+        if (screenScope == null) {
+            screenScope = energyDataManager.newScope();
+        }
+        return screenScope;
     }
     
     private void displayEnergyData(EnergyDataResponse data) {
@@ -241,4 +280,13 @@ public class WillowApiV3TestActivity extends AppCompatActivity {
         
         Log.d(TAG, text);
     }
+    
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        // Drop this screen's Willow calls so their results never reach a destroyed activity
+        if (screenScope != null) {
+            screenScope.cancel();
+        }
+    }
 }
@@ -0,0 +1,142 @@
+package com.example.ecowattchtechdemo.network;
+
+import android.content.Context;
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.WillowApiV3Config;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import okhttp3.Cache;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.logging.HttpLoggingInterceptor;
+import java.io.File;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide HTTP engine shared by the Willow client and the backend API.
+ * Every Retrofit instance in the app should be built on top of this client so
+ * that connections, TLS sessions and dispatcher threads are reused.
+ */
+public class HttpClientProvider {
+
+    private static final String TAG = "HttpClientProvider";
+
+    // Connection pool configuration
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    // Dispatcher configuration
+    private static final int MAX_REQUESTS = 16;
+    private static final int MAX_REQUESTS_PER_HOST = 4;
+    // Extra calls for the user lane, on top of MAX_REQUESTS_PER_HOST; see getPriorityDispatcher()
+    private static final int MAX_PRIORITY_REQUESTS = 4;
+
+    // Disk cache configuration
+    private static final String HTTP_CACHE_DIR = "http_cache";
+    private static final long HTTP_CACHE_SIZE = 10L * 1024 * 1024;
+
+    private static volatile OkHttpClient httpClient;
+    private static Dispatcher priorityDispatcher;
+    private static Cache cache;
+    private static final Gson gson = new GsonBuilder().create();
+    private static final HttpMetrics metrics = new HttpMetrics();
+
+    /**
+     * Get the shared OkHttp client
+     */
+    public static OkHttpClient getHttpClient() {
+        if (httpClient == null) {
+            synchronized (HttpClientProvider.class) {
+                if (httpClient == null) {
+                    httpClient = createHttpClient();
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    /**
+     * Attach the disk-backed HTTP cache. Safe to call repeatedly; clients built
+     * from getHttpClient() afterwards will store and revalidate cacheable responses.
+     */
+    public static void installCache(Context context) {
+        if (context == null) return;
+
+        synchronized (HttpClientProvider.class) {
+            if (cache != null) return;
+
+            cache = new Cache(new File(context.getApplicationContext().getCacheDir(), HTTP_CACHE_DIR), HTTP_CACHE_SIZE);
+            if (httpClient != null) {
+                // newBuilder() keeps the existing pool and dispatcher
+                httpClient = httpClient.newBuilder().cache(cache).build();
+            }
+            Log.d(TAG, "Installed HTTP cache");
+        }
+    }
+
+    /**
+     * Get the dispatcher for user-initiated requests. It is separate from the
+     * shared one, so these calls never queue behind background traffic.
+     *
+     * Its limits come on top of the shared dispatcher's, so up to
+     * MAX_REQUESTS_PER_HOST + MAX_PRIORITY_REQUESTS calls can be open to one
+     * host. That is intended: OkHttp cannot share a per-host limit between
+     * dispatchers, and capping the sum would let background calls hold the
+     * slots a refresh needs. Both lanes use the same connection pool, and
+     * the shared RateLimiter, not the dispatchers, bounds what Willow sees.
+     */
+    public static synchronized Dispatcher getPriorityDispatcher() {
+        if (priorityDispatcher == null) {
+            priorityDispatcher = new Dispatcher();
+            priorityDispatcher.setMaxRequests(MAX_PRIORITY_REQUESTS);
+            priorityDispatcher.setMaxRequestsPerHost(MAX_PRIORITY_REQUESTS);
+        }
+        return priorityDispatcher;
+    }
+
+    /**
+     * Get the shared Gson instance used by every converter
+     */
+    public static Gson getGson() {
+        return gson;
+    }
+
+    /**
+     * Get connection and latency metrics for the shared client
+     */
+    public static HttpMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Create the shared HTTP client
+     */
+    private static OkHttpClient createHttpClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(MAX_REQUESTS);
+        dispatcher.setMaxRequestsPerHost(MAX_REQUESTS_PER_HOST);
+
+        OkHttpClient.Builder builder = new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                .cache(cache)
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .eventListener(metrics)
+                .connectTimeout(WillowApiV3Config.CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
+                .readTimeout(WillowApiV3Config.READ_TIMEOUT, TimeUnit.MILLISECONDS)
+                .writeTimeout(WillowApiV3Config.WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
+
+        // Add logging interceptor for debugging
+        if (Log.isLoggable(TAG, Log.DEBUG)) {
+            HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
+            loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
+            builder.addInterceptor(loggingInterceptor);
+        }
+
+        Log.d(TAG, "Created shared HTTP client");
+        return builder.build();
+    }
+}
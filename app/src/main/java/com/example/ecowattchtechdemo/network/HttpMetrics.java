@@ -0,0 +1,214 @@
+package com.example.ecowattchtechdemo.network;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Response;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Event listener that counts connections, TLS handshakes and call latency
+ * for the shared HTTP client
+ */
+public class HttpMetrics extends EventListener {
+
+    private static final int LATENCY_SAMPLE_SIZE = 256;
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong failedCallCount = new AtomicLong();
+    private final AtomicLong connectCount = new AtomicLong();
+    private final AtomicLong handshakeCount = new AtomicLong();
+    private final AtomicLong connectionAcquiredCount = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+    private final AtomicLong cacheConditionalHitCount = new AtomicLong();
+    private final AtomicLong cacheMissCount = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong retryRescuedCount = new AtomicLong();
+    private final AtomicLong retryExhaustedCount = new AtomicLong();
+    private final AtomicLong retryBudgetDeniedCount = new AtomicLong();
+
+    private final Map<Call, Long> callStartTimes = new ConcurrentHashMap<>();
+    private final long[] latencySamples = new long[LATENCY_SAMPLE_SIZE];
+    private int latencySampleCount = 0;
+
+    @Override
+    public void callStart(Call call) {
+        callCount.incrementAndGet();
+        callStartTimes.put(call, System.nanoTime());
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        connectCount.incrementAndGet();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        handshakeCount.incrementAndGet();
+    }
+
+    @Override
+    public void connectionAcquired(Call call, Connection connection) {
+        connectionAcquiredCount.incrementAndGet();
+    }
+
+    @Override
+    public void cacheHit(Call call, Response response) {
+        cacheHitCount.incrementAndGet();
+    }
+
+    @Override
+    public void cacheConditionalHit(Call call, Response cachedResponse) {
+        cacheConditionalHitCount.incrementAndGet();
+    }
+
+    @Override
+    public void cacheMiss(Call call) {
+        cacheMissCount.incrementAndGet();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        recordLatency(call);
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        failedCallCount.incrementAndGet();
+        recordLatency(call);
+    }
+
+    void recordRetry() {
+        retryCount.incrementAndGet();
+    }
+
+    void recordRetryRescued() {
+        retryRescuedCount.incrementAndGet();
+    }
+
+    void recordRetryExhausted() {
+        retryExhaustedCount.incrementAndGet();
+    }
+
+    void recordRetryBudgetDenied() {
+        retryBudgetDeniedCount.incrementAndGet();
+    }
+
+    private void recordLatency(Call call) {
+        Long start = callStartTimes.remove(call);
+        if (start == null) return;
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000L;
+        synchronized (latencySamples) {
+            latencySamples[latencySampleCount % LATENCY_SAMPLE_SIZE] = elapsedMs;
+            latencySampleCount++;
+        }
+    }
+
+    /**
+     * Get latency percentile (0-100) over the most recent calls, in milliseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        long[] sorted;
+        synchronized (latencySamples) {
+            int size = Math.min(latencySampleCount, LATENCY_SAMPLE_SIZE);
+            if (size == 0) return 0;
+            sorted = Arrays.copyOf(latencySamples, size);
+        }
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public long getCallCount() {
+        return callCount.get();
+    }
+
+    public long getFailedCallCount() {
+        return failedCallCount.get();
+    }
+
+    public long getConnectCount() {
+        return connectCount.get();
+    }
+
+    public long getHandshakeCount() {
+        return handshakeCount.get();
+    }
+
+    /**
+     * Number of calls that were served by an already-open pooled connection
+     */
+    public long getReusedConnectionCount() {
+        return Math.max(0, connectionAcquiredCount.get() - connectCount.get());
+    }
+
+    /**
+     * Number of calls answered from the disk cache without touching the network
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * Number of cached responses revalidated with a 304 instead of a full download
+     */
+    public long getCacheConditionalHitCount() {
+        return cacheConditionalHitCount.get();
+    }
+
+    public long getCacheMissCount() {
+        return cacheMissCount.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    /**
+     * Number of requests that failed at first but succeeded on a retry
+     */
+    public long getRetryRescuedCount() {
+        return retryRescuedCount.get();
+    }
+
+    /**
+     * Number of requests still failing after their last allowed retry
+     */
+    public long getRetryExhaustedCount() {
+        return retryExhaustedCount.get();
+    }
+
+    /**
+     * Number of retries skipped because the shared retry budget was empty
+     */
+    public long getRetryBudgetDeniedCount() {
+        return retryBudgetDeniedCount.get();
+    }
+
+    /**
+     * One-line summary for logging
+     */
+    public String summary() {
+        return "HttpMetrics{" +
+                "calls=" + getCallCount() +
+                ", failed=" + getFailedCallCount() +
+                ", connects=" + getConnectCount() +
+                ", tlsHandshakes=" + getHandshakeCount() +
+                ", reused=" + getReusedConnectionCount() +
+                ", cacheHits=" + getCacheHitCount() +
+                ", revalidated=" + getCacheConditionalHitCount() +
+                ", retries=" + getRetryCount() +
+                ", rescued=" + getRetryRescuedCount() +
+                ", retriesExhausted=" + getRetryExhaustedCount() +
+                ", p50=" + getLatencyPercentile(50) + "ms" +
+                ", p99=" + getLatencyPercentile(99) + "ms" +
+                '}';
+    }
+}
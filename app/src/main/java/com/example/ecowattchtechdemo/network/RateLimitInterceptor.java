@@ -0,0 +1,55 @@
+package com.example.ecowattchtechdemo.network;
+
+import android.util.Log;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.IOException;
+
+/**
+ * Application interceptor that takes a permit from a shared RateLimiter
+ * before every attempt, including retries. A call cancelled while waiting
+ * fails at once and frees its dispatcher thread.
+ */
+public class RateLimitInterceptor implements Interceptor {
+
+    private static final String TAG = "RateLimitInterceptor";
+
+    /**
+     * Maps a request to the name of the quota it counts against
+     */
+    public interface EndpointClassifier {
+        String classify(Request request);
+    }
+
+    private final RateLimiter limiter;
+    private final EndpointClassifier classifier;
+    private final boolean priority;
+    private final long maxWaitMs;
+
+    /**
+     * @param priority whether requests from this client may use the reserved share
+     * @param maxWaitMs longest a request may wait for a permit before failing
+     */
+    public RateLimitInterceptor(RateLimiter limiter, EndpointClassifier classifier, boolean priority, long maxWaitMs) {
+        this.limiter = limiter;
+        this.classifier = classifier;
+        this.priority = priority;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        String endpoint = classifier.classify(request);
+
+        long start = System.currentTimeMillis();
+        limiter.acquire(endpoint, priority, maxWaitMs, chain.call());
+        long waitedMs = System.currentTimeMillis() - start;
+        if (waitedMs > 0) {
+            Log.d(TAG, "Waited " + waitedMs + "ms for " + endpoint + (priority ? " (priority)" : ""));
+        }
+
+        return chain.proceed(request);
+    }
+}
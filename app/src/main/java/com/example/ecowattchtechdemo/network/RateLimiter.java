@@ -0,0 +1,141 @@
+package com.example.ecowattchtechdemo.network;
+
+import okhttp3.Call;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token-bucket rate limiter with one bucket per endpoint plus a global
+ * bucket every request draws from. Part of each bucket is held back for
+ * priority requests, so a burst of background traffic cannot make a
+ * user-initiated refresh wait.
+ */
+public class RateLimiter {
+
+    // A waiting call is checked for cancellation at least this often
+    private static final long CANCEL_CHECK_MS = 100;
+
+    /**
+     * Thrown when a request could not get a permit within its wait limit
+     */
+    public static class RateLimitedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public RateLimitedException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Sustained rate and burst size for one bucket
+     */
+    public static class Quota {
+        final double permitsPerSecond;
+        final int burst;
+
+        public Quota(double permitsPerSecond, int burst) {
+            this.permitsPerSecond = permitsPerSecond;
+            this.burst = burst;
+        }
+    }
+
+    private static class TokenBucket {
+        private final double permitsPerMs;
+        private final double capacity;
+        private final double reserve;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(Quota quota, double reserveFraction) {
+            this.permitsPerMs = quota.permitsPerSecond / 1000.0;
+            this.capacity = quota.burst;
+            this.reserve = Math.floor(quota.burst * reserveFraction);
+            this.tokens = quota.burst;
+            this.lastRefill = System.currentTimeMillis();
+        }
+
+        void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * permitsPerMs);
+            lastRefill = now;
+        }
+
+        /**
+         * Get how long until a permit is available, 0 if one is available now
+         */
+        long waitMs(boolean priority) {
+            double needed = 1.0 + (priority ? 0 : reserve);
+            if (tokens >= needed) return 0;
+            return (long) Math.ceil((needed - tokens) / permitsPerMs);
+        }
+    }
+
+    private final TokenBucket global;
+    private final Map<String, Quota> quotas;
+    private final Quota defaultQuota;
+    private final double reserveFraction;
+    private final Map<String, TokenBucket> buckets = new HashMap<>();
+
+    /**
+     * @param quotas per-endpoint quotas keyed by endpoint name
+     * @param reserveFraction share of each bucket only priority requests may use
+     */
+    public RateLimiter(Quota globalQuota, Map<String, Quota> quotas, Quota defaultQuota, double reserveFraction) {
+        this.global = new TokenBucket(globalQuota, reserveFraction);
+        this.quotas = new HashMap<>(quotas);
+        this.defaultQuota = defaultQuota;
+        this.reserveFraction = reserveFraction;
+    }
+
+    /**
+     * Block until both the endpoint and global buckets grant a permit, or
+     * until the call waiting for it is cancelled
+     *
+     * @throws RateLimitedException if no permit is available within maxWaitMs
+     */
+    public void acquire(String endpoint, boolean priority, long maxWaitMs, Call call) throws IOException {
+        long deadline = System.currentTimeMillis() + maxWaitMs;
+        while (true) {
+            if (call.isCanceled()) {
+                throw new IOException("Canceled while rate limited");
+            }
+
+            long waitMs;
+            synchronized (this) {
+                long now = System.currentTimeMillis();
+                TokenBucket bucket = bucket(endpoint);
+                bucket.refill(now);
+                global.refill(now);
+
+                waitMs = Math.max(bucket.waitMs(priority), global.waitMs(priority));
+                if (waitMs == 0) {
+                    bucket.tokens -= 1.0;
+                    global.tokens -= 1.0;
+                    return;
+                }
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (waitMs > remaining) {
+                throw new RateLimitedException("Rate limit for " + endpoint + " would need " + waitMs + "ms");
+            }
+            try {
+                Thread.sleep(Math.min(waitMs, CANCEL_CHECK_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while rate limited");
+            }
+        }
+    }
+
+    private TokenBucket bucket(String endpoint) {
+        TokenBucket bucket = buckets.get(endpoint);
+        if (bucket == null) {
+            Quota quota = quotas.get(endpoint);
+            bucket = new TokenBucket(quota != null ? quota : defaultQuota, reserveFraction);
+            buckets.put(endpoint, bucket);
+        }
+        return bucket;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ecowattchtechdemo.network;
+
+/**
+ * Process-wide cap on retries. Every request deposits a fraction of a token
+ * and every retry withdraws a whole one, so retries can never add more than
+ * that fraction of extra load when the backend is struggling.
+ */
+public class RetryBudget {
+
+    private final double depositPerRequest;
+    private final double maxBalance;
+    private double balance;
+
+    /**
+     * @param retryRatio retries allowed per request in steady state, e.g. 0.1
+     * @param maxBalance tokens that can build up while things are healthy
+     */
+    public RetryBudget(double retryRatio, double maxBalance) {
+        this.depositPerRequest = retryRatio;
+        this.maxBalance = maxBalance;
+        this.balance = maxBalance;
+    }
+
+    /**
+     * Record an original (non-retry) request
+     */
+    public synchronized void onRequest() {
+        balance = Math.min(maxBalance, balance + depositPerRequest);
+    }
+
+    /**
+     * Take a token for a retry
+     *
+     * @return false if the budget is exhausted and the retry must be skipped
+     */
+    public synchronized boolean tryAcquire() {
+        if (balance < 1.0) {
+            return false;
+        }
+        balance -= 1.0;
+        return true;
+    }
+}
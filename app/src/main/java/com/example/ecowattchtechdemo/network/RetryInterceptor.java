@@ -0,0 +1,133 @@
+package com.example.ecowattchtechdemo.network;
+
+import android.util.Log;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Date;
+
+/**
+ * Application interceptor that retries transient failures (connection
+ * errors, 408, 429 and 5xx) for requests the idempotency rule allows.
+ * Retry-After is honoured when present, otherwise the policy's jittered
+ * backoff is used, and every retry has to be paid for from the shared budget.
+ */
+public class RetryInterceptor implements Interceptor {
+
+    private static final String TAG = "RetryInterceptor";
+
+    // Call.cancel() does not interrupt the backoff, so it is slept in steps this long
+    private static final long CANCEL_CHECK_MS = 100;
+
+    /**
+     * Decides which requests are safe to send more than once
+     */
+    public interface IdempotencyRule {
+        boolean isRetryable(Request request);
+    }
+
+    private final RetryPolicy policy;
+    private final RetryBudget budget;
+    private final IdempotencyRule idempotencyRule;
+    private final HttpMetrics metrics;
+
+    public RetryInterceptor(RetryPolicy policy, RetryBudget budget, IdempotencyRule idempotencyRule, HttpMetrics metrics) {
+        this.policy = policy;
+        this.budget = budget;
+        this.idempotencyRule = idempotencyRule;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        budget.onRequest();
+        if (!idempotencyRule.isRetryable(request)) {
+            return chain.proceed(request);
+        }
+
+        long previousDelayMs = 0;
+        for (int attempt = 1; ; attempt++) {
+            boolean lastAttempt = attempt >= policy.getMaxAttempts();
+            Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (IOException e) {
+                // A local rate limit is not a server failure, retrying would only add load
+                if (lastAttempt || chain.call().isCanceled() || e instanceof RateLimiter.RateLimitedException) {
+                    if (attempt > 1) metrics.recordRetryExhausted();
+                    throw e;
+                }
+                if (!budget.tryAcquire()) {
+                    metrics.recordRetryBudgetDenied();
+                    throw e;
+                }
+                previousDelayMs = policy.nextDelayMs(previousDelayMs);
+                Log.d(TAG, request.url().encodedPath() + " failed (" + e.getMessage() + "), retry " + attempt + " in " + previousDelayMs + "ms");
+                metrics.recordRetry();
+                sleep(chain.call(), previousDelayMs);
+                continue;
+            }
+
+            if (!policy.isRetryableStatus(response.code())) {
+                if (attempt > 1 && response.isSuccessful()) metrics.recordRetryRescued();
+                return response;
+            }
+
+            long retryAfterMs = retryAfterMs(response);
+            if (lastAttempt || retryAfterMs > policy.getMaxRetryAfterMs()) {
+                if (attempt > 1) metrics.recordRetryExhausted();
+                return response;
+            }
+            if (!budget.tryAcquire()) {
+                metrics.recordRetryBudgetDenied();
+                return response;
+            }
+
+            previousDelayMs = retryAfterMs >= 0 ? retryAfterMs : policy.nextDelayMs(previousDelayMs);
+            Log.d(TAG, request.url().encodedPath() + " returned " + response.code() + ", retry " + attempt + " in " + previousDelayMs + "ms");
+            metrics.recordRetry();
+            response.close();
+            sleep(chain.call(), previousDelayMs);
+        }
+    }
+
+    /**
+     * Get the Retry-After delay in milliseconds, or -1 if the header is missing or unreadable
+     */
+    private static long retryAfterMs(Response response) {
+        String value = response.header("Retry-After");
+        if (value == null) return -1;
+
+        try {
+            return Math.max(0, Long.parseLong(value.trim()) * 1000);
+        } catch (NumberFormatException e) {
+            Date date = response.headers().getDate("Retry-After");
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    /**
+     * Wait out a backoff, giving the dispatcher thread back as soon as the call is cancelled
+     */
+    private static void sleep(Call call, long delayMs) throws IOException {
+        long deadline = System.currentTimeMillis() + delayMs;
+        while (true) {
+            if (call.isCanceled()) {
+                throw new IOException("Canceled while waiting to retry");
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return;
+
+            try {
+                Thread.sleep(Math.min(remaining, CANCEL_CHECK_MS));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to retry");
+            }
+        }
+    }
+}
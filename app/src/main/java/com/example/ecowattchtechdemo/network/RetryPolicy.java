@@ -0,0 +1,52 @@
+package com.example.ecowattchtechdemo.network;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retry limits and backoff for transient HTTP failures. Delays use
+ * decorrelated jitter: each delay is drawn between the base delay and three
+ * times the previous one, capped at maxDelayMs, so concurrent clients spread
+ * their retries out instead of retrying in lockstep.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMs;
+    private final long maxDelayMs;
+    private final long maxRetryAfterMs;
+
+    /**
+     * @param maxAttempts total attempts including the first one
+     * @param maxRetryAfterMs Retry-After values above this are not waited for
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMs, long maxDelayMs, long maxRetryAfterMs) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMs = baseDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.maxRetryAfterMs = maxRetryAfterMs;
+    }
+
+    /**
+     * Get the delay before the next attempt, given the previous delay (0 for the first retry)
+     */
+    public long nextDelayMs(long previousDelayMs) {
+        long upper = Math.max(baseDelayMs, previousDelayMs * 3);
+        long delay = baseDelayMs + (long) (ThreadLocalRandom.current().nextDouble() * (upper - baseDelayMs));
+        return Math.min(maxDelayMs, delay);
+    }
+
+    /**
+     * Check whether an HTTP status is worth retrying
+     */
+    public boolean isRetryableStatus(int code) {
+        return code == 408 || code == 429 || code == 500 || code == 502 || code == 503 || code == 504;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getMaxRetryAfterMs() {
+        return maxRetryAfterMs;
+    }
+}
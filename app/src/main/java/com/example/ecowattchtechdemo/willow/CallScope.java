@@ -0,0 +1,199 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group of Willow calls that can be cancelled together, e.g. when the screen
+ * that started them is destroyed. Cancelling frees their sockets and
+ * dispatcher threads immediately, and callbacks of calls in a cancelled scope
+ * are dropped so they never reach a dead UI.
+ */
+public class CallScope {
+    
+    private static final String TAG = "CallScope";
+    
+    private final Set<Call<?>> calls = Collections.newSetFromMap(new ConcurrentHashMap<Call<?>, Boolean>());
+    private final Set<TwinSearchPager> pagers = Collections.newSetFromMap(new ConcurrentHashMap<TwinSearchPager, Boolean>());
+    private final Set<CallScope> children = Collections.newSetFromMap(new ConcurrentHashMap<CallScope, Boolean>());
+    private final Set<CompletableFuture<?>> futures = Collections.newSetFromMap(new ConcurrentHashMap<CompletableFuture<?>, Boolean>());
+    private final Set<Runnable> cancelListeners = Collections.newSetFromMap(new ConcurrentHashMap<Runnable, Boolean>());
+    private volatile boolean cancelled = false;
+    
+    /**
+     * Enqueue a call in this scope with an overall deadline
+     *
+     * @param timeoutMs time allowed for the whole call, including retries; 0 for no limit
+     */
+    public <T> void enqueue(Call<T> call, long timeoutMs, Callback<T> callback) {
+        if (timeoutMs > 0) {
+            call.timeout().timeout(timeoutMs, TimeUnit.MILLISECONDS);
+        }
+        
+        calls.add(call);
+        if (cancelled) {
+            // Cancelled while the caller was building the call
+            calls.remove(call);
+            call.cancel();
+            return;
+        }
+        
+        call.enqueue(new Callback<T>() {
+            @Override
+            public void onResponse(Call<T> call, Response<T> response) {
+                calls.remove(call);
+                if (!cancelled) {
+                    callback.onResponse(call, response);
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<T> call, Throwable t) {
+                calls.remove(call);
+                if (!cancelled) {
+                    callback.onFailure(call, t);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Track a synchronous call so cancel() can interrupt it
+     */
+    public void track(Call<?> call) {
+        calls.add(call);
+        if (cancelled) {
+            call.cancel();
+        }
+    }
+    
+    /**
+     * Stop tracking a call that has completed
+     */
+    public void release(Call<?> call) {
+        calls.remove(call);
+    }
+    
+    /**
+     * Track a pager so cancel() stops it
+     */
+    public void track(TwinSearchPager pager) {
+        pagers.add(pager);
+        if (cancelled) {
+            pager.cancel();
+        }
+    }
+    
+    /**
+     * Stop tracking a pager that has finished
+     */
+    public void release(TwinSearchPager pager) {
+        pagers.remove(pager);
+    }
+    
+    /**
+     * Track a future so cancel() cancels it; it is forgotten once it completes
+     *
+     * @return the same future, for chaining
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        futures.add(future);
+        future.whenComplete((result, error) -> futures.remove(future));
+        if (cancelled) {
+            future.cancel(false);
+        }
+        return future;
+    }
+    
+    /**
+     * Create a scope that is cancelled along with this one but can also be
+     * cancelled on its own, e.g. for one branch of a hedged fetch
+     */
+    public CallScope newChild() {
+        CallScope child = new CallScope();
+        children.add(child);
+        if (cancelled) {
+            children.remove(child);
+            child.cancel();
+        }
+        return child;
+    }
+    
+    /**
+     * Stop tracking a child scope that has finished
+     */
+    public void release(CallScope child) {
+        children.remove(child);
+    }
+    
+    /**
+     * Run an action when the scope is cancelled, or straight away if it already
+     * is. Callbacks of cancelled calls are dropped, so this is how work waiting
+     * on them learns it will not get a result.
+     */
+    public void addCancelListener(Runnable listener) {
+        cancelListeners.add(listener);
+        if (cancelled && cancelListeners.remove(listener)) {
+            listener.run();
+        }
+    }
+    
+    /**
+     * Stop listening once the work the listener guards has finished
+     */
+    public void removeCancelListener(Runnable listener) {
+        cancelListeners.remove(listener);
+    }
+    
+    /**
+     * Cancel every call, pager, future and child scope in the scope; anything added later is cancelled straight away
+     */
+    public void cancel() {
+        cancelled = true;
+        
+        List<Call<?>> pendingCalls = new ArrayList<>(calls);
+        List<TwinSearchPager> pendingPagers = new ArrayList<>(pagers);
+        List<CallScope> pendingChildren = new ArrayList<>(children);
+        List<CompletableFuture<?>> pendingFutures = new ArrayList<>(futures);
+        calls.clear();
+        pagers.clear();
+        children.clear();
+        futures.clear();
+        
+        for (Call<?> call : pendingCalls) {
+            call.cancel();
+        }
+        for (TwinSearchPager pager : pendingPagers) {
+            pager.cancel();
+        }
+        for (CallScope child : pendingChildren) {
+            child.cancel();
+        }
+        for (CompletableFuture<?> future : pendingFutures) {
+            future.cancel(false);
+        }
+        for (Runnable listener : new ArrayList<>(cancelListeners)) {
+            // Removing first makes sure a listener runs once, even if cancel() races
+            if (cancelListeners.remove(listener)) {
+                listener.run();
+            }
+        }
+        
+        if (!pendingCalls.isEmpty() || !pendingPagers.isEmpty()) {
+            Log.d(TAG, "Cancelled " + pendingCalls.size() + " calls and " + pendingPagers.size() + " pagers");
+        }
+    }
+    
+    public boolean isCancelled() {
+        return cancelled;
+    }
+}
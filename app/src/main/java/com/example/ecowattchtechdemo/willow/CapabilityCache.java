@@ -0,0 +1,129 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-building cache of resolved capability twin IDs, persisted to
+ * SharedPreferences so the discovery chain only runs after a miss
+ */
+public class CapabilityCache {
+    
+    private static final String TAG = "CapabilityCache";
+    private static final String PREFS_NAME = "willow_capability_cache";
+    
+    // Capability wiring changes rarely, so resolutions stay valid for hours
+    public static final long DEFAULT_TTL_MS = 6 * 60 * 60 * 1000L;
+    
+    private final SharedPreferences prefs;
+    private final long ttlMs;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    /**
+     * @param context application context, or null for an in-memory cache
+     */
+    public CapabilityCache(Context context) {
+        this(context, DEFAULT_TTL_MS);
+    }
+    
+    public CapabilityCache(Context context, long ttlMs) {
+        this.prefs = context != null
+            ? context.getApplicationContext().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE)
+            : null;
+        this.ttlMs = ttlMs;
+        load();
+    }
+    
+    /**
+     * Cached capability entry for one building twin
+     */
+    public static class Entry {
+        private List<String> capabilityIds;
+        private long resolvedAt;
+        
+        public Entry() {}
+        
+        public Entry(List<String> capabilityIds, long resolvedAt) {
+            this.capabilityIds = capabilityIds;
+            this.resolvedAt = resolvedAt;
+        }
+        
+        public List<String> getCapabilityIds() {
+            return capabilityIds;
+        }
+        
+        public long getResolvedAt() {
+            return resolvedAt;
+        }
+    }
+    
+    /**
+     * Get capability IDs for a building, or null if missing or expired
+     */
+    public List<String> get(String buildingId) {
+        Entry entry = entries.get(buildingId);
+        if (entry == null || entry.capabilityIds == null || entry.capabilityIds.isEmpty()) {
+            return null;
+        }
+        
+        if (System.currentTimeMillis() - entry.resolvedAt > ttlMs) {
+            Log.d(TAG, "Capability cache expired for " + buildingId);
+            invalidate(buildingId);
+            return null;
+        }
+        return entry.capabilityIds;
+    }
+    
+    /**
+     * Store resolved capability IDs for a building
+     */
+    public void put(String buildingId, List<String> capabilityIds) {
+        if (buildingId == null || capabilityIds == null || capabilityIds.isEmpty()) return;
+        
+        Entry entry = new Entry(new ArrayList<>(capabilityIds), System.currentTimeMillis());
+        entries.put(buildingId, entry);
+        if (prefs != null) {
+            prefs.edit().putString(buildingId, HttpClientProvider.getGson().toJson(entry)).apply();
+        }
+        Log.d(TAG, "Cached " + capabilityIds.size() + " capabilities for " + buildingId);
+    }
+    
+    /**
+     * Drop the cached resolution for a building
+     */
+    public void invalidate(String buildingId) {
+        if (buildingId == null) return;
+        
+        entries.remove(buildingId);
+        if (prefs != null) {
+            prefs.edit().remove(buildingId).apply();
+        }
+    }
+    
+    /**
+     * Load persisted entries from app storage
+     */
+    private void load() {
+        if (prefs == null) return;
+        
+        for (Map.Entry<String, ?> stored : prefs.getAll().entrySet()) {
+            if (!(stored.getValue() instanceof String)) continue;
+            try {
+                Entry entry = HttpClientProvider.getGson().fromJson((String) stored.getValue(), Entry.class);
+                if (entry != null) {
+                    entries.put(stored.getKey(), entry);
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Dropping unreadable cache entry for " + stored.getKey(), e);
+                prefs.edit().remove(stored.getKey()).apply();
+            }
+        }
+        Log.d(TAG, "Loaded " + entries.size() + " cached capability resolutions");
+    }
+}
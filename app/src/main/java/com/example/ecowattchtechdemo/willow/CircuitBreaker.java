@@ -0,0 +1,108 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+
+/**
+ * Half-open circuit breaker for a single Willow endpoint. After repeated
+ * failures the endpoint is skipped for a cool-down period, then a single
+ * trial request decides whether to close the circuit again.
+ */
+public class CircuitBreaker {
+    
+    private static final String TAG = "CircuitBreaker";
+    
+    public static final int DEFAULT_FAILURE_THRESHOLD = 3;
+    public static final long DEFAULT_OPEN_DURATION_MS = 30_000;
+    public static final long MAX_OPEN_DURATION_MS = 10 * 60_000;
+    
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+    
+    private final String name;
+    private final int failureThreshold;
+    private final long baseOpenDurationMs;
+    
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private long openDurationMs;
+    private long openedAt;
+    private long trialStartedAt;
+    
+    public CircuitBreaker(String name) {
+        this(name, DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION_MS);
+    }
+    
+    public CircuitBreaker(String name, int failureThreshold, long openDurationMs) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.baseOpenDurationMs = openDurationMs;
+        this.openDurationMs = openDurationMs;
+    }
+    
+    /**
+     * Check whether a request may be sent now. In the half-open state only
+     * one trial request is let through at a time.
+     */
+    public synchronized boolean allowRequest() {
+        long now = System.currentTimeMillis();
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (now - openedAt < openDurationMs) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialStartedAt = now;
+                Log.d(TAG, name + " half-open, sending trial request");
+                return true;
+            case HALF_OPEN:
+            default:
+                // Let another trial through if the previous one never reported back
+                if (now - trialStartedAt >= openDurationMs) {
+                    trialStartedAt = now;
+                    return true;
+                }
+                return false;
+        }
+    }
+    
+    /**
+     * Record a request that reached a healthy endpoint
+     */
+    public synchronized void recordSuccess() {
+        if (state != State.CLOSED) {
+            Log.d(TAG, name + " closed after successful trial");
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openDurationMs = baseOpenDurationMs;
+    }
+    
+    /**
+     * Record a server error or network failure
+     */
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN) {
+            // Trial failed, back off for longer before the next one
+            openDurationMs = Math.min(openDurationMs * 2, MAX_OPEN_DURATION_MS);
+            open();
+        } else if (state == State.CLOSED && consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+    
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        Log.w(TAG, name + " opened after " + consecutiveFailures + " failures, retry in " + (openDurationMs / 1000) + "s");
+    }
+    
+    public synchronized State getState() {
+        return state;
+    }
+    
+    public String getName() {
+        return name;
+    }
+}
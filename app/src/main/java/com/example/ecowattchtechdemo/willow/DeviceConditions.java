@@ -0,0 +1,55 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.net.NetworkCapabilities;
+import android.os.BatteryManager;
+import android.os.PowerManager;
+
+/**
+ * Reads connectivity and battery state for PollingScheduler
+ */
+public class DeviceConditions implements PollingScheduler.Conditions {
+    
+    // Below this charge, and not charging, polling slows down
+    private static final int LOW_BATTERY_PERCENT = 20;
+    
+    private final Context context;
+    
+    public DeviceConditions(Context context) {
+        this.context = context.getApplicationContext();
+    }
+    
+    @Override
+    public boolean isOnline() {
+        ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+        if (connectivity == null) return true;
+        
+        Network network = connectivity.getActiveNetwork();
+        if (network == null) return false;
+        
+        NetworkCapabilities capabilities = connectivity.getNetworkCapabilities(network);
+        return capabilities != null && capabilities.hasCapability(NetworkCapabilities.NET_CAPABILITY_INTERNET);
+    }
+    
+    @Override
+    public boolean isLowPower() {
+        PowerManager power = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        if (power != null && power.isPowerSaveMode()) return true;
+        
+        // Sticky broadcast, no receiver is registered
+        Intent battery = context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+        if (battery == null) return false;
+        
+        int status = battery.getIntExtra(BatteryManager.EXTRA_STATUS, -1);
+        boolean charging = status == BatteryManager.BATTERY_STATUS_CHARGING || status == BatteryManager.BATTERY_STATUS_FULL;
+        int level = battery.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = battery.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        if (charging || level < 0 || scale <= 0) return false;
+        
+        return level * 100 / scale < LOW_BATTERY_PERCENT;
+    }
+}
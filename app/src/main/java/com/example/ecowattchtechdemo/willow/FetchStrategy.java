@@ -0,0 +1,39 @@
+package com.example.ecowattchtechdemo.willow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ways WillowEnergyDataManager can locate live energy readings for a building,
+ * in the order they are tried when nothing is known about the building yet
+ */
+public enum FetchStrategy {
+    
+    // time-series/{buildingId}/latest
+    DIRECT_TIME_SERIES,
+    
+    // twins search for EnergyConsumption capabilities, then time-series/ids/latest
+    ENERGY_CAPABILITY_SEARCH,
+    
+    // twins search for PowerConsumption capabilities, then time-series/ids/latest
+    POWER_CAPABILITY_SEARCH,
+    
+    // time-series/ids/latest with the building twin ID itself
+    DIRECT_BUILDING;
+    
+    /**
+     * Get the order to try strategies in, starting with the preferred one if known
+     */
+    public static List<FetchStrategy> planFor(FetchStrategy preferred) {
+        List<FetchStrategy> plan = new ArrayList<>();
+        if (preferred != null) {
+            plan.add(preferred);
+        }
+        for (FetchStrategy strategy : values()) {
+            if (strategy != preferred) {
+                plan.add(strategy);
+            }
+        }
+        return plan;
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ecowattchtechdemo.willow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks callbacks waiting on an in-flight request per key, so identical
+ * concurrent requests run once and share the result
+ */
+public class InFlightRequests<C> {
+    
+    private final Map<String, List<C>> waiting = new HashMap<>();
+    
+    /**
+     * Register a callback for a key
+     *
+     * @return true if the caller should start the request, false if it joined one already running
+     */
+    public synchronized boolean join(String key, C callback) {
+        List<C> callbacks = waiting.get(key);
+        if (callbacks != null) {
+            callbacks.add(callback);
+            return false;
+        }
+        
+        callbacks = new ArrayList<>();
+        callbacks.add(callback);
+        waiting.put(key, callbacks);
+        return true;
+    }
+    
+    /**
+     * End the request for a key and get every callback that was waiting on it
+     */
+    public synchronized List<C> complete(String key) {
+        List<C> callbacks = waiting.remove(key);
+        return callbacks != null ? callbacks : Collections.<C>emptyList();
+    }
+    
+    /**
+     * Withdraw a callback that no longer wants the result
+     *
+     * @return true if it was the last one waiting, so the request can be abandoned
+     */
+    public synchronized boolean leave(String key, C callback) {
+        List<C> callbacks = waiting.get(key);
+        if (callbacks == null || !callbacks.remove(callback)) return false;
+        
+        if (callbacks.isEmpty()) {
+            waiting.remove(key);
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Forget every in-flight request without notifying its callbacks
+     */
+    public synchronized void clear() {
+        waiting.clear();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides how long to wait before the next live-data poll. Meters only
+ * report every few minutes, so polling at a fixed 10 s mostly re-downloads
+ * the same readings. The cadence adapts to:
+ * - how often sourceTimestamps actually change (backs off while they don't,
+ *   and aims just after the next expected report once the period is known)
+ * - user refreshes, which start a short burst of fast polls
+ * - connectivity, battery saver and low battery, via Conditions
+ * - foreground state; nothing is polled while the screen is not visible
+ */
+public class PollingScheduler {
+    
+    private static final String TAG = "PollingScheduler";
+    
+    public static final long DEFAULT_BASELINE_INTERVAL_MS = 10_000;
+    public static final long MIN_INTERVAL_MS = 5_000;
+    public static final long MAX_INTERVAL_MS = 5 * 60_000;
+    public static final long OFFLINE_INTERVAL_MS = 60_000;
+    public static final long BURST_WINDOW_MS = 30_000;
+    
+    // Poll this long after a report is expected, to allow for ingestion delay
+    private static final long REPORT_SLACK_MS = 5_000;
+    private static final double BACKOFF_FACTOR = 1.5;
+    private static final double LOW_POWER_FACTOR = 2.0;
+    
+    /**
+     * Device state the cadence depends on
+     */
+    public interface Conditions {
+        boolean isOnline();
+        boolean isLowPower();
+    }
+    
+    private final Conditions conditions;
+    private final long baselineIntervalMs;
+    private final long createdAt = System.currentTimeMillis();
+    
+    private Set<String> lastTimestamps = new HashSet<>();
+    private long lastChangeAt = 0;
+    private long reportPeriodMs = 0; // smoothed time between observed changes, 0 until known
+    private int unchangedPolls = 0;
+    private long burstUntil = 0;
+    private boolean foreground = true;
+    private long pollCount = 0;
+    private long foregroundSince = createdAt;
+    private long foregroundTotalMs = 0;
+    
+    public PollingScheduler(Conditions conditions) {
+        this(conditions, DEFAULT_BASELINE_INTERVAL_MS);
+    }
+    
+    /**
+     * @param baselineIntervalMs fixed interval this scheduler replaces, used for backoff and savings
+     */
+    public PollingScheduler(Conditions conditions, long baselineIntervalMs) {
+        this.conditions = conditions;
+        this.baselineIntervalMs = baselineIntervalMs;
+    }
+    
+    /**
+     * Get the delay before the next poll and count it as scheduled
+     */
+    public synchronized long nextDelayMs() {
+        pollCount++;
+        long now = System.currentTimeMillis();
+        
+        if (!conditions.isOnline()) {
+            return OFFLINE_INTERVAL_MS;
+        }
+        if (now < burstUntil) {
+            return MIN_INTERVAL_MS;
+        }
+        
+        long delay = (long) (baselineIntervalMs * Math.pow(BACKOFF_FACTOR, Math.min(unchangedPolls, 20)));
+        if (reportPeriodMs > 0) {
+            long untilNextReport = lastChangeAt + reportPeriodMs + REPORT_SLACK_MS - now;
+            // Only trust the estimate while the next report is still ahead
+            if (untilNextReport > 0) {
+                delay = untilNextReport;
+            }
+        }
+        if (conditions.isLowPower()) {
+            delay = (long) (delay * LOW_POWER_FACTOR);
+        }
+        
+        return Math.max(MIN_INTERVAL_MS, Math.min(MAX_INTERVAL_MS, delay));
+    }
+    
+    /**
+     * Record the source timestamps returned by a poll (real readings only)
+     */
+    public synchronized void onPollCompleted(Collection<String> sourceTimestamps) {
+        Set<String> timestamps = new HashSet<>(sourceTimestamps);
+        if (timestamps.isEmpty()) return;
+        
+        if (timestamps.equals(lastTimestamps)) {
+            unchangedPolls++;
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        if (lastChangeAt > 0) {
+            long observed = now - lastChangeAt;
+            reportPeriodMs = reportPeriodMs == 0 ? observed : (reportPeriodMs * 3 + observed) / 4;
+            Log.d(TAG, "Readings changed after " + (observed / 1000) + "s, estimated report period " + (reportPeriodMs / 1000) + "s");
+        }
+        lastChangeAt = now;
+        lastTimestamps = timestamps;
+        unchangedPolls = 0;
+    }
+    
+    /**
+     * Start a burst of fast polls after the user asked for fresh data
+     */
+    public synchronized void onUserRefresh() {
+        burstUntil = System.currentTimeMillis() + BURST_WINDOW_MS;
+    }
+    
+    /**
+     * Track whether the dashboard is visible; callers stop polling while it is not
+     */
+    public synchronized void setForeground(boolean foreground) {
+        if (this.foreground == foreground) return;
+        
+        long now = System.currentTimeMillis();
+        if (foreground) {
+            foregroundSince = now;
+        } else {
+            foregroundTotalMs += now - foregroundSince;
+        }
+        this.foreground = foreground;
+    }
+    
+    public synchronized boolean isForeground() {
+        return foreground;
+    }
+    
+    /**
+     * Get polls avoided per hour compared with polling at the baseline interval the whole time
+     */
+    public synchronized double getRequestsSavedPerHour() {
+        long elapsedMs = System.currentTimeMillis() - createdAt;
+        if (elapsedMs <= 0) return 0;
+        
+        double baselinePolls = (double) elapsedMs / baselineIntervalMs;
+        return (baselinePolls - pollCount) * 3_600_000.0 / elapsedMs;
+    }
+    
+    /**
+     * One-line summary for logging
+     */
+    public synchronized String summary() {
+        long visibleMs = foregroundTotalMs + (foreground ? System.currentTimeMillis() - foregroundSince : 0);
+        return "PollingScheduler{" +
+                "polls=" + pollCount +
+                ", unchangedStreak=" + unchangedPolls +
+                ", reportPeriod=" + (reportPeriodMs / 1000) + "s" +
+                ", visible=" + (visibleMs / 1000) + "s" +
+                ", savedPerHour=" + Math.round(getRequestsSavedPerHour()) +
+                '}';
+    }
+}
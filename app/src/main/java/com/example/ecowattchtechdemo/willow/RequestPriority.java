@@ -0,0 +1,14 @@
+package com.example.ecowattchtechdemo.willow;
+
+/**
+ * Lane a Willow request is sent in. User-initiated refreshes get their own
+ * dispatcher and may use the rate limiter's reserved permits.
+ */
+public enum RequestPriority {
+    
+    // Refresh button, tapping the usage text, test screen buttons
+    USER,
+    
+    // Scheduled dashboard ticks and prefetching
+    BACKGROUND
+}
@@ -0,0 +1,47 @@
+package com.example.ecowattchtechdemo.willow;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Network interceptor that makes twin metadata responses cacheable. Willow
+ * does not send Cache-Control on GET twins/{id}, so without this the HTTP
+ * cache would never store them. Once stored, OkHttp serves them locally for
+ * max-age and afterwards revalidates with the ETag / Last-Modified validators.
+ */
+public class TwinCacheControlInterceptor implements Interceptor {
+    
+    private final int maxAgeSeconds;
+    
+    public TwinCacheControlInterceptor(int maxAgeSeconds) {
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+    
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        Response response = chain.proceed(request);
+        
+        if (!isTwinMetadataRequest(request) || response.header("Cache-Control") != null) {
+            return response;
+        }
+        
+        // private: the response was fetched with this user's bearer token
+        return response.newBuilder()
+                .removeHeader("Pragma")
+                .header("Cache-Control", "private, max-age=" + maxAgeSeconds)
+                .build();
+    }
+    
+    private boolean isTwinMetadataRequest(Request request) {
+        if (!"GET".equals(request.method())) return false;
+        
+        // .../twins/{id}, but not the search or ids endpoints
+        List<String> segments = request.url().pathSegments();
+        int size = segments.size();
+        return size >= 2 && "twins".equals(segments.get(size - 2)) && !"ids".equals(segments.get(size - 1));
+    }
+}
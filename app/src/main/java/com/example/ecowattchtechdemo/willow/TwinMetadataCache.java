@@ -0,0 +1,82 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.DigitalTwin;
+import com.example.ecowattchtechdemo.willow.timeseries.Timestamps;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory cache of building twin metadata keyed on DigitalTwin.lastUpdateTime.
+ * Fresh entries are used without any request; stale ones are refetched (usually
+ * a cheap 304 from the HTTP cache) and only treated as changed when Willow
+ * reports a new lastUpdateTime.
+ */
+public class TwinMetadataCache {
+    
+    private static final String TAG = "TwinMetadataCache";
+    
+    private final long ttlMs;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    
+    private static class Entry {
+        final DigitalTwin twin;
+        final long fetchedAt;
+        
+        Entry(DigitalTwin twin, long fetchedAt) {
+            this.twin = twin;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+    
+    public TwinMetadataCache(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+    
+    /**
+     * Get a twin fetched within the TTL, or null if it needs revalidating
+     */
+    public DigitalTwin getFresh(String twinId) {
+        Entry entry = entries.get(twinId);
+        if (entry == null || System.currentTimeMillis() - entry.fetchedAt > ttlMs) {
+            return null;
+        }
+        return entry.twin;
+    }
+    
+    /**
+     * Store a freshly fetched twin
+     *
+     * @return true if the twin was already cached and its lastUpdateTime changed
+     */
+    public boolean update(DigitalTwin twin) {
+        if (twin == null || twin.getId() == null) return false;
+        
+        Entry previous = entries.get(twin.getId());
+        boolean changed = previous != null && !sameVersion(previous.twin, twin);
+        
+        // Keep the previous instance when unchanged so callers holding it stay valid
+        DigitalTwin stored = previous != null && !changed ? previous.twin : twin;
+        entries.put(twin.getId(), new Entry(stored, System.currentTimeMillis()));
+        
+        if (changed) {
+            Log.d(TAG, "Twin " + twin.getId() + " changed at " + Timestamps.format(twin.getLastUpdateTime()));
+        }
+        return changed;
+    }
+    
+    /**
+     * Drop the cached twin
+     */
+    public void invalidate(String twinId) {
+        if (twinId != null) {
+            entries.remove(twinId);
+        }
+    }
+    
+    private static boolean sameVersion(DigitalTwin cached, DigitalTwin fetched) {
+        long cachedVersion = cached.getLastUpdateTime();
+        // Without a version stamp there is nothing to compare, assume it changed
+        return cachedVersion != Timestamps.INVALID && cachedVersion == fetched.getLastUpdateTime();
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.*;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Asynchronous pager over WillowApiService.searchTwins that follows
+ * continuation tokens. The next page is requested as soon as the current
+ * one arrives, while the current one is handed to the listener on a
+ * background thread; at most maxInFlightPages pages are fetched but not yet
+ * processed at any time. Page calls run in the caller's CallScope and share
+ * one deadline: once it has passed no further page is requested and the
+ * search ends in onError with the pages received so far.
+ */
+public class TwinSearchPager {
+    
+    private static final String TAG = "TwinSearchPager";
+    
+    public static final int DEFAULT_MAX_IN_FLIGHT_PAGES = 2;
+    
+    // Pages are processed one at a time, in order, off the callback thread
+    private static final ExecutorService pageExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "willow-twin-pages");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Receives pages in order; all methods run on the page processing thread
+     */
+    public interface PageListener {
+        void onPage(List<DigitalTwin> twins, int pageIndex);
+        void onComplete(int pageCount);
+        void onError(String error, int pagesReceived);
+    }
+    
+    private final WillowApiService apiService;
+    private final WillowTokenManager tokenManager;
+    private final Map<String, Object> searchRequest;
+    private final int pageSize;
+    private final int maxInFlightPages;
+    private final int maxPages;
+    private final CircuitBreaker circuitBreaker;
+    private final CallScope scope;
+    private final long deadlineAt;
+    
+    private PageListener listener;
+    private String continuationToken;
+    private Call<TwinsResponse> currentCall;
+    private int pagesFetched = 0;
+    private int bufferedPages = 0;
+    private boolean fetching = false;
+    private boolean finished = false;
+    private boolean failed = false;
+    private boolean cancelled = false;
+    
+    /**
+     * @param searchRequest search body without paging fields; it is copied, not modified
+     * @param circuitBreaker optional breaker fed with every page response
+     * @param scope scope the page calls are enqueued in
+     * @param deadlineAt epoch millis by which the whole search must be done, or 0 for no limit
+     */
+    public TwinSearchPager(WillowApiService apiService, WillowTokenManager tokenManager,
+                           Map<String, Object> searchRequest, int pageSize, int maxInFlightPages,
+                           int maxPages, CircuitBreaker circuitBreaker, CallScope scope, long deadlineAt) {
+        this.apiService = apiService;
+        this.tokenManager = tokenManager;
+        this.searchRequest = new HashMap<>(searchRequest);
+        this.pageSize = pageSize;
+        this.maxInFlightPages = Math.max(1, maxInFlightPages);
+        this.maxPages = maxPages;
+        this.circuitBreaker = circuitBreaker;
+        this.scope = scope;
+        this.deadlineAt = deadlineAt;
+    }
+    
+    /**
+     * Start paging; results are delivered to the listener
+     */
+    public void start(PageListener listener) {
+        synchronized (this) {
+            if (this.listener != null) {
+                throw new IllegalStateException("Pager already started");
+            }
+            this.listener = listener;
+        }
+        fetchNextPage();
+    }
+    
+    /**
+     * Stop paging; no further listener calls are made
+     */
+    public void cancel() {
+        Call<TwinsResponse> call;
+        synchronized (this) {
+            cancelled = true;
+            call = currentCall;
+        }
+        if (call != null) {
+            call.cancel();
+        }
+    }
+    
+    private void fetchNextPage() {
+        Call<TwinsResponse> call;
+        long remainingMs = deadlineAt > 0 ? deadlineAt - System.currentTimeMillis() : 0;
+        synchronized (this) {
+            if (cancelled || finished || fetching || bufferedPages + 1 > maxInFlightPages) {
+                return;
+            }
+            fetching = true;
+            
+            if (deadlineAt > 0 && remainingMs <= 0) {
+                call = null;
+            } else {
+                Map<String, Object> pageRequest = new HashMap<>(searchRequest);
+                pageRequest.put("pageSize", pageSize);
+                if (continuationToken != null) {
+                    pageRequest.put("continuationToken", continuationToken);
+                }
+                call = apiService.searchTwins(tokenManager.getAuthorizationHeader(), pageRequest);
+                currentCall = call;
+            }
+        }
+        if (call == null) {
+            // Out of time: end with the pages already received rather than start another
+            onFetchFailed("Twin search deadline exceeded");
+            return;
+        }
+        
+        scope.enqueue(call, remainingMs, new Callback<TwinsResponse>() {
+            @Override
+            public void onResponse(Call<TwinsResponse> call, Response<TwinsResponse> response) {
+                if (circuitBreaker != null) {
+                    if (response.code() >= 500 || response.code() == 429) {
+                        circuitBreaker.recordFailure();
+                    } else {
+                        circuitBreaker.recordSuccess();
+                    }
+                }
+                
+                if (response.isSuccessful() && response.body() != null) {
+                    onPageReceived(response.body());
+                } else {
+                    onFetchFailed("Twin search page failed: " + response.code());
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<TwinsResponse> call, Throwable t) {
+                if (circuitBreaker != null && !call.isCanceled()) {
+                    circuitBreaker.recordFailure();
+                }
+                onFetchFailed("Twin search network error: " + t.getMessage());
+            }
+        });
+    }
+    
+    private void onPageReceived(TwinsResponse page) {
+        final int pageIndex;
+        final List<DigitalTwin> twins = page.getContent() != null
+            ? page.getContent() : Collections.<DigitalTwin>emptyList();
+        
+        synchronized (this) {
+            fetching = false;
+            currentCall = null;
+            if (cancelled) return;
+            
+            pageIndex = pagesFetched++;
+            bufferedPages++;
+            continuationToken = page.getContinuationToken();
+            if (continuationToken == null || continuationToken.isEmpty() || pagesFetched >= maxPages) {
+                finished = true;
+                if (continuationToken != null && pagesFetched >= maxPages) {
+                    Log.w(TAG, "Stopping after " + maxPages + " pages");
+                }
+            }
+        }
+        
+        // Prefetch the next page while this one is processed
+        fetchNextPage();
+        
+        pageExecutor.execute(() -> {
+            if (isCancelled()) return;
+            listener.onPage(twins, pageIndex);
+            
+            boolean complete;
+            synchronized (this) {
+                bufferedPages--;
+                complete = finished && !failed && bufferedPages == 0 && !fetching;
+            }
+            
+            if (complete) {
+                Log.d(TAG, "Twin search complete after " + pagesFetched + " pages");
+                listener.onComplete(pagesFetched);
+            } else {
+                fetchNextPage();
+            }
+        });
+    }
+    
+    private void onFetchFailed(String error) {
+        final int pagesReceived;
+        synchronized (this) {
+            fetching = false;
+            finished = true;
+            failed = true;
+            currentCall = null;
+            if (cancelled) return;
+            pagesReceived = pagesFetched;
+        }
+        
+        Log.w(TAG, error);
+        // Queued behind any pages still waiting to be processed
+        pageExecutor.execute(() -> {
+            if (!isCancelled()) {
+                listener.onError(error, pagesReceived);
+            }
+        });
+    }
+    
+    private synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.ecowattchtechdemo.willow;
 
 import android.util.Log;
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
+import com.example.ecowattchtechdemo.network.RateLimitInterceptor;
+import com.example.ecowattchtechdemo.network.RateLimiter;
+import com.example.ecowattchtechdemo.network.RetryBudget;
+import com.example.ecowattchtechdemo.network.RetryInterceptor;
+import com.example.ecowattchtechdemo.network.RetryPolicy;
 import com.example.ecowattchtechdemo.willow.models.*;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
 import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
-import okhttp3.OkHttpClient;
-import okhttp3.logging.HttpLoggingInterceptor;
-import java.util.concurrent.TimeUnit;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Client factory for Willow API
@@ -14,64 +22,152 @@ import java.util.concurrent.TimeUnit;
 public class WillowApiClient {
     
     private static final String TAG = "WillowApiClient";
-    private static WillowApiService apiService;
+    private static final Map<String, WillowApiService> apiServices = new ConcurrentHashMap<>();
     private static String baseUrl = WillowApiV3Config.DEFAULT_BASE_URL;
     
+    private static final RetryPolicy retryPolicy = new RetryPolicy(
+        WillowApiV3Config.RETRY_MAX_ATTEMPTS,
+        WillowApiV3Config.RETRY_BASE_DELAY_MS,
+        WillowApiV3Config.RETRY_MAX_DELAY_MS,
+        WillowApiV3Config.RETRY_AFTER_MAX_MS
+    );
+    
+    // One budget for every manager, so retries stay bounded across the whole app
+    private static final RetryBudget retryBudget = new RetryBudget(
+        WillowApiV3Config.RETRY_BUDGET_RATIO, WillowApiV3Config.RETRY_BUDGET_MAX_TOKENS
+    );
+    
+    // Endpoint names used for rate limit quotas
+    static final String QUOTA_SEARCH = "search";
+    static final String QUOTA_TWIN = "twin";
+    static final String QUOTA_TIME_SERIES = "time-series";
+    
+    // Shared by every manager and screen, so tenant quotas hold however many are open
+    private static final RateLimiter rateLimiter = createRateLimiter();
+    
     /**
      * Get Willow API service instance
      */
     public static WillowApiService getApiService() {
-        if (apiService == null) {
-            apiService = createApiService(baseUrl);
-        }
-        return apiService;
+        return getApiService(baseUrl);
     }
     
     /**
      * Get API service with custom base URL
      */
     public static WillowApiService getApiService(String customBaseUrl) {
-        return createApiService(customBaseUrl);
+        WillowApiService service = apiServices.get(customBaseUrl);
+        if (service == null) {
+            service = createApiService(customBaseUrl);
+            WillowApiService existing = apiServices.putIfAbsent(customBaseUrl, service);
+            if (existing != null) {
+                service = existing;
+            }
+        }
+        return service;
     }
     
     /**
-     * Update base URL and recreate service
+     * Update base URL used by the default service
      */
     public static void setBaseUrl(String newBaseUrl) {
         baseUrl = newBaseUrl;
-        apiService = null; // Force recreation on next call
+    }
+    
+    /**
+     * Create API service whose calls are kept authenticated by the token manager
+     */
+    public static WillowApiService createAuthenticatedApiService(String customBaseUrl, WillowTokenManager tokenManager) {
+        return createAuthenticatedApiService(customBaseUrl, tokenManager, RequestPriority.BACKGROUND);
+    }
+    
+    /**
+     * Create an authenticated API service for one priority lane
+     */
+    public static WillowApiService createAuthenticatedApiService(String customBaseUrl, WillowTokenManager tokenManager,
+                                                                 RequestPriority priority) {
+        boolean userInitiated = priority == RequestPriority.USER;
+        WillowAuthInterceptor authInterceptor = new WillowAuthInterceptor(tokenManager);
+        RetryInterceptor retryInterceptor = new RetryInterceptor(
+            retryPolicy, retryBudget, WillowApiClient::isIdempotent, HttpClientProvider.getMetrics()
+        );
+        RateLimitInterceptor rateLimitInterceptor = new RateLimitInterceptor(
+            rateLimiter, WillowApiClient::quotaFor, userInitiated, WillowApiV3Config.RATE_LIMIT_MAX_WAIT_MS
+        );
+        
+        // newBuilder() keeps the shared connection pool; only the user lane gets its own dispatcher
+        OkHttpClient.Builder builder = HttpClientProvider.getHttpClient().newBuilder()
+                .addInterceptor(authInterceptor)
+                .addInterceptor(retryInterceptor)
+                .addInterceptor(rateLimitInterceptor)
+                .authenticator(authInterceptor)
+                .addNetworkInterceptor(new TwinCacheControlInterceptor(WillowApiV3Config.TWIN_METADATA_MAX_AGE_SECONDS));
+        if (userInitiated) {
+            builder.dispatcher(HttpClientProvider.getPriorityDispatcher());
+        }
+        
+        return createApiService(customBaseUrl, builder.build());
+    }
+    
+    /**
+     * Check whether a Willow request can safely be sent again. All GETs are, and
+     * so are the POST endpoints that only run read queries (twin search and
+     * time-series lookups). The token endpoint is never retried here.
+     */
+    static boolean isIdempotent(Request request) {
+        if ("GET".equals(request.method())) return true;
+        if (!"POST".equals(request.method())) return false;
+        
+        String path = request.url().encodedPath();
+        return path.endsWith("/twins")
+            || path.endsWith("/twins/ids")
+            || path.endsWith("/time-series/ids")
+            || path.endsWith("/time-series/ids/latest");
+    }
+    
+    /**
+     * Get the rate limit quota a Willow request counts against
+     */
+    static String quotaFor(Request request) {
+        String path = request.url().encodedPath();
+        if ("POST".equals(request.method()) && path.endsWith("/twins")) return QUOTA_SEARCH;
+        if (path.contains("/time-series")) return QUOTA_TIME_SERIES;
+        return QUOTA_TWIN;
+    }
+    
+    private static RateLimiter createRateLimiter() {
+        Map<String, RateLimiter.Quota> quotas = new HashMap<>();
+        quotas.put(QUOTA_SEARCH, new RateLimiter.Quota(
+            WillowApiV3Config.RATE_LIMIT_SEARCH_PER_SECOND, WillowApiV3Config.RATE_LIMIT_SEARCH_BURST));
+        quotas.put(QUOTA_TWIN, new RateLimiter.Quota(
+            WillowApiV3Config.RATE_LIMIT_TWIN_PER_SECOND, WillowApiV3Config.RATE_LIMIT_TWIN_BURST));
+        quotas.put(QUOTA_TIME_SERIES, new RateLimiter.Quota(
+            WillowApiV3Config.RATE_LIMIT_TIME_SERIES_PER_SECOND, WillowApiV3Config.RATE_LIMIT_TIME_SERIES_BURST));
+        
+        RateLimiter.Quota global = new RateLimiter.Quota(
+            WillowApiV3Config.RATE_LIMIT_GLOBAL_PER_SECOND, WillowApiV3Config.RATE_LIMIT_GLOBAL_BURST);
+        return new RateLimiter(global, quotas, global, WillowApiV3Config.RATE_LIMIT_PRIORITY_RESERVE);
     }
     
     /**
      * Create API service instance
      */
     private static WillowApiService createApiService(String baseUrlParam) {
+        return createApiService(baseUrlParam, HttpClientProvider.getHttpClient());
+    }
+    
+    private static WillowApiService createApiService(String baseUrlParam, OkHttpClient httpClient) {
         try {
-            // Create HTTP client with logging
-            OkHttpClient.Builder httpClientBuilder = new OkHttpClient.Builder()
-                    .connectTimeout(WillowApiV3Config.CONNECTION_TIMEOUT, TimeUnit.MILLISECONDS)
-                    .readTimeout(WillowApiV3Config.READ_TIMEOUT, TimeUnit.MILLISECONDS)
-                    .writeTimeout(WillowApiV3Config.WRITE_TIMEOUT, TimeUnit.MILLISECONDS);
-            
-            // Add logging interceptor for debugging
-            if (Log.isLoggable(TAG, Log.DEBUG)) {
-                HttpLoggingInterceptor loggingInterceptor = new HttpLoggingInterceptor();
-                loggingInterceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-                httpClientBuilder.addInterceptor(loggingInterceptor);
-            }
-            
-            OkHttpClient httpClient = httpClientBuilder.build();
-            
-            // Create Retrofit instance
+            // Create Retrofit instance on the shared HTTP client
             Retrofit retrofit = new Retrofit.Builder()
                     .baseUrl(WillowApiV3Config.getApiUrl(baseUrlParam) + "/")
                     .client(httpClient)
-                    .addConverterFactory(GsonConverterFactory.create())
+                    .addConverterFactory(GsonConverterFactory.create(HttpClientProvider.getGson()))
                     .build();
             
             Log.d(TAG, "Created Willow API service with base URL: " + baseUrlParam);
             return retrofit.create(WillowApiService.class);
-            
+        
         } catch (Exception e) {
             Log.e(TAG, "Error creating Willow API service", e);
             throw new RuntimeException("Failed to create Willow API service", e);
@@ -1,6 +1,7 @@
 package com.example.ecowattchtechdemo.willow;
 
 import com.example.ecowattchtechdemo.willow.models.*;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.*;
 import java.util.List;
@@ -53,7 +54,10 @@ public interface WillowApiService {
     
     /**
      * Get time series data for a twin
+     *
+     * @deprecated builds every point of the range in memory; use streamTimeSeries
      */
+    @Deprecated
     @GET("time-series/{twinId}")
     Call<TimeSeriesResponse> getTimeSeries(
         @Header("Authorization") String authorization,
@@ -64,6 +68,21 @@ public interface WillowApiService {
         @Query("includeDataQuality") boolean includeDataQuality
     );
     
+    /**
+     * Get time series data for a twin as a raw stream, for decoding with TimeSeriesStreamParser
+     */
+    @Streaming
+    @GET("time-series/{twinId}")
+    Call<ResponseBody> streamTimeSeries(
+        @Header("Authorization") String authorization,
+        @Path("twinId") String twinId,
+        @Query("start") String startTime,
+        @Query("end") String endTime,
+        @Query("pageSize") int pageSize,
+        @Query("includeDataQuality") boolean includeDataQuality,
+        @Query("continuationToken") String continuationToken
+    );
+    
     /**
      * Get latest time series values for multiple twins
      */
@@ -76,7 +95,10 @@ public interface WillowApiService {
     
     /**
      * Get time series data for multiple twins
+     *
+     * @deprecated builds every point of the range in memory; use streamTimeSeriesForMultipleTwins
      */
+    @Deprecated
     @POST("time-series/ids")
     Call<TimeSeriesResponse> getTimeSeriesForMultipleTwins(
         @Header("Authorization") String authorization,
@@ -87,6 +109,21 @@ public interface WillowApiService {
         @Query("includeDataQuality") boolean includeDataQuality
     );
     
+    /**
+     * Get time series data for multiple twins as a raw stream, for decoding with TimeSeriesStreamParser
+     */
+    @Streaming
+    @POST("time-series/ids")
+    Call<ResponseBody> streamTimeSeriesForMultipleTwins(
+        @Header("Authorization") String authorization,
+        @Body List<String> twinIds,
+        @Query("start") String startTime,
+        @Query("end") String endTime,
+        @Query("pageSize") int pageSize,
+        @Query("includeDataQuality") boolean includeDataQuality,
+        @Query("continuationToken") String continuationToken
+    );
+    
     /**
      * Get latest value for a single twin
      */
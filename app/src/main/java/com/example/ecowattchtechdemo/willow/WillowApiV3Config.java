@@ -38,6 +38,54 @@ public class WillowApiV3Config {
     public static final int DEFAULT_TIME_SERIES_LIMIT = 100;
     public static final long DEFAULT_TIME_RANGE_HOURS = 24;
     
+    // Twin search paging
+    public static final int TWIN_SEARCH_PAGE_SIZE = 20; // Small pages avoid tenant 500s
+    public static final int MAX_IN_FLIGHT_SEARCH_PAGES = 2;
+    public static final int MAX_SEARCH_PAGES = 200;
+    
+    // Latest values: larger capability sets are split into requests of this many IDs
+    public static final int LATEST_VALUES_MAX_IDS = 100;
+    
+    // Twin metadata caching
+    public static final int TWIN_METADATA_MAX_AGE_SECONDS = 15 * 60;
+    
+    // Streamed time series paging
+    public static final int TIME_SERIES_STREAM_PAGE_SIZE = 1000;
+    public static final int MAX_TIME_SERIES_PAGES = 500;
+    
+    // Retries for transient failures (429, 5xx, dropped connections)
+    public static final int RETRY_MAX_ATTEMPTS = 3;
+    public static final long RETRY_BASE_DELAY_MS = 250;
+    public static final long RETRY_MAX_DELAY_MS = 4000;
+    public static final long RETRY_AFTER_MAX_MS = 10000; // Longer waits fall through to the fallback chain
+    public static final double RETRY_BUDGET_RATIO = 0.2;
+    public static final double RETRY_BUDGET_MAX_TOKENS = 10;
+    
+    // Client-side rate limits shared by every screen (permits per second / burst)
+    public static final double RATE_LIMIT_GLOBAL_PER_SECOND = 8;
+    public static final int RATE_LIMIT_GLOBAL_BURST = 16;
+    public static final double RATE_LIMIT_SEARCH_PER_SECOND = 2; // Twin search is the most expensive call
+    public static final int RATE_LIMIT_SEARCH_BURST = 4;
+    public static final double RATE_LIMIT_TWIN_PER_SECOND = 2;
+    public static final int RATE_LIMIT_TWIN_BURST = 4;
+    public static final double RATE_LIMIT_TIME_SERIES_PER_SECOND = 5;
+    public static final int RATE_LIMIT_TIME_SERIES_BURST = 10;
+    public static final double RATE_LIMIT_PRIORITY_RESERVE = 0.25;
+    public static final long RATE_LIMIT_MAX_WAIT_MS = 15000;
+    
+    // Time one refresh (all calls in a fetch chain) may take before falling back
+    public static final long FETCH_DEADLINE_MS = 20000;
+    
+    // Daily kWh: readings further apart than this are a gap, not a trapezoid
+    public static final long ENERGY_MAX_GAP_MS = 30 * 60 * 1000L;
+    
+    // Hedged fetches: start the capability search alongside a direct lookup that is slower than usual
+    public static final boolean HEDGED_FETCH_ENABLED = false;
+    public static final double HEDGE_LATENCY_PERCENTILE = 95;
+    public static final long HEDGE_MIN_DELAY_MS = 500;
+    public static final long HEDGE_MAX_DELAY_MS = 5000;
+    public static final long HEDGE_DEFAULT_DELAY_MS = 2000; // Until enough calls have been timed
+    
     // Request timeouts (in milliseconds)
     public static final int CONNECTION_TIMEOUT = 30000;
     public static final int READ_TIMEOUT = 30000;
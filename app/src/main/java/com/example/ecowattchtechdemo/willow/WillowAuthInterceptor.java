@@ -0,0 +1,75 @@
+package com.example.ecowattchtechdemo.willow;
+
+import okhttp3.Authenticator;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.Route;
+import java.io.IOException;
+
+/**
+ * Stamps every Willow request with the current token and replays requests
+ * that were rejected with 401 after a single-flight refresh
+ */
+public class WillowAuthInterceptor implements Interceptor, Authenticator {
+    
+    // Give up after this many 401s for the same request
+    private static final int MAX_AUTH_ATTEMPTS = 2;
+    
+    private final WillowTokenManager tokenManager;
+    
+    public WillowAuthInterceptor(WillowTokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+    }
+    
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+        Request request = chain.request();
+        if (isTokenRequest(request) || !tokenManager.isAuthenticated()) {
+            return chain.proceed(request);
+        }
+        
+        // Token went stale while the device slept and the scheduled refresh did not run
+        String header = tokenManager.getAuthorizationHeader();
+        if (tokenManager.isExpiringSoon()) {
+            String refreshed = tokenManager.refreshToken(header);
+            if (refreshed != null) {
+                header = refreshed;
+            }
+        }
+        
+        // Replace whatever token the caller captured when the call was created
+        return chain.proceed(request.newBuilder()
+                .header(WillowApiV3Config.AUTHORIZATION_HEADER, header)
+                .build());
+    }
+    
+    @Override
+    public Request authenticate(Route route, Response response) {
+        Request request = response.request();
+        if (isTokenRequest(request) || responseCount(response) >= MAX_AUTH_ATTEMPTS) {
+            return null;
+        }
+        
+        String refreshed = tokenManager.refreshToken(request.header(WillowApiV3Config.AUTHORIZATION_HEADER));
+        if (refreshed == null) {
+            return null;
+        }
+        
+        return request.newBuilder()
+                .header(WillowApiV3Config.AUTHORIZATION_HEADER, refreshed)
+                .build();
+    }
+    
+    private static boolean isTokenRequest(Request request) {
+        return request.url().encodedPath().endsWith(WillowApiV3Config.OAUTH_TOKEN_ENDPOINT);
+    }
+    
+    private static int responseCount(Response response) {
+        int count = 1;
+        while ((response = response.priorResponse()) != null) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -1,22 +1,90 @@
 package com.example.ecowattchtechdemo.willow;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
 import com.example.ecowattchtechdemo.willow.models.*;
+import com.example.ecowattchtechdemo.willow.storage.TimeSeriesStore;
+import com.example.ecowattchtechdemo.willow.timeseries.EnergyIntegrator;
+import com.example.ecowattchtechdemo.willow.timeseries.RollupPyramid;
+import com.example.ecowattchtechdemo.willow.timeseries.TimeSeriesBatch;
+import com.example.ecowattchtechdemo.willow.timeseries.TimeSeriesSink;
+import com.example.ecowattchtechdemo.willow.timeseries.TimeSeriesStreamParser;
+import com.example.ecowattchtechdemo.willow.timeseries.Timestamps;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
 import java.util.*;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * Manager for Willow API operations and energy data
+ * Manager for Willow API operations and energy data. Screens should share the
+ * instance from getInstance() so auth, resolved capabilities and latest
+ * readings carry over between them; every method is safe to call from any thread.
  */
 public class WillowEnergyDataManager {
     
     private static final String TAG = "WillowEnergyManager";
     
-    private WillowApiService apiService;
-    private String accessToken;
-    private long tokenExpirationTime;
+    // Endpoint keys for circuit breakers
+    private static final String ENDPOINT_TWIN = "twins/{id}";
+    private static final String ENDPOINT_TWIN_LATEST = "time-series/{id}/latest";
+    private static final String ENDPOINT_SEARCH = "twins";
+    private static final String ENDPOINT_IDS_LATEST = "time-series/ids/latest";
+    private static final String ENDPOINT_TIME_SERIES = "time-series";
+    
+    private static final String ALL_BUILDINGS_KEY = "*";
+    
+    // Streamed history is downloaded and decoded off the main thread, one request at a time
+    private static final ExecutorService streamExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "willow-time-series-stream");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // Responses are turned into EnergyDataResponse here, so Retrofit's main-thread callbacks stay short
+    private static final ExecutorService processingExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "willow-processing");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    // One manager per Willow base URL for the whole process
+    private static final Map<String, WillowEnergyDataManager> instances = new ConcurrentHashMap<>();
+    
+    private final WillowApiService apiService;
+    private final WillowApiService priorityApiService;
+    private final WillowTokenManager tokenManager;
+    private final CapabilityCache capabilityCache;
+    private final TwinMetadataCache twinCache =
+        new TwinMetadataCache(WillowApiV3Config.TWIN_METADATA_MAX_AGE_SECONDS * 1000L);
+    private final Map<String, EnergyDataResponse> latestReadings = new ConcurrentHashMap<>();
+    private final TimeSeriesStore readingStore;
+    private final Map<String, EnergyIntegrator> dailyEnergy = new ConcurrentHashMap<>();
+    private final RollupPyramid rollups = new RollupPyramid(TimeZone.getDefault());
+    private final Map<String, FetchStrategy> preferredStrategies = new ConcurrentHashMap<>();
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+    private final AtomicInteger fallbackCount = new AtomicInteger();
+    private final InFlightRequests<EnergyDataCallback> inFlightBuildings = new InFlightRequests<>();
+    private final InFlightRequests<MultiBuildingEnergyCallback> inFlightAllBuildings = new InFlightRequests<>();
+    private final Map<String, ActiveFetch> activeFetches = new ConcurrentHashMap<>();
+    private volatile CallScope scope = new CallScope();
+    private final Set<CompletableFuture<?>> pendingFutures = Collections.newSetFromMap(new ConcurrentHashMap<CompletableFuture<?>, Boolean>());
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private volatile boolean hedgedFetchEnabled = WillowApiV3Config.HEDGED_FETCH_ENABLED;
+    private final AtomicInteger hedgeCount = new AtomicInteger();
+    private final AtomicInteger hedgeWinCount = new AtomicInteger();
     
     // Building mappings
     private final Map<String, String> buildingNames = new HashMap<String, String>() {{
@@ -25,209 +93,1073 @@ public class WillowEnergyDataManager {
         put(WillowApiV3Config.TWIN_ID_SECHRIST, "SECHRIST");
     }};
     
-    private final Map<String, String> buildingPositions = new HashMap<String, String>() {{
-        put("TINSLEY", "1ST PLACE");
-        put("GABALDON", "2ND PLACE");
-        put("SECHRIST", "3RD PLACE");
-    }};
+    private final Map<String, String> buildingPositions = new HashMap<String, String>() {{
+        put("TINSLEY", "1ST PLACE");
+        put("GABALDON", "2ND PLACE");
+        put("SECHRIST", "3RD PLACE");
+    }};
+    
+    public WillowEnergyDataManager() {
+        this(null, WillowApiV3Config.DEFAULT_BASE_URL);
+    }
+    
+    public WillowEnergyDataManager(String baseUrl) {
+        this(null, baseUrl);
+    }
+    
+    public WillowEnergyDataManager(Context context) {
+        this(context, WillowApiV3Config.DEFAULT_BASE_URL);
+    }
+    
+    /**
+     * @param context used to persist resolved capabilities, HTTP responses and reading history;
+     *                null keeps them in memory only and disables history
+     */
+    public WillowEnergyDataManager(Context context, String baseUrl) {
+        HttpClientProvider.installCache(context);
+        this.tokenManager = new WillowTokenManager(WillowApiClient.getApiService(baseUrl));
+        this.apiService = WillowApiClient.createAuthenticatedApiService(baseUrl, tokenManager, RequestPriority.BACKGROUND);
+        this.priorityApiService = WillowApiClient.createAuthenticatedApiService(baseUrl, tokenManager, RequestPriority.USER);
+        this.capabilityCache = new CapabilityCache(context);
+        this.readingStore = context != null ? new TimeSeriesStore(context) : null;
+    }
+    
+    /**
+     * Get the process-wide manager for the default Willow tenant
+     */
+    public static WillowEnergyDataManager getInstance(Context context) {
+        return getInstance(context, WillowApiV3Config.DEFAULT_BASE_URL);
+    }
+    
+    /**
+     * Get the process-wide manager for a Willow base URL, creating it on first use
+     */
+    public static WillowEnergyDataManager getInstance(Context context, String baseUrl) {
+        WillowEnergyDataManager manager = instances.get(baseUrl);
+        if (manager == null) {
+            synchronized (instances) {
+                manager = instances.get(baseUrl);
+                if (manager == null) {
+                    manager = new WillowEnergyDataManager(context != null ? context.getApplicationContext() : null, baseUrl);
+                    instances.put(baseUrl, manager);
+                }
+            }
+        }
+        return manager;
+    }
+    
+    /**
+     * Interface for energy data callbacks
+     */
+    public interface EnergyDataCallback {
+        void onSuccess(EnergyDataResponse data);
+        void onError(String error);
+    }
+    
+    /**
+     * Callback for multi-building fetches, keyed by building twin ID
+     */
+    public interface MultiBuildingEnergyCallback {
+        void onSuccess(Map<String, EnergyDataResponse> data);
+        void onError(String error);
+    }
+    
+    /**
+     * Completion callback for streamed time series; runs on the stream thread
+     */
+    public interface TimeSeriesStreamCallback {
+        void onComplete(int pointCount);
+        void onError(String error);
+    }
+    
+    public interface AuthenticationCallback {
+        void onSuccess(String token);
+        void onError(String error);
+    }
+    
+    /**
+     * Authenticate with Willow API
+     */
+    public void authenticate(String clientId, String clientSecret, AuthenticationCallback callback) {
+        Log.d(TAG, "Authenticating with Willow API...");
+        
+        // The token manager keeps the token fresh from here on
+        tokenManager.authenticate(clientId, clientSecret, callback);
+    }
+    
+    /**
+     * Get energy data for a specific building as a background request
+     */
+    public void getEnergyData(String buildingTwinId, EnergyDataCallback callback) {
+        getEnergyData(buildingTwinId, callback, RequestPriority.BACKGROUND);
+    }
+    
+    /**
+     * Get energy data for a specific building. Calls for a building that is
+     * already being fetched wait for that fetch instead of starting another;
+     * a user-initiated call moves the rest of that fetch to the priority lane.
+     */
+    public void getEnergyData(String buildingTwinId, EnergyDataCallback callback, RequestPriority priority) {
+        getEnergyData(buildingTwinId, callback,
+            new ActiveFetch(priority, System.currentTimeMillis() + WillowApiV3Config.FETCH_DEADLINE_MS, scope));
+    }
+    
+    private void getEnergyData(String buildingTwinId, EnergyDataCallback callback, ActiveFetch fetch) {
+        if (!isAuthenticated()) {
+            callback.onError("Not authenticated. Please authenticate first.");
+            return;
+        }
+        
+        if (!start(inFlightBuildings, buildingTwinId, callback, fetch)) {
+            Log.d(TAG, "Joined in-flight fetch for " + buildingTwinId);
+            promote(buildingTwinId, fetch.priority);
+            return;
+        }
+        
+        // Calls of a cancelled scope never call back, so fail the waiters from here
+        Runnable onCancel = () -> {
+            List<EnergyDataCallback> waiting = finish(inFlightBuildings, buildingTwinId, fetch);
+            runOnMain(() -> {
+                for (EnergyDataCallback waitingCallback : waiting) {
+                    waitingCallback.onError("Fetch cancelled");
+                }
+            });
+        };
+        fetch.scope.addCancelListener(onCancel);
+        
+        fetchEnergyData(buildingTwinId, fetch, new EnergyDataCallback() {
+            @Override
+            public void onSuccess(EnergyDataResponse data) {
+                fetch.scope.removeCancelListener(onCancel);
+                rememberReading(data);
+                List<EnergyDataCallback> waiting = finish(inFlightBuildings, buildingTwinId, fetch);
+                runOnMain(() -> {
+                    for (EnergyDataCallback waitingCallback : waiting) {
+                        waitingCallback.onSuccess(data);
+                    }
+                });
+            }
+            
+            @Override
+            public void onError(String error) {
+                fetch.scope.removeCancelListener(onCancel);
+                List<EnergyDataCallback> waiting = finish(inFlightBuildings, buildingTwinId, fetch);
+                runOnMain(() -> {
+                    for (EnergyDataCallback waitingCallback : waiting) {
+                        waitingCallback.onError(error);
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Join the fetch running for a key, or register a new one as its owner.
+     * Both happen under the in-flight lock, so the fetch in activeFetches is
+     * always the one the key's waiters belong to.
+     *
+     * @return true if the caller should run the fetch
+     */
+    private <C> boolean start(InFlightRequests<C> inFlight, String key, C callback, ActiveFetch fetch) {
+        synchronized (inFlight) {
+            if (!inFlight.join(key, callback)) return false;
+            activeFetches.put(key, fetch);
+            return true;
+        }
+    }
+    
+    /**
+     * End a fetch and take the callbacks waiting on it. A fetch that was
+     * abandoned or dropped by cancelAll() gets none, and cannot take those of
+     * a newer fetch for the same key.
+     */
+    private <C> List<C> finish(InFlightRequests<C> inFlight, String key, ActiveFetch fetch) {
+        synchronized (inFlight) {
+            return activeFetches.remove(key, fetch) ? inFlight.complete(key) : Collections.<C>emptyList();
+        }
+    }
+    
+    /**
+     * Withdraw a callback from the fetch running for a key, and cancel that
+     * fetch if nobody else is waiting on it
+     */
+    private <C> void abandon(InFlightRequests<C> inFlight, String key, C callback) {
+        ActiveFetch abandoned = null;
+        synchronized (inFlight) {
+            // Under the lock nobody can take over the key in between, so this is the fetch we waited on
+            ActiveFetch running = activeFetches.get(key);
+            if (inFlight.leave(key, callback) && running != null && activeFetches.remove(key, running)) {
+                abandoned = running;
+            }
+        }
+        if (abandoned != null) {
+            Log.d(TAG, "Abandoning fetch for " + key);
+            abandoned.scope.cancel();
+        }
+    }
+    
+    private void fetchEnergyData(String buildingTwinId, ActiveFetch fetch, EnergyDataCallback callback) {
+        final String buildingName = buildingNames.getOrDefault(buildingTwinId, "UNKNOWN");
+        
+        Log.d(TAG, "Fetching energy data for building: " + buildingName + " (" + buildingTwinId + ")");
+        
+        // Steady state: capabilities already resolved, a single latest-values call is enough
+        List<String> cachedCapabilities = capabilityCache.get(buildingTwinId);
+        if (cachedCapabilities != null && breaker(ENDPOINT_IDS_LATEST).allowRequest()) {
+            getCachedCapabilityData(cachedCapabilities, buildingName, buildingTwinId, fetch, callback);
+            return;
+        }
+        
+        // Known building: go straight to the strategy that worked last time
+        FetchStrategy preferred = preferredStrategies.get(buildingTwinId);
+        if (preferred != null) {
+            runStrategies(FetchStrategy.planFor(preferred), 0, buildingName, buildingTwinId, fetch, callback);
+            return;
+        }
+        
+        // Use the new debugging approach to handle 500 errors better
+        testApiEndpoints(buildingTwinId, fetch, callback);
+    }
+    
+    /**
+     * Get energy data for every registered building as a background request
+     */
+    public void getAllEnergyData(MultiBuildingEnergyCallback callback) {
+        getAllEnergyData(callback, RequestPriority.BACKGROUND);
+    }
+    
+    /**
+     * Get energy data for every registered building. Buildings with resolved
+     * capabilities share a single time-series/ids/latest request; the rest go
+     * through discovery individually, which also resolves them for next time.
+     * Overlapping calls share a single fetch.
+     */
+    public void getAllEnergyData(MultiBuildingEnergyCallback callback, RequestPriority priority) {
+        if (!isAuthenticated()) {
+            callback.onError("Not authenticated. Please authenticate first.");
+            return;
+        }
+        
+        // Its own scope, so abandoning it cancels only its calls
+        CallScope parentScope = scope;
+        ActiveFetch fetch = new ActiveFetch(priority, System.currentTimeMillis() + WillowApiV3Config.FETCH_DEADLINE_MS,
+            parentScope.newChild());
+        if (!start(inFlightAllBuildings, ALL_BUILDINGS_KEY, callback, fetch)) {
+            Log.d(TAG, "Joined in-flight fetch for all buildings");
+            parentScope.release(fetch.scope);
+            promote(ALL_BUILDINGS_KEY, priority);
+            return;
+        }
+        
+        Runnable onCancel = () -> {
+            parentScope.release(fetch.scope);
+            List<MultiBuildingEnergyCallback> waiting = finish(inFlightAllBuildings, ALL_BUILDINGS_KEY, fetch);
+            runOnMain(() -> {
+                for (MultiBuildingEnergyCallback waitingCallback : waiting) {
+                    waitingCallback.onError("Fetch cancelled");
+                }
+            });
+        };
+        fetch.scope.addCancelListener(onCancel);
+        
+        fetchAllEnergyData(fetch, new MultiBuildingEnergyCallback() {
+            @Override
+            public void onSuccess(Map<String, EnergyDataResponse> data) {
+                fetch.scope.removeCancelListener(onCancel);
+                parentScope.release(fetch.scope);
+                for (EnergyDataResponse reading : data.values()) {
+                    rememberReading(reading);
+                }
+                List<MultiBuildingEnergyCallback> waiting = finish(inFlightAllBuildings, ALL_BUILDINGS_KEY, fetch);
+                runOnMain(() -> {
+                    for (MultiBuildingEnergyCallback waitingCallback : waiting) {
+                        waitingCallback.onSuccess(data);
+                    }
+                });
+            }
+            
+            @Override
+            public void onError(String error) {
+                fetch.scope.removeCancelListener(onCancel);
+                parentScope.release(fetch.scope);
+                List<MultiBuildingEnergyCallback> waiting = finish(inFlightAllBuildings, ALL_BUILDINGS_KEY, fetch);
+                runOnMain(() -> {
+                    for (MultiBuildingEnergyCallback waitingCallback : waiting) {
+                        waitingCallback.onError(error);
+                    }
+                });
+            }
+        });
+    }
+    
+    /**
+     * Authenticate with Willow API, completing with the authorization header
+     */
+    public CompletableFuture<String> authenticateAsync(String clientId, String clientSecret) {
+        CompletableFuture<String> future = track(new CompletableFuture<String>());
+        authenticate(clientId, clientSecret, new AuthenticationCallback() {
+            @Override
+            public void onSuccess(String token) {
+                WillowFutures.executor().execute(() -> future.complete(token));
+            }
+            
+            @Override
+            public void onError(String error) {
+                WillowFutures.executor().execute(() -> future.completeExceptionally(new IOException(error)));
+            }
+        });
+        return future;
+    }
+    
+    /**
+     * Get energy data for a specific building as a background request
+     */
+    public CompletableFuture<EnergyDataResponse> getEnergyDataAsync(String buildingTwinId) {
+        return getEnergyDataAsync(buildingTwinId, RequestPriority.BACKGROUND, WillowApiV3Config.FETCH_DEADLINE_MS);
+    }
+    
+    /**
+     * Get energy data for a specific building. Cancelling the future, or
+     * letting it time out, cancels the Willow calls behind it unless another
+     * caller is still waiting on the same fetch.
+     *
+     * @param timeoutMs time allowed for the whole fetch; 0 for no limit beyond the fetch deadline
+     */
+    public CompletableFuture<EnergyDataResponse> getEnergyDataAsync(String buildingTwinId, RequestPriority priority,
+                                                                    long timeoutMs) {
+        CompletableFuture<EnergyDataResponse> future = track(new CompletableFuture<EnergyDataResponse>());
+        CallScope parentScope = scope;
+        CallScope futureScope = parentScope.newChild();
+        
+        EnergyDataCallback callback = new EnergyDataCallback() {
+            @Override
+            public void onSuccess(EnergyDataResponse data) {
+                WillowFutures.executor().execute(() -> future.complete(data));
+            }
+            
+            @Override
+            public void onError(String error) {
+                WillowFutures.executor().execute(() -> future.completeExceptionally(new IOException(error)));
+            }
+        };
+        
+        future.whenComplete((data, error) -> {
+            parentScope.release(futureScope);
+            if (error != null) {
+                abandon(inFlightBuildings, buildingTwinId, callback);
+            }
+        });
+        
+        getEnergyData(buildingTwinId, callback,
+            new ActiveFetch(priority, System.currentTimeMillis() + WillowApiV3Config.FETCH_DEADLINE_MS, futureScope));
+        return WillowFutures.withTimeout(future, timeoutMs);
+    }
+    
+    /**
+     * Get energy data for several buildings at once. Every building is fetched
+     * concurrently; the future completes with the buildings that succeeded and
+     * fails only if none did. Cancelling it cancels every building still running.
+     */
+    public CompletableFuture<Map<String, EnergyDataResponse>> getEnergyDataAsync(Collection<String> buildingTwinIds,
+                                                                                 RequestPriority priority, long timeoutMs) {
+        Map<String, CompletableFuture<EnergyDataResponse>> futures = new LinkedHashMap<>();
+        for (String buildingTwinId : buildingTwinIds) {
+            futures.put(buildingTwinId, getEnergyDataAsync(buildingTwinId, priority, 0));
+        }
+        return WillowFutures.withTimeout(WillowFutures.allSuccessful(futures), timeoutMs);
+    }
+    
+    /**
+     * Get energy data for every registered building, sharing the batched
+     * latest-values request with getAllEnergyData(). Cancelling the future
+     * cancels the Willow calls behind it unless another caller is still
+     * waiting on the same fetch.
+     */
+    public CompletableFuture<Map<String, EnergyDataResponse>> getAllEnergyDataAsync(RequestPriority priority) {
+        CompletableFuture<Map<String, EnergyDataResponse>> future = track(new CompletableFuture<Map<String, EnergyDataResponse>>());
+        MultiBuildingEnergyCallback callback = new MultiBuildingEnergyCallback() {
+            @Override
+            public void onSuccess(Map<String, EnergyDataResponse> data) {
+                WillowFutures.executor().execute(() -> future.complete(data));
+            }
+            
+            @Override
+            public void onError(String error) {
+                WillowFutures.executor().execute(() -> future.completeExceptionally(new IOException(error)));
+            }
+        };
+        
+        future.whenComplete((data, error) -> {
+            if (error != null) {
+                abandon(inFlightAllBuildings, ALL_BUILDINGS_KEY, callback);
+            }
+        });
+        
+        getAllEnergyData(callback, priority);
+        return future;
+    }
+    
+    /**
+     * Keep a future until it completes, so cancelAll() can cancel it
+     */
+    private <T> CompletableFuture<T> track(CompletableFuture<T> future) {
+        pendingFutures.add(future);
+        future.whenComplete((result, error) -> pendingFutures.remove(future));
+        return future;
+    }
+    
+    private void fetchAllEnergyData(ActiveFetch fetch, MultiBuildingEnergyCallback callback) {
+        Map<String, List<String>> resolved = new LinkedHashMap<>();
+        List<String> unresolved = new ArrayList<>();
+        for (String buildingId : getAllBuildingIds()) {
+            List<String> capabilities = capabilityCache.get(buildingId);
+            if (capabilities != null) {
+                resolved.put(buildingId, capabilities);
+            } else {
+                unresolved.add(buildingId);
+            }
+        }
+        
+        if (!resolved.isEmpty() && !breaker(ENDPOINT_IDS_LATEST).allowRequest()) {
+            unresolved.addAll(resolved.keySet());
+            resolved.clear();
+        }
+        
+        Log.d(TAG, "Fetching all buildings: " + resolved.size() + " batched, " + unresolved.size() + " resolving");
+        
+        if (resolved.isEmpty() && unresolved.isEmpty()) {
+            callback.onError("No buildings registered");
+            return;
+        }
+        
+        BatchCollector collector = new BatchCollector(callback);
+        collector.expect(unresolved.size() + (resolved.isEmpty() ? 0 : 1));
+        
+        for (String buildingId : unresolved) {
+            fetchIntoCollector(buildingId, fetch, collector);
+        }
+        if (!resolved.isEmpty()) {
+            getBatchedLatestValues(resolved, fetch, collector);
+        }
+    }
+    
+    /**
+     * Fetch latest values for all resolved buildings in one request and split them per building
+     */
+    private void getBatchedLatestValues(Map<String, List<String>> resolved, ActiveFetch fetch, BatchCollector collector) {
+        // Capability IDs can be shared between buildings, so request each one once
+        Set<String> capabilityIds = new LinkedHashSet<>();
+        for (List<String> ids : resolved.values()) {
+            capabilityIds.addAll(ids);
+        }
+        
+        getLatestValues(new ArrayList<>(capabilityIds), fetch, new LatestValuesCallback() {
+            @Override
+            public void onPoints(List<TimeSeriesPoint> points) {
+                processingExecutor.execute(() -> splitBatch(points, resolved, fetch, collector));
+            }
+            
+            @Override
+            public void onFailure(String error) {
+                Log.e(TAG, "Batched latest values failed: " + error);
+                
+                collector.expect(resolved.size());
+                for (String buildingId : resolved.keySet()) {
+                    fetchIntoCollector(buildingId, fetch, collector);
+                }
+                collector.complete();
+            }
+        });
+    }
+    
+    /**
+     * Split a batched latest-values response per building; runs on the processing thread
+     */
+    private void splitBatch(List<TimeSeriesPoint> points, Map<String, List<String>> resolved, ActiveFetch fetch,
+                            BatchCollector collector) {
+        Log.d(TAG, "Batched latest values returned " + points.size() + " points");
+        
+        // Decode once into columns, then slice per building without copying points into lists
+        TimeSeriesBatch batch = TimeSeriesBatch.fromPoints(points);
+        
+        List<String> missing = new ArrayList<>();
+        for (Map.Entry<String, List<String>> entry : resolved.entrySet()) {
+            String buildingId = entry.getKey();
+            TimeSeriesBatch buildingPoints = batch.forTwins(new HashSet<>(entry.getValue()));
+            
+            if (buildingPoints.isEmpty()) {
+                missing.add(buildingId);
+            } else {
+                String buildingName = buildingNames.getOrDefault(buildingId, "UNKNOWN");
+                collector.add(buildingId, processTimeSeriesData(buildingPoints, buildingName, buildingId));
+            }
+        }
+        
+        // Buildings the batch could not answer get re-resolved individually
+        collector.expect(missing.size());
+        for (String buildingId : missing) {
+            capabilityCache.invalidate(buildingId);
+            fetchIntoCollector(buildingId, fetch, collector);
+        }
+        collector.complete();
+    }
+    
+    private void fetchIntoCollector(String buildingId, ActiveFetch parent, BatchCollector collector) {
+        // Per-building fetches inherit the lane and deadline of the all-buildings fetch
+        getEnergyData(buildingId, new EnergyDataCallback() {
+            @Override
+            public void onSuccess(EnergyDataResponse data) {
+                collector.add(buildingId, data);
+                collector.complete();
+            }
+            
+            @Override
+            public void onError(String error) {
+                Log.w(TAG, "Failed to fetch " + buildingId + " for batch: " + error);
+                collector.complete();
+            }
+        }, parent.copy());
+    }
+    
+    /**
+     * Keep a real reading so other screens can show it before their own fetch returns
+     */
+    private void rememberReading(EnergyDataResponse data) {
+        if (data.isDataAvailable() && data.getBuildingId() != null) {
+            latestReadings.put(data.getBuildingId(), data);
+            if (readingStore != null && data.getCurrentUsageKW() != null) {
+                // Polls that see the same source reading again are ignored by the store
+                long readAt = Timestamps.parseEpochMillis(data.getLastUpdated());
+                readingStore.append(data.getBuildingId(),
+                    readAt != Timestamps.INVALID ? readAt : System.currentTimeMillis(), data.getCurrentUsageKW(), 0);
+            }
+        }
+    }
+    
+    /**
+     * Get the min/max/sum rollups of every capability reading this manager has
+     * ingested, from polls and from streamed history alike
+     */
+    public RollupPyramid getRollups() {
+        return rollups;
+    }
+    
+    /**
+     * Get stored readings (kW) for a building with from <= time < to, oldest first
+     *
+     * @return number of readings visited; 0 when the manager was created without a context
+     */
+    public int getReadingHistory(String buildingTwinId, long fromMillis, long toMillis,
+                                 TimeSeriesStore.RecordVisitor visitor) {
+        return readingStore != null ? readingStore.query(buildingTwinId, fromMillis, toMillis, visitor) : 0;
+    }
+    
+    /**
+     * Get the most recent real reading for a building, or null if none has been fetched yet
+     */
+    public EnergyDataResponse getLatestReading(String buildingTwinId) {
+        return latestReadings.get(buildingTwinId);
+    }
+    
+    /**
+     * Gathers per-building results and reports them once every pending fetch is done
+     */
+    private static class BatchCollector {
+        private final MultiBuildingEnergyCallback callback;
+        private final Map<String, EnergyDataResponse> results = new ConcurrentHashMap<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        
+        BatchCollector(MultiBuildingEnergyCallback callback) {
+            this.callback = callback;
+        }
+        
+        void expect(int count) {
+            pending.addAndGet(count);
+        }
+        
+        void add(String buildingId, EnergyDataResponse data) {
+            results.put(buildingId, data);
+        }
+        
+        void complete() {
+            if (pending.decrementAndGet() != 0) return;
+            
+            if (results.isEmpty()) {
+                callback.onError("No building data available");
+            } else {
+                // Read-only, since coalesced callers all receive the same map
+                callback.onSuccess(Collections.unmodifiableMap(new LinkedHashMap<>(results)));
+            }
+        }
+    }
+    
+    /**
+     * Fetch latest values for cached capabilities, re-running discovery if that fails
+     */
+    private void getCachedCapabilityData(List<String> capabilityIds, String buildingName, String buildingId,
+                                         ActiveFetch fetch, EnergyDataCallback callback) {
+        Log.d(TAG, "Using " + capabilityIds.size() + " cached capabilities for " + buildingName);
+        
+        getLatestValues(capabilityIds, fetch, new LatestValuesCallback() {
+            @Override
+            public void onPoints(List<TimeSeriesPoint> points) {
+                if (!points.isEmpty()) {
+                    processAndDeliver(points, buildingName, buildingId, callback);
+                } else {
+                    Log.w(TAG, "Cached capabilities returned no readings, re-resolving");
+                    capabilityCache.invalidate(buildingId);
+                    runStrategies(FetchStrategy.planFor(preferredStrategies.get(buildingId)), 0,
+                        buildingName, buildingId, fetch, callback);
+                }
+            }
+            
+            @Override
+            public void onFailure(String error) {
+                Log.w(TAG, "Cached capability fetch failed: " + error + ", re-resolving");
+                capabilityCache.invalidate(buildingId);
+                runStrategies(FetchStrategy.planFor(preferredStrategies.get(buildingId)), 0,
+                    buildingName, buildingId, fetch, callback);
+            }
+        });
+    }
+    
+    /**
+     * Run fetch strategies in plan order until one produces data
+     */
+    private void runStrategies(List<FetchStrategy> plan, int index, String buildingName, String buildingId,
+                               ActiveFetch fetch, EnergyDataCallback callback) {
+        if (index >= plan.size()) {
+            Log.w(TAG, "All fetch strategies failed for " + buildingName + ", using fallback data");
+            callback.onSuccess(createFallbackData(buildingName, buildingId));
+            return;
+        }
+        
+        FetchStrategy strategy = plan.get(index);
+        if (hedgedFetchEnabled && strategy == FetchStrategy.DIRECT_TIME_SERIES
+                && plan.indexOf(FetchStrategy.ENERGY_CAPABILITY_SEARCH) > index) {
+            runHedged(plan, index, buildingName, buildingId, fetch, callback);
+            return;
+        }
+        
+        Runnable next = () -> runStrategies(plan, index + 1, buildingName, buildingId, fetch, callback);
+        
+        Log.d(TAG, "Trying strategy " + strategy + " for " + buildingName);
+        switch (strategy) {
+            case DIRECT_TIME_SERIES:
+                testDirectTimeSeries(buildingName, buildingId, fetch, callback, next);
+                break;
+            case ENERGY_CAPABILITY_SEARCH:
+                findEnergyCapabilities(buildingName, buildingId, fetch, callback, next);
+                break;
+            case POWER_CAPABILITY_SEARCH:
+                searchForAlternativeCapabilities(buildingName, buildingId, fetch, callback, next);
+                break;
+            case DIRECT_BUILDING:
+            default:
+                tryDirectBuildingApproach(buildingName, buildingId, fetch, callback, next);
+                break;
+        }
+    }
+    
+    /**
+     * Run the direct time series lookup, and if it takes longer than recent
+     * calls usually do, start the energy capability search alongside it. The
+     * first branch with good-quality data wins and the other is cancelled; if
+     * neither has any, the rest of the plan runs as usual.
+     */
+    private void runHedged(List<FetchStrategy> plan, int index, String buildingName, String buildingId,
+                           ActiveFetch fetch, EnergyDataCallback callback) {
+        List<FetchStrategy> rest = new ArrayList<>(plan.subList(index + 1, plan.size()));
+        rest.remove(FetchStrategy.ENERGY_CAPABILITY_SEARCH);
+        
+        HedgedFetch hedged = new HedgedFetch(buildingName, buildingId, fetch, callback,
+            () -> runStrategies(rest, 0, buildingName, buildingId, fetch, callback));
+        hedged.start(hedgeDelayMs());
+    }
+    
+    /**
+     * Get how long the direct lookup may run before it is hedged: the
+     * configured latency percentile of recent calls, within fixed bounds
+     */
+    private long hedgeDelayMs() {
+        long percentileMs = HttpClientProvider.getMetrics().getLatencyPercentile(WillowApiV3Config.HEDGE_LATENCY_PERCENTILE);
+        if (percentileMs <= 0) {
+            return WillowApiV3Config.HEDGE_DEFAULT_DELAY_MS;
+        }
+        return Math.max(WillowApiV3Config.HEDGE_MIN_DELAY_MS, Math.min(WillowApiV3Config.HEDGE_MAX_DELAY_MS, percentileMs));
+    }
+    
+    /**
+     * Race between the direct lookup and the capability search for one
+     * building. Each branch runs in its own child scope so the loser can be
+     * cancelled without touching the rest of the fetch.
+     */
+    private class HedgedFetch {
+        private final String buildingName;
+        private final String buildingId;
+        private final ActiveFetch fetch;
+        private final EnergyDataCallback callback;
+        private final Runnable fallThrough;
+        private final Runnable hedgeTask = () -> startSearch(true);
+        
+        private ActiveFetch primary;
+        private ActiveFetch hedge;
+        private int running = 0;
+        private boolean hedged = false;
+        private boolean settled = false;
+        private EnergyDataResponse poorResult;
+        
+        HedgedFetch(String buildingName, String buildingId, ActiveFetch fetch, EnergyDataCallback callback,
+                    Runnable fallThrough) {
+            this.buildingName = buildingName;
+            this.buildingId = buildingId;
+            this.fetch = fetch;
+            this.callback = callback;
+            this.fallThrough = fallThrough;
+        }
+        
+        void start(long hedgeDelayMs) {
+            synchronized (this) {
+                primary = fetch.branch();
+                running++;
+            }
+            mainHandler.postDelayed(hedgeTask, hedgeDelayMs);
+            testDirectTimeSeries(buildingName, buildingId, primary, branchCallback(primary), () -> finish(primary));
+        }
+        
+        private void startSearch(boolean hedging) {
+            synchronized (this) {
+                if (settled || hedge != null || fetch.scope.isCancelled()) return;
+                hedge = fetch.branch();
+                hedged = hedging;
+                running++;
+            }
+            if (hedging) {
+                hedgeCount.incrementAndGet();
+                Log.d(TAG, "Direct time series slow for " + buildingName + ", hedging with capability search");
+            }
+            findEnergyCapabilities(buildingName, buildingId, hedge, branchCallback(hedge), () -> finish(hedge));
+        }
+        
+        private EnergyDataCallback branchCallback(ActiveFetch branch) {
+            return new EnergyDataCallback() {
+                @Override
+                public void onSuccess(EnergyDataResponse data) {
+                    if (data.isDataAvailable()) {
+                        win(branch, data);
+                    } else {
+                        synchronized (HedgedFetch.this) {
+                            if (poorResult == null) poorResult = data;
+                        }
+                        finish(branch);
+                    }
+                }
+                
+                @Override
+                public void onError(String error) {
+                    finish(branch);
+                }
+            };
+        }
+        
+        private void win(ActiveFetch branch, EnergyDataResponse data) {
+            synchronized (this) {
+                if (settled) return;
+                settled = true;
+            }
+            mainHandler.removeCallbacks(hedgeTask);
+            ActiveFetch loser = branch == primary ? hedge : primary;
+            if (loser != null) {
+                loser.scope.cancel();
+            }
+            releaseBranches();
+            
+            if (branch == hedge && hedged) {
+                hedgeWinCount.incrementAndGet();
+                Log.d(TAG, "Capability search beat direct time series for " + buildingName);
+            }
+            callback.onSuccess(data);
+        }
+        
+        private void finish(ActiveFetch branch) {
+            EnergyDataResponse result;
+            synchronized (this) {
+                if (settled) return;
+                running--;
+                if (branch == primary && hedge == null) {
+                    // Direct lookup gave nothing usable before the hedge was due, search now
+                    mainHandler.removeCallbacks(hedgeTask);
+                    mainHandler.post(() -> startSearch(false));
+                    return;
+                }
+                if (running > 0) return;
+                settled = true;
+                result = poorResult;
+            }
+            releaseBranches();
+            
+            if (result != null) {
+                callback.onSuccess(result);
+            } else {
+                fallThrough.run();
+            }
+        }
+        
+        private void releaseBranches() {
+            fetch.scope.release(primary.scope);
+            if (hedge != null) {
+                fetch.scope.release(hedge.scope);
+            }
+        }
+    }
+    
+    /**
+     * Remember which strategy produced data for a building
+     */
+    private void onStrategySucceeded(String buildingId, FetchStrategy strategy) {
+        if (preferredStrategies.put(buildingId, strategy) != strategy) {
+            Log.d(TAG, "Preferred strategy for " + buildingId + " is now " + strategy);
+        }
+    }
     
-    public WillowEnergyDataManager() {
-        this.apiService = WillowApiClient.getApiService();
+    /**
+     * Get the circuit breaker guarding an endpoint
+     */
+    private CircuitBreaker breaker(String endpoint) {
+        CircuitBreaker breaker = circuitBreakers.get(endpoint);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(endpoint);
+            CircuitBreaker existing = circuitBreakers.putIfAbsent(endpoint, breaker);
+            if (existing != null) {
+                breaker = existing;
+            }
+        }
+        return breaker;
     }
     
-    public WillowEnergyDataManager(String baseUrl) {
-        this.apiService = WillowApiClient.getApiService(baseUrl);
+    /**
+     * Lane, deadline and cancellation scope of one building (or all-buildings) fetch
+     */
+    private static class ActiveFetch {
+        volatile RequestPriority priority;
+        final long deadlineAt;
+        final CallScope scope;
+        final ActiveFetch parent;
+        
+        ActiveFetch(RequestPriority priority, long deadlineAt, CallScope scope) {
+            this(priority, deadlineAt, scope, null);
+        }
+        
+        private ActiveFetch(RequestPriority priority, long deadlineAt, CallScope scope, ActiveFetch parent) {
+            this.priority = priority;
+            this.deadlineAt = deadlineAt;
+            this.scope = scope;
+            this.parent = parent;
+        }
+        
+        ActiveFetch copy() {
+            return new ActiveFetch(getPriority(), deadlineAt, scope);
+        }
+        
+        /**
+         * Get a branch of this fetch whose calls can be cancelled on their own.
+         * It follows the fetch's lane, so a later promotion applies to it too.
+         */
+        ActiveFetch branch() {
+            return new ActiveFetch(priority, deadlineAt, scope.newChild(), this);
+        }
+        
+        RequestPriority getPriority() {
+            return parent != null ? parent.getPriority() : priority;
+        }
     }
     
     /**
-     * Interface for energy data callbacks
+     * Move the rest of a running fetch to the user lane when a user call joins it
      */
-    public interface EnergyDataCallback {
-        void onSuccess(EnergyDataResponse data);
-        void onError(String error);
+    private void promote(String key, RequestPriority priority) {
+        ActiveFetch fetch = activeFetches.get(key);
+        if (fetch != null && priority == RequestPriority.USER) {
+            fetch.priority = priority;
+        }
     }
     
-    public interface AuthenticationCallback {
-        void onSuccess(String token);
-        void onError(String error);
+    /**
+     * Get the service for the priority lane of a fetch
+     */
+    private WillowApiService service(ActiveFetch fetch) {
+        return fetch.getPriority() == RequestPriority.USER ? priorityApiService : apiService;
     }
     
     /**
-     * Authenticate with Willow API
+     * Enqueue a call in the scope of a fetch, bounded by that fetch's deadline.
+     * Once the deadline has passed the call is not sent and fails straight
+     * away, so the chain falls through to fallback data.
      */
-    public void authenticate(String clientId, String clientSecret, AuthenticationCallback callback) {
-        Log.d(TAG, "Authenticating with Willow API...");
-        
-        Call<WillowOAuthResponse> call = apiService.getOAuthToken(
-            clientId, 
-            clientSecret, 
-            WillowApiV3Config.GRANT_TYPE
-        );
-        
-        call.enqueue(new Callback<WillowOAuthResponse>() {
-            @Override
-            public void onResponse(Call<WillowOAuthResponse> call, Response<WillowOAuthResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    WillowOAuthResponse tokenResponse = response.body();
-                    
-                    if (tokenResponse.isValid()) {
-                        accessToken = tokenResponse.getAuthorizationHeader();
-                        tokenExpirationTime = System.currentTimeMillis() + (tokenResponse.getExpiresIn() * 1000L);
-                        
-                        Log.d(TAG, "Authentication successful");
-                        callback.onSuccess(accessToken);
-                    } else {
-                        Log.e(TAG, "Invalid token response");
-                        callback.onError("Invalid authentication response");
-                    }
-                } else {
-                    String error = "Authentication failed: " + response.code();
-                    Log.e(TAG, error);
-                    callback.onError(error);
-                }
-            }
-            
-            @Override
-            public void onFailure(Call<WillowOAuthResponse> call, Throwable t) {
-                String error = "Authentication network error: " + t.getMessage();
-                Log.e(TAG, error, t);
-                callback.onError(error);
+    private <T> void enqueue(ActiveFetch fetch, Call<T> call, Callback<T> callback) {
+        long remainingMs = fetch.deadlineAt - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+            // Cancel first so breakers do not count this as an endpoint failure
+            call.cancel();
+            if (!fetch.scope.isCancelled()) {
+                callback.onFailure(call, new InterruptedIOException("Fetch deadline exceeded"));
             }
-        });
+            return;
+        }
+        fetch.scope.enqueue(call, remainingMs, callback);
     }
     
     /**
-     * Get energy data for a specific building
+     * Turn hedged fetches on or off. When on, a direct time series lookup that
+     * runs past the recent latency percentile is raced against the capability
+     * search, which trims tail latency on slow tenants at the cost of extra calls.
      */
-    public void getEnergyData(String buildingTwinId, EnergyDataCallback callback) {
-        if (!isAuthenticated()) {
-            callback.onError("Not authenticated. Please authenticate first.");
-            return;
+    public void setHedgedFetchEnabled(boolean enabled) {
+        hedgedFetchEnabled = enabled;
+    }
+    
+    /**
+     * Number of fetches where the capability search was started as a hedge
+     */
+    public int getHedgeCount() {
+        return hedgeCount.get();
+    }
+    
+    /**
+     * Number of hedges that delivered data before the direct lookup
+     */
+    public int getHedgeWinCount() {
+        return hedgeWinCount.get();
+    }
+    
+    /**
+     * Get a scope for one screen's requests. Track the screen's futures in it
+     * and cancel it in onDestroy: that cancels those futures and the Willow
+     * calls behind them that no other screen is waiting on. cancelAll()
+     * cancels it too.
+     */
+    public CallScope newScope() {
+        return scope.newChild();
+    }
+    
+    /**
+     * Cancel every Willow call started so far. Pending callbacks are dropped
+     * and pending futures cancelled; the manager can keep being used
+     * afterwards. The shared instance serves every screen, so a screen that
+     * goes away should cancel its own newScope() instead.
+     */
+    public void cancelAll() {
+        // Forget the fetches first, so cancelling them drops their callbacks instead of failing them
+        synchronized (inFlightBuildings) {
+            synchronized (inFlightAllBuildings) {
+                activeFetches.clear();
+                inFlightBuildings.clear();
+                inFlightAllBuildings.clear();
+            }
         }
         
-        final String buildingName = buildingNames.getOrDefault(buildingTwinId, "UNKNOWN");
-        
-        Log.d(TAG, "Fetching energy data for building: " + buildingName + " (" + buildingTwinId + ")");
+        CallScope cancelled = scope;
+        scope = new CallScope();
+        cancelled.cancel();
         
-        // Use the new debugging approach to handle 500 errors better
-        testApiEndpoints(buildingTwinId, callback);
+        // Their callbacks were just dropped, so fail them instead of leaving them hanging
+        for (CompletableFuture<?> future : new ArrayList<>(pendingFutures)) {
+            future.cancel(false);
+        }
+    }
+    
+    /**
+     * Feed an HTTP response into the endpoint's circuit breaker. Only server
+     * errors and throttling count against the endpoint; 4xx means it is up.
+     */
+    private void recordResult(String endpoint, Response<?> response) {
+        if (response.code() >= 500 || response.code() == 429) {
+            breaker(endpoint).recordFailure();
+        } else {
+            breaker(endpoint).recordSuccess();
+        }
     }
     
     /**
      * Find energy capability twins for the building - Simplified approach to avoid 500 errors
      */
-    private void findEnergyCapabilities(DigitalTwin building, String buildingName, EnergyDataCallback callback) {
+    private void findEnergyCapabilities(String buildingName, String buildingId, ActiveFetch fetch,
+                                        EnergyDataCallback callback, Runnable next) {
         Log.d(TAG, "Searching for energy capabilities using simplified approach");
-        
-        // Try a simpler search first - just search for energy model types
-        Map<String, Object> searchRequest = new HashMap<>();
-        
-        // Simplified model filter - search one model at a time to avoid complex queries
-        Map<String, Object> modelFilter = new HashMap<>();
-        modelFilter.put("modelIds", Arrays.asList(WillowApiV3Config.ENERGY_CONSUMPTION_MODEL));
-        modelFilter.put("exactModelMatch", false);
-        
-        searchRequest.put("modelFilter", modelFilter);
-        searchRequest.put("pageSize", 20); // Reduced page size
-        
-        Call<TwinsResponse> searchCall = apiService.searchTwins(accessToken, searchRequest);
-        
-        searchCall.enqueue(new Callback<TwinsResponse>() {
-            @Override
-            public void onResponse(Call<TwinsResponse> call, Response<TwinsResponse> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    TwinsResponse twinsResponse = response.body();
-                    
-                    if (twinsResponse.hasTwins()) {
-                        Log.d(TAG, "Found " + twinsResponse.getContent().size() + " energy capabilities");
-                        
-                        // Filter capabilities that might be related to our building
-                        List<String> capabilityIds = new ArrayList<>();
-                        for (DigitalTwin twin : twinsResponse.getContent()) {
-                            // Simple filtering - include all found capabilities for now
-                            capabilityIds.add(twin.getId());
-                            Log.d(TAG, "Found energy capability: " + twin.getName() + " (" + twin.getId() + ")");
-                        }
-                        
-                        if (!capabilityIds.isEmpty()) {
-                            getTimeSeriesData(capabilityIds, buildingName, building.getId(), callback);
-                        } else {
-                            Log.w(TAG, "No valid energy capabilities found");
-                            EnergyDataResponse fallbackData = createFallbackData(buildingName, building.getId());
-                            callback.onSuccess(fallbackData);
-                        }
-                    } else {
-                        Log.w(TAG, "No energy capabilities found in response");
-                        // Try alternative approach - search for power consumption model
-                        searchForAlternativeCapabilities(buildingName, building.getId(), callback);
-                    }
-                } else {
-                    String errorMsg = "Failed to search energy capabilities: " + response.code();
-                    if (response.errorBody() != null) {
-                        try {
-                            errorMsg += " - " + response.errorBody().string();
-                        } catch (Exception e) {
-                            errorMsg += " (could not read error body)";
-                        }
-                    }
-                    Log.e(TAG, errorMsg);
-                    
-                    // Try alternative approach before falling back
-                    searchForAlternativeCapabilities(buildingName, building.getId(), callback);
-                }
-            }
-            
-            @Override
-            public void onFailure(Call<TwinsResponse> call, Throwable t) {
-                Log.e(TAG, "Network error searching capabilities: " + t.getMessage(), t);
-                // Try alternative approach before falling back
-                searchForAlternativeCapabilities(buildingName, building.getId(), callback);
-            }
-        });
+        searchCapabilities(WillowApiV3Config.ENERGY_CONSUMPTION_MODEL, FetchStrategy.ENERGY_CAPABILITY_SEARCH,
+            buildingName, buildingId, fetch, callback, next);
     }
     
     /**
      * Alternative search approach using different model types
      */
-    private void searchForAlternativeCapabilities(String buildingName, String buildingId, EnergyDataCallback callback) {
+    private void searchForAlternativeCapabilities(String buildingName, String buildingId, ActiveFetch fetch,
+                                                  EnergyDataCallback callback, Runnable next) {
         Log.d(TAG, "Trying alternative search for power consumption capabilities");
+        searchCapabilities(WillowApiV3Config.POWER_CONSUMPTION_MODEL, FetchStrategy.POWER_CAPABILITY_SEARCH,
+            buildingName, buildingId, fetch, callback, next);
+    }
+    
+    /**
+     * Page through the building's capability twins of a model, then fetch their latest values
+     */
+    private void searchCapabilities(String modelId, FetchStrategy strategy, String buildingName, String buildingId,
+                                    ActiveFetch fetch, EnergyDataCallback callback, Runnable next) {
+        if (!breaker(ENDPOINT_SEARCH).allowRequest()) {
+            Log.w(TAG, "Twin search circuit open, skipping " + strategy);
+            next.run();
+            return;
+        }
         
+        // Simplified model filter - search one model at a time to avoid complex queries
         Map<String, Object> searchRequest = new HashMap<>();
         Map<String, Object> modelFilter = new HashMap<>();
-        modelFilter.put("modelIds", Arrays.asList(WillowApiV3Config.POWER_CONSUMPTION_MODEL));
+        modelFilter.put("modelIds", Arrays.asList(modelId));
         modelFilter.put("exactModelMatch", false);
-        
         searchRequest.put("modelFilter", modelFilter);
-        searchRequest.put("pageSize", 20);
+        // Only twins located in this building; unscoped, the search pages through the whole tenant
+        searchRequest.put("locationId", buildingId);
+        
+        CallScope pagerScope = fetch.scope;
+        TwinSearchPager pager = new TwinSearchPager(service(fetch), tokenManager, searchRequest,
+            WillowApiV3Config.TWIN_SEARCH_PAGE_SIZE, WillowApiV3Config.MAX_IN_FLIGHT_SEARCH_PAGES,
+            WillowApiV3Config.MAX_SEARCH_PAGES, breaker(ENDPOINT_SEARCH), pagerScope, fetch.deadlineAt);
         
-        Call<TwinsResponse> searchCall = apiService.searchTwins(accessToken, searchRequest);
+        pagerScope.track(pager);
         
-        searchCall.enqueue(new Callback<TwinsResponse>() {
+        List<String> capabilityIds = new ArrayList<>();
+        pager.start(new TwinSearchPager.PageListener() {
             @Override
-            public void onResponse(Call<TwinsResponse> call, Response<TwinsResponse> response) {
-                if (response.isSuccessful() && response.body() != null && response.body().hasTwins()) {
-                    TwinsResponse twinsResponse = response.body();
-                    Log.d(TAG, "Found " + twinsResponse.getContent().size() + " power capabilities");
-                    
-                    List<String> capabilityIds = new ArrayList<>();
-                    for (DigitalTwin twin : twinsResponse.getContent()) {
-                        capabilityIds.add(twin.getId());
-                        Log.d(TAG, "Found power capability: " + twin.getName() + " (" + twin.getId() + ")");
-                    }
-                    
-                    getTimeSeriesData(capabilityIds, buildingName, buildingId, callback);
+            public void onPage(List<DigitalTwin> twins, int pageIndex) {
+                // Simple filtering - include all found capabilities for now
+                for (DigitalTwin twin : twins) {
+                    capabilityIds.add(twin.getId());
+                }
+                Log.d(TAG, "Capability page " + pageIndex + ": " + twins.size() + " twins (" + capabilityIds.size() + " total)");
+            }
+            
+            @Override
+            public void onComplete(int pageCount) {
+                pagerScope.release(pager);
+                if (capabilityIds.isEmpty()) {
+                    Log.w(TAG, "No capabilities found for " + modelId);
+                    next.run();
                 } else {
-                    Log.w(TAG, "Alternative search also failed, trying direct building twin approach");
-                    // Try direct approach with the building twin ID
-                    tryDirectBuildingApproach(buildingName, buildingId, callback);
+                    Log.d(TAG, "Found " + capabilityIds.size() + " capabilities for " + modelId + " in " + pageCount + " pages");
+                    getTimeSeriesData(capabilityIds, buildingName, buildingId, strategy, fetch, callback, next);
                 }
             }
             
             @Override
-            public void onFailure(Call<TwinsResponse> call, Throwable t) {
-                Log.e(TAG, "Alternative search failed: " + t.getMessage(), t);
-                // Try direct approach as last resort
-                tryDirectBuildingApproach(buildingName, buildingId, callback);
+            public void onError(String error, int pagesReceived) {
+                pagerScope.release(pager);
+                Log.e(TAG, "Capability search failed after " + pagesReceived + " pages: " + error);
+                if (capabilityIds.isEmpty()) {
+                    next.run();
+                } else {
+                    // Use the partial result rather than discarding the pages we have
+                    getTimeSeriesData(capabilityIds, buildingName, buildingId, strategy, fetch, callback, next);
+                }
             }
         });
     }
@@ -235,36 +1167,46 @@ public class WillowEnergyDataManager {
     /**
      * Try to get time series data directly from the building twin
      */
-    private void tryDirectBuildingApproach(String buildingName, String buildingId, EnergyDataCallback callback) {
+    private void tryDirectBuildingApproach(String buildingName, String buildingId, ActiveFetch fetch,
+                                           EnergyDataCallback callback, Runnable next) {
+        if (!breaker(ENDPOINT_IDS_LATEST).allowRequest()) {
+            Log.w(TAG, "Latest values circuit open, skipping direct building approach");
+            next.run();
+            return;
+        }
+        
         Log.d(TAG, "Attempting direct building twin approach for time series data");
         
         // Try to get time series data directly using the building twin ID
         List<String> directIds = Arrays.asList(buildingId);
         
-        Call<List<TimeSeriesPoint>> directCall = apiService.getLatestTimeSeriesValues(
-            accessToken, directIds, true
+        Call<List<TimeSeriesPoint>> directCall = service(fetch).getLatestTimeSeriesValues(
+            tokenManager.getAuthorizationHeader(), directIds, true
         );
         
-        directCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
+        enqueue(fetch, directCall, new Callback<List<TimeSeriesPoint>>() {
             @Override
             public void onResponse(Call<List<TimeSeriesPoint>> call, Response<List<TimeSeriesPoint>> response) {
+                recordResult(ENDPOINT_IDS_LATEST, response);
                 if (response.isSuccessful() && response.body() != null && !response.body().isEmpty()) {
                     Log.d(TAG, "Direct approach succeeded! Found time series data");
                     List<TimeSeriesPoint> timeSeriesData = response.body();
-                    EnergyDataResponse energyData = processTimeSeriesData(timeSeriesData, buildingName, buildingId);
-                    callback.onSuccess(energyData);
+                    capabilityCache.put(buildingId, directIds);
+                    onStrategySucceeded(buildingId, FetchStrategy.DIRECT_BUILDING);
+                    processAndDeliver(timeSeriesData, buildingName, buildingId, callback);
                 } else {
-                    Log.w(TAG, "Direct approach failed, using fallback data. Response code: " + response.code());
-                    EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                    callback.onSuccess(fallbackData);
+                    Log.w(TAG, "Direct approach failed. Response code: " + response.code());
+                    next.run();
                 }
             }
             
             @Override
             public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
+                if (!call.isCanceled()) {
+                    breaker(ENDPOINT_IDS_LATEST).recordFailure();
+                }
                 Log.e(TAG, "Direct approach network error: " + t.getMessage(), t);
-                EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                callback.onSuccess(fallbackData);
+                next.run();
             }
         });
     }
@@ -272,101 +1214,268 @@ public class WillowEnergyDataManager {
     /**
      * Get time series data for energy capabilities
      */
-    private void getTimeSeriesData(List<String> capabilityIds, String buildingName, String buildingId, EnergyDataCallback callback) {
+    private void getTimeSeriesData(List<String> capabilityIds, String buildingName, String buildingId,
+                                   FetchStrategy strategy, ActiveFetch fetch, EnergyDataCallback callback,
+                                   Runnable next) {
         if (capabilityIds.isEmpty()) {
             Log.w(TAG, "No capability IDs provided for time series data");
-            EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-            callback.onSuccess(fallbackData);
+            next.run();
             return;
         }
         
-        Log.d(TAG, "Requesting time series data for " + capabilityIds.size() + " capabilities");
+        if (!breaker(ENDPOINT_IDS_LATEST).allowRequest()) {
+            Log.w(TAG, "Latest values circuit open, skipping capability time series");
+            next.run();
+            return;
+        }
         
-        Call<List<TimeSeriesPoint>> latestCall = apiService.getLatestTimeSeriesValues(
-            accessToken, capabilityIds, true
-        );
+        Log.d(TAG, "Requesting time series data for " + capabilityIds.size() + " capabilities");
         
-        latestCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
+        getLatestValues(capabilityIds, fetch, new LatestValuesCallback() {
             @Override
-            public void onResponse(Call<List<TimeSeriesPoint>> call, Response<List<TimeSeriesPoint>> response) {
-                if (response.isSuccessful() && response.body() != null) {
-                    List<TimeSeriesPoint> timeSeriesData = response.body();
-                    
-                    if (!timeSeriesData.isEmpty()) {
-                        Log.d(TAG, "Retrieved " + timeSeriesData.size() + " time series points");
-                        
-                        // Log first few points for debugging
-                        for (int i = 0; i < Math.min(3, timeSeriesData.size()); i++) {
-                            TimeSeriesPoint point = timeSeriesData.get(i);
-                            Log.d(TAG, "Time series point " + i + ": " + 
-                                 point.getScalarValue() + " at " + point.getSourceTimestamp());
+            public void onPoints(List<TimeSeriesPoint> timeSeriesData) {
+                if (!timeSeriesData.isEmpty()) {
+                    Log.d(TAG, "Retrieved " + timeSeriesData.size() + " time series points");
+                    // Cache only the capabilities that reported, so later polls ask for nothing else
+                    Set<String> requested = new HashSet<>(capabilityIds);
+                    Set<String> reporting = new LinkedHashSet<>();
+                    for (TimeSeriesPoint point : timeSeriesData) {
+                        if (requested.contains(point.getTwinId())) {
+                            reporting.add(point.getTwinId());
                         }
-                        
-                        // Process the real data
-                        EnergyDataResponse energyData = processTimeSeriesData(
-                            timeSeriesData, buildingName, buildingId
-                        );
-                        callback.onSuccess(energyData);
-                    } else {
-                        Log.w(TAG, "Time series response was empty");
-                        EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                        callback.onSuccess(fallbackData);
                     }
-                } else {
-                    String errorMsg = "Failed to get time series data: " + response.code();
-                    if (response.errorBody() != null) {
-                        try {
-                            errorMsg += " - " + response.errorBody().string();
-                        } catch (Exception e) {
-                            errorMsg += " (could not read error body)";
-                        }
+                    if (!reporting.isEmpty()) {
+                        capabilityCache.put(buildingId, new ArrayList<>(reporting));
                     }
-                    Log.e(TAG, errorMsg);
-                    EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                    callback.onSuccess(fallbackData);
+                    onStrategySucceeded(buildingId, strategy);
+                    processAndDeliver(timeSeriesData, buildingName, buildingId, callback);
+                } else {
+                    Log.w(TAG, "Time series response was empty");
+                    next.run();
                 }
             }
             
             @Override
-            public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
-                Log.e(TAG, "Network error getting time series: " + t.getMessage(), t);
-                EnergyDataResponse fallbackData = createFallbackData(buildingName, buildingId);
-                callback.onSuccess(fallbackData);
+            public void onFailure(String error) {
+                Log.e(TAG, "Failed to get time series data: " + error);
+                next.run();
             }
         });
     }
     
     /**
-     * Process time series data into energy response
+     * Receives the merged result of a possibly chunked latest-values request
      */
-    private EnergyDataResponse processTimeSeriesData(List<TimeSeriesPoint> timeSeriesData, 
-                                                   String buildingName, String buildingId) {
-        EnergyDataResponse energyData = new EnergyDataResponse(buildingName, buildingId);
+    private interface LatestValuesCallback {
+        /**
+         * @param points readings from every request that succeeded; empty if they returned none
+         */
+        void onPoints(List<TimeSeriesPoint> points);
+        
+        /**
+         * Every request failed
+         */
+        void onFailure(String error);
+    }
+    
+    /**
+     * Fetch latest values for any number of capabilities. The IDs are sent
+     * LATEST_VALUES_MAX_IDS per time-series/ids/latest request, in parallel,
+     * and the readings merged once every request has answered. A request
+     * that fails only loses its own chunk.
+     */
+    private void getLatestValues(List<String> capabilityIds, ActiveFetch fetch, LatestValuesCallback callback) {
+        if (capabilityIds.isEmpty()) {
+            callback.onPoints(Collections.<TimeSeriesPoint>emptyList());
+            return;
+        }
         
-        // Find the most recent valid energy reading
-        TimeSeriesPoint latestPoint = null;
-        double totalEnergy = 0.0;
-        int validPointCount = 0;
+        int chunkSize = WillowApiV3Config.LATEST_VALUES_MAX_IDS;
+        int chunks = (capabilityIds.size() + chunkSize - 1) / chunkSize;
+        List<TimeSeriesPoint> merged = Collections.synchronizedList(new ArrayList<TimeSeriesPoint>());
+        AtomicInteger pending = new AtomicInteger(chunks);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicReference<String> firstError = new AtomicReference<>();
         
-        for (TimeSeriesPoint point : timeSeriesData) {
-            if (point.getScalarValue() != null && 
-                (point.getDataQuality() == null || point.getDataQuality().isGoodQuality())) {
-                
-                if (latestPoint == null || 
-                    point.getSourceTimestamp().compareTo(latestPoint.getSourceTimestamp()) > 0) {
-                    latestPoint = point;
+        Runnable chunkDone = () -> {
+            if (pending.decrementAndGet() != 0) return;
+            if (succeeded.get() > 0) {
+                callback.onPoints(new ArrayList<>(merged));
+            } else {
+                callback.onFailure(firstError.get());
+            }
+        };
+        
+        for (int from = 0; from < capabilityIds.size(); from += chunkSize) {
+            List<String> chunk = new ArrayList<>(
+                capabilityIds.subList(from, Math.min(from + chunkSize, capabilityIds.size())));
+            Call<List<TimeSeriesPoint>> latestCall = service(fetch).getLatestTimeSeriesValues(
+                tokenManager.getAuthorizationHeader(), chunk, true
+            );
+            
+            enqueue(fetch, latestCall, new Callback<List<TimeSeriesPoint>>() {
+                @Override
+                public void onResponse(Call<List<TimeSeriesPoint>> call, Response<List<TimeSeriesPoint>> response) {
+                    recordResult(ENDPOINT_IDS_LATEST, response);
+                    if (response.isSuccessful() && response.body() != null) {
+                        merged.addAll(response.body());
+                        succeeded.incrementAndGet();
+                    } else {
+                        String error = "HTTP " + response.code();
+                        if (response.errorBody() != null) {
+                            try {
+                                error += " - " + response.errorBody().string();
+                            } catch (Exception e) {
+                                error += " (could not read error body)";
+                            }
+                        }
+                        firstError.compareAndSet(null, error);
+                    }
+                    chunkDone.run();
                 }
                 
-                totalEnergy += point.getScalarValue();
-                validPointCount++;
+                @Override
+                public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
+                    if (!call.isCanceled()) {
+                        breaker(ENDPOINT_IDS_LATEST).recordFailure();
+                    }
+                    firstError.compareAndSet(null, "network error: " + t.getMessage());
+                    chunkDone.run();
+                }
+            });
+        }
+    }
+    
+    /**
+     * Stream historical time series for one or more twins into a sink, following
+     * continuation tokens. Points are decoded as they arrive rather than being
+     * materialized into a TimeSeriesResponse, so long ranges stay cheap on memory.
+     * The sink and callback are invoked on a background thread. This is the way
+     * to fetch history; the list-returning time-series endpoints are deprecated.
+     */
+    public void streamTimeSeries(List<String> twinIds, String startTime, String endTime,
+                                 TimeSeriesSink sink, TimeSeriesStreamCallback callback) {
+        if (twinIds == null || twinIds.isEmpty()) {
+            callback.onError("No twin IDs to stream");
+            return;
+        }
+        
+        final List<String> ids = new ArrayList<>(twinIds);
+        final CallScope streamScope = scope;
+        // Streamed history lands in the rollups too, filling in buckets that polling missed
+        final TimeSeriesSink rollupSink = (twinId, sourceTimestamp, value, qualityFlags) -> {
+            rollups.add(twinId, sourceTimestamp, value, qualityFlags);
+            sink.onPoint(twinId, sourceTimestamp, value, qualityFlags);
+        };
+        streamExecutor.execute(() -> {
+            long startNanos = System.nanoTime();
+            int totalPoints = 0;
+            String continuationToken = null;
+            
+            try {
+                for (int page = 0; page < WillowApiV3Config.MAX_TIME_SERIES_PAGES; page++) {
+                    if (!breaker(ENDPOINT_TIME_SERIES).allowRequest()) {
+                        callback.onError("Time series circuit open");
+                        return;
+                    }
+                    
+                    Call<ResponseBody> call = ids.size() == 1
+                        ? apiService.streamTimeSeries(tokenManager.getAuthorizationHeader(), ids.get(0),
+                            startTime, endTime, WillowApiV3Config.TIME_SERIES_STREAM_PAGE_SIZE, true, continuationToken)
+                        : apiService.streamTimeSeriesForMultipleTwins(tokenManager.getAuthorizationHeader(), ids,
+                            startTime, endTime, WillowApiV3Config.TIME_SERIES_STREAM_PAGE_SIZE, true, continuationToken);
+                    
+                    streamScope.track(call);
+                    Response<ResponseBody> response;
+                    try {
+                        response = call.execute();
+                    } finally {
+                        streamScope.release(call);
+                    }
+                    recordResult(ENDPOINT_TIME_SERIES, response);
+                    
+                    if (!response.isSuccessful() || response.body() == null) {
+                        if (response.errorBody() != null) {
+                            response.errorBody().close();
+                        }
+                        callback.onError("Time series stream failed: " + response.code());
+                        return;
+                    }
+                    
+                    TimeSeriesStreamParser.Result result;
+                    try (ResponseBody body = response.body()) {
+                        result = TimeSeriesStreamParser.parse(body.charStream(), rollupSink);
+                    }
+                    
+                    if (result.getErrorMessage() != null) {
+                        Log.w(TAG, "Time series page reported error: " + result.getErrorMessage());
+                    }
+                    
+                    totalPoints += result.getPointCount();
+                    continuationToken = result.getContinuationToken();
+                    if (continuationToken == null || continuationToken.isEmpty()) {
+                        break;
+                    }
+                }
+            } catch (Exception e) {
+                if (streamScope.isCancelled()) return;
+                breaker(ENDPOINT_TIME_SERIES).recordFailure();
+                Log.e(TAG, "Time series stream error: " + e.getMessage(), e);
+                callback.onError("Time series stream error: " + e.getMessage());
+                return;
             }
+            
+            long elapsedMs = (System.nanoTime() - startNanos) / 1_000_000;
+            Log.d(TAG, "Streamed " + totalPoints + " points for " + ids.size() + " twins in " + elapsedMs + " ms");
+            callback.onComplete(totalPoints);
+        });
+    }
+    
+    /**
+     * Process a response on the processing thread and pass the result on from there
+     */
+    private void processAndDeliver(List<TimeSeriesPoint> timeSeriesData, String buildingName, String buildingId,
+                                   EnergyDataCallback callback) {
+        processingExecutor.execute(() -> callback.onSuccess(processTimeSeriesData(timeSeriesData, buildingName, buildingId)));
+    }
+    
+    /**
+     * Run on the main thread, where callers of the callback API expect their results
+     */
+    private void runOnMain(Runnable action) {
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            action.run();
+        } else {
+            mainHandler.post(action);
+        }
+    }
+    
+    /**
+     * Process time series data into energy response
+     */
+    private EnergyDataResponse processTimeSeriesData(List<TimeSeriesPoint> timeSeriesData, 
+                                                   String buildingName, String buildingId) {
+        return processTimeSeriesData(TimeSeriesBatch.fromPoints(timeSeriesData), buildingName, buildingId);
+    }
+    
+    private EnergyDataResponse processTimeSeriesData(TimeSeriesBatch batch, String buildingName, String buildingId) {
+        EnergyDataResponse energyData = new EnergyDataResponse(buildingName, buildingId);
+        rollups.addAll(batch);
+        
+        // Log first few points for debugging
+        for (int i = 0; i < Math.min(3, batch.size()); i++) {
+            Log.d(TAG, "Time series point " + i + ": " + batch.getValue(i) + " at " + batch.getTimestamp(i));
         }
         
-        if (latestPoint != null) {
+        // Find the most recent valid energy reading by time, not by timestamp string
+        int latest = batch.latestIndex(TimeSeriesPoint.DataQuality.BAD_QUALITY_MASK);
+        
+        if (latest >= 0) {
             // Set real data
-            energyData.setCurrentUsageKW(latestPoint.getValueAsKW());
-            energyData.setDailyTotalKWh(totalEnergy);
-            energyData.setLastUpdated(latestPoint.getSourceTimestamp());
+            energyData.setCurrentUsageKW(batch.getValue(latest));
+            energyData.setDailyTotalKWh(integrateDailyEnergy(buildingId, batch.getTimestamp(latest),
+                batch.getValue(latest), batch.getQualityFlags(latest)));
+            energyData.setLastUpdated(Timestamps.format(batch.getTimestamp(latest)));
             energyData.setDataAvailable(true);
             energyData.setStatus("Live Data");
             
@@ -382,15 +1491,37 @@ public class WillowEnergyDataManager {
         return energyData;
     }
     
+    /**
+     * Add a reading to the building's running daily kWh
+     *
+     * @return kWh used so far today, or null until today has at least one integrated interval
+     */
+    private Double integrateDailyEnergy(String buildingId, long epochMillis, double kW, int qualityFlags) {
+        EnergyIntegrator integrator = dailyEnergy.computeIfAbsent(buildingId, id -> {
+            EnergyIntegrator created = new EnergyIntegrator(TimeZone.getDefault(), WillowApiV3Config.ENERGY_MAX_GAP_MS);
+            if (readingStore != null) {
+                // Pick up today's readings from earlier runs instead of starting the day at zero
+                long since = System.currentTimeMillis() - 24 * 60 * 60 * 1000L - WillowApiV3Config.ENERGY_MAX_GAP_MS;
+                readingStore.query(id, since, epochMillis, created::add);
+            }
+            return created;
+        });
+        
+        integrator.add(epochMillis, kW, qualityFlags);
+        long now = System.currentTimeMillis();
+        return integrator.getCoveredMillis(now) > 0 ? integrator.getKWhForDay(now) : null;
+    }
+    
     /**
      * Create fallback data when real data is not available
      */
     private EnergyDataResponse createFallbackData(String buildingName, String buildingId) {
+        fallbackCount.incrementAndGet();
         EnergyDataResponse fallbackData = new EnergyDataResponse(buildingName, buildingId);
         
         // Use simulated values similar to original logic but mark as fallback
         int baseUsage = getBaseUsageForBuilding(buildingName);
-        Random random = new Random();
+        Random random = ThreadLocalRandom.current();
         int currentUsage = baseUsage + random.nextInt(50) - 25; // ±25kW variation
         
         fallbackData.setCurrentUsageKW((double) currentUsage);
@@ -432,36 +1563,75 @@ public class WillowEnergyDataManager {
         return buildingPositions.get(buildingName.toUpperCase());
     }
     
+    /**
+     * Get how many building reads ended in simulated data, for comparison with
+     * HttpMetrics.getRetryRescuedCount()
+     */
+    public int getFallbackCount() {
+        return fallbackCount.get();
+    }
+    
     /**
      * Check if currently authenticated
      */
     public boolean isAuthenticated() {
-        return accessToken != null && System.currentTimeMillis() < tokenExpirationTime;
+        return tokenManager.isAuthenticated();
     }
     
     /**
      * Test method to debug API issues
      */
     public void testApiEndpoints(String buildingTwinId, EnergyDataCallback callback) {
+        testApiEndpoints(buildingTwinId,
+            new ActiveFetch(RequestPriority.BACKGROUND, System.currentTimeMillis() + WillowApiV3Config.FETCH_DEADLINE_MS, scope),
+            callback);
+    }
+    
+    private void testApiEndpoints(String buildingTwinId, ActiveFetch fetch, EnergyDataCallback callback) {
         if (!isAuthenticated()) {
             callback.onError("Not authenticated");
             return;
         }
         
+        List<FetchStrategy> plan = FetchStrategy.planFor(preferredStrategies.get(buildingTwinId));
+        
+        if (!breaker(ENDPOINT_TWIN).allowRequest()) {
+            Log.w(TAG, "Twin lookup circuit open, going straight to fetch strategies");
+            String buildingName = buildingNames.getOrDefault(buildingTwinId, "UNKNOWN");
+            runStrategies(plan, 0, buildingName, buildingTwinId, fetch, callback);
+            return;
+        }
+        
+        DigitalTwin cachedBuilding = twinCache.getFresh(buildingTwinId);
+        if (cachedBuilding != null) {
+            String buildingName = buildingNames.getOrDefault(buildingTwinId, cachedBuilding.getName());
+            runStrategies(plan, 0, buildingName, buildingTwinId, fetch, callback);
+            return;
+        }
+        
         Log.d(TAG, "🔧 DEBUGGING: Testing API endpoints for twin ID: " + buildingTwinId);
         
-        // Test 1: Try to get the building twin directly
-        Call<DigitalTwin> twinCall = apiService.getTwinById(accessToken, buildingTwinId, true);
+        // Test 1: Try to get the building twin directly (revalidated through the HTTP cache)
+        Call<DigitalTwin> twinCall = service(fetch).getTwinById(tokenManager.getAuthorizationHeader(), buildingTwinId, true);
         
-        twinCall.enqueue(new Callback<DigitalTwin>() {
+        enqueue(fetch, twinCall, new Callback<DigitalTwin>() {
             @Override
             public void onResponse(Call<DigitalTwin> call, Response<DigitalTwin> response) {
+                recordResult(ENDPOINT_TWIN, response);
                 if (response.isSuccessful() && response.body() != null) {
                     DigitalTwin building = response.body();
-                    Log.d(TAG, "✅ Building twin found: " + building.getName() + " (Model: " + building.getModelId() + ")");
+                    Log.d(TAG, "✅ Building twin found: " + building.getName() + " (Model: " + building.getModelId() + ")"
+                        + (response.raw().networkResponse() == null ? " [cached]" : ""));
+                    
+                    if (twinCache.update(building)) {
+                        // Capability wiring may have moved with the twin, resolve it again
+                        capabilityCache.invalidate(building.getId());
+                        preferredStrategies.remove(building.getId());
+                    }
                     
-                    // Test 2: Try direct time series call
-                    testDirectTimeSeries(building, callback);
+                    // Test 2: Run fetch strategies, direct time series first unless another worked before
+                    String buildingName = buildingNames.getOrDefault(building.getId(), building.getName());
+                    runStrategies(plan, 0, buildingName, building.getId(), fetch, callback);
                 } else {
                     Log.e(TAG, "❌ Failed to get building twin: " + response.code());
                     callback.onError("Failed to get building twin: " + response.code());
@@ -470,6 +1640,9 @@ public class WillowEnergyDataManager {
             
             @Override
             public void onFailure(Call<DigitalTwin> call, Throwable t) {
+                if (!call.isCanceled()) {
+                    breaker(ENDPOINT_TWIN).recordFailure();
+                }
                 Log.e(TAG, "❌ Network error getting building twin: " + t.getMessage(), t);
                 callback.onError("Network error: " + t.getMessage());
             }
@@ -479,45 +1652,51 @@ public class WillowEnergyDataManager {
     /**
      * Test direct time series access
      */
-    private void testDirectTimeSeries(DigitalTwin building, EnergyDataCallback callback) {
+    private void testDirectTimeSeries(String buildingName, String buildingId, ActiveFetch fetch,
+                                      EnergyDataCallback callback, Runnable next) {
+        if (!breaker(ENDPOINT_TWIN_LATEST).allowRequest()) {
+            Log.w(TAG, "Direct time series circuit open, skipping");
+            next.run();
+            return;
+        }
+        
         Log.d(TAG, "🔧 DEBUGGING: Testing direct time series access");
         
-        Call<List<TimeSeriesPoint>> directCall = apiService.getLatestTimeSeries(
-            accessToken, building.getId(), true
+        Call<List<TimeSeriesPoint>> directCall = service(fetch).getLatestTimeSeries(
+            tokenManager.getAuthorizationHeader(), buildingId, true
         );
         
-        directCall.enqueue(new Callback<List<TimeSeriesPoint>>() {
+        enqueue(fetch, directCall, new Callback<List<TimeSeriesPoint>>() {
             @Override
             public void onResponse(Call<List<TimeSeriesPoint>> call, Response<List<TimeSeriesPoint>> response) {
+                recordResult(ENDPOINT_TWIN_LATEST, response);
                 if (response.isSuccessful() && response.body() != null) {
                     List<TimeSeriesPoint> points = response.body();
                     Log.d(TAG, "✅ Direct time series success: " + points.size() + " points found");
                     
                     if (!points.isEmpty()) {
-                        // Process and return real data
-                        String buildingName = buildingNames.getOrDefault(building.getId(), building.getName());
-                        EnergyDataResponse energyData = processTimeSeriesData(points, buildingName, building.getId());
-                        callback.onSuccess(energyData);
+                        capabilityCache.put(buildingId, Arrays.asList(buildingId));
+                        onStrategySucceeded(buildingId, FetchStrategy.DIRECT_TIME_SERIES);
+                        processAndDeliver(points, buildingName, buildingId, callback);
                     } else {
                         Log.w(TAG, "⚠️ No time series points found");
-                        String buildingName = buildingNames.getOrDefault(building.getId(), building.getName());
-                        EnergyDataResponse fallbackData = createFallbackData(buildingName, building.getId());
-                        callback.onSuccess(fallbackData);
+                        next.run();
                     }
                 } else {
                     Log.e(TAG, "❌ Direct time series failed: " + response.code());
                     // Try the simplified search approach
-                    String buildingName = buildingNames.getOrDefault(building.getId(), building.getName());
-                    findEnergyCapabilities(building, buildingName, callback);
+                    next.run();
                 }
             }
             
             @Override
             public void onFailure(Call<List<TimeSeriesPoint>> call, Throwable t) {
+                if (!call.isCanceled()) {
+                    breaker(ENDPOINT_TWIN_LATEST).recordFailure();
+                }
                 Log.e(TAG, "❌ Direct time series network error: " + t.getMessage(), t);
                 // Try the simplified search approach
-                String buildingName = buildingNames.getOrDefault(building.getId(), building.getName());
-                findEnergyCapabilities(building, buildingName, callback);
+                next.run();
             }
         });
     }
@@ -0,0 +1,120 @@
+package com.example.ecowattchtechdemo.willow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor and combinators behind the CompletableFuture API of
+ * WillowEnergyDataManager. Futures are completed on the Willow future
+ * executor, never on the main thread, so dependent stages can do real work;
+ * hop back to the main thread before touching views.
+ */
+public final class WillowFutures {
+    
+    private static final int EXECUTOR_THREADS = 2;
+    
+    private static final ExecutorService executor = Executors.newFixedThreadPool(EXECUTOR_THREADS, r -> {
+        Thread thread = new Thread(r, "willow-future");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "willow-future-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private WillowFutures() {}
+    
+    /**
+     * Get the executor Willow futures are completed on
+     */
+    public static Executor executor() {
+        return executor;
+    }
+    
+    /**
+     * Fail a future with a TimeoutException if it is not done in time.
+     * CompletableFuture.orTimeout() needs API 31, so this stands in for it.
+     *
+     * @return the same future, for chaining
+     */
+    public static <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future, long timeoutMs) {
+        if (timeoutMs <= 0 || future.isDone()) return future;
+        
+        ScheduledFuture<?> timeout = timer.schedule(() -> {
+            future.completeExceptionally(new TimeoutException("Timed out after " + timeoutMs + "ms"));
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        future.whenComplete((result, error) -> timeout.cancel(false));
+        return future;
+    }
+    
+    /**
+     * Fan in: wait for every future and collect the ones that succeeded by key.
+     * Fails only if all of them fail, with the first error seen.
+     */
+    public static <K, V> CompletableFuture<Map<K, V>> allSuccessful(Map<K, CompletableFuture<V>> futures) {
+        CompletableFuture<Map<K, V>> combined = new CompletableFuture<>();
+        if (futures.isEmpty()) {
+            combined.complete(Collections.<K, V>emptyMap());
+            return combined;
+        }
+        
+        Map<K, V> results = new ConcurrentHashMap<>();
+        AtomicInteger pending = new AtomicInteger(futures.size());
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        
+        for (Map.Entry<K, CompletableFuture<V>> entry : futures.entrySet()) {
+            entry.getValue().whenComplete((value, error) -> {
+                if (error == null) {
+                    results.put(entry.getKey(), value);
+                } else {
+                    errors.add(unwrap(error));
+                }
+                if (pending.decrementAndGet() != 0) return;
+                
+                if (results.isEmpty()) {
+                    combined.completeExceptionally(errors.get(0));
+                } else {
+                    // Keep the caller's key order rather than completion order
+                    Map<K, V> ordered = new LinkedHashMap<>();
+                    for (K key : futures.keySet()) {
+                        if (results.containsKey(key)) {
+                            ordered.put(key, results.get(key));
+                        }
+                    }
+                    combined.complete(Collections.unmodifiableMap(ordered));
+                }
+            });
+        }
+        
+        // Cancelling or timing out the fan-in cancels every branch still running
+        combined.whenComplete((value, error) -> {
+            if (error != null) {
+                for (CompletableFuture<V> future : futures.values()) {
+                    future.cancel(false);
+                }
+            }
+        });
+        return combined;
+    }
+    
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
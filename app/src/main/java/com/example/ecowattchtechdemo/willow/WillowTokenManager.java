@@ -0,0 +1,255 @@
+package com.example.ecowattchtechdemo.willow;
+
+import android.util.Log;
+import com.example.ecowattchtechdemo.willow.models.WillowOAuthResponse;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Owns the Willow OAuth token: refreshes it in the background ahead of expiry
+ * and collapses concurrent refreshes into a single oauth2/token call
+ */
+public class WillowTokenManager {
+    
+    private static final String TAG = "WillowTokenManager";
+    
+    // Refresh this long before the token actually expires
+    private static final long REFRESH_MARGIN_MS = 60_000;
+    private static final long MIN_REFRESH_DELAY_MS = 5_000;
+    
+    private final WillowApiService oauthService;
+    private final Object refreshLock = new Object();
+    private final Object stateLock = new Object();
+    private final List<WillowEnergyDataManager.AuthenticationCallback> pendingCallbacks = new ArrayList<>();
+    
+    // Replaced as a whole, so readers never see a header paired with another token's expiry or credentials
+    private volatile TokenState token;
+    
+    private boolean authenticationInFlight = false;
+    private ScheduledFuture<?> scheduledRefresh;
+    
+    private static final ScheduledExecutorService refreshExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "willow-token-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    /**
+     * Client credentials used to obtain and refresh tokens
+     */
+    private static final class Credentials {
+        final String clientId;
+        final String clientSecret;
+        
+        Credentials(String clientId, String clientSecret) {
+            this.clientId = clientId;
+            this.clientSecret = clientSecret;
+        }
+        
+        boolean matches(String otherClientId, String otherClientSecret) {
+            return clientId.equals(otherClientId) && clientSecret.equals(otherClientSecret);
+        }
+    }
+    
+    /**
+     * A token together with when it expires, when it should be refreshed and
+     * the credentials that obtained it, which are also used to refresh it
+     */
+    private static final class TokenState {
+        final String authorizationHeader;
+        final long expiresAt;
+        final long refreshAt;
+        final Credentials credentials;
+        
+        TokenState(String authorizationHeader, long expiresAt, long refreshAt, Credentials credentials) {
+            this.authorizationHeader = authorizationHeader;
+            this.expiresAt = expiresAt;
+            this.refreshAt = refreshAt;
+            this.credentials = credentials;
+        }
+    }
+    
+    /**
+     * @param oauthService API service without auth interceptors, used only for oauth2/token
+     */
+    public WillowTokenManager(WillowApiService oauthService) {
+        this.oauthService = oauthService;
+    }
+    
+    /**
+     * Authenticate asynchronously; concurrent callers share one token request.
+     * If these credentials already hold a fresh token it is returned without
+     * another OAuth round trip. The credentials replace the current ones only
+     * once they have obtained a token; if they are rejected, the current
+     * token keeps being refreshed with the credentials that obtained it.
+     */
+    public void authenticate(String clientId, String clientSecret, WillowEnergyDataManager.AuthenticationCallback callback) {
+        TokenState currentToken = token;
+        if (currentToken != null && currentToken.credentials.matches(clientId, clientSecret)
+                && System.currentTimeMillis() < currentToken.refreshAt) {
+            Log.d(TAG, "Reusing current token");
+            callback.onSuccess(currentToken.authorizationHeader);
+            return;
+        }
+        
+        Credentials attempt = new Credentials(clientId, clientSecret);
+        synchronized (stateLock) {
+            pendingCallbacks.add(callback);
+            if (authenticationInFlight) {
+                Log.d(TAG, "Authentication already in flight, joining it");
+                return;
+            }
+            authenticationInFlight = true;
+        }
+        
+        Call<WillowOAuthResponse> call = oauthService.getOAuthToken(
+            clientId,
+            clientSecret,
+            WillowApiV3Config.GRANT_TYPE
+        );
+        
+        call.enqueue(new Callback<WillowOAuthResponse>() {
+            @Override
+            public void onResponse(Call<WillowOAuthResponse> call, Response<WillowOAuthResponse> response) {
+                if (response.isSuccessful() && response.body() != null) {
+                    WillowOAuthResponse tokenResponse = response.body();
+                    
+                    if (tokenResponse.isValid()) {
+                        updateToken(tokenResponse, attempt);
+                        Log.d(TAG, "Authentication successful");
+                        completeAuthentication(getAuthorizationHeader(), null);
+                    } else {
+                        Log.e(TAG, "Invalid token response");
+                        completeAuthentication(null, "Invalid authentication response");
+                    }
+                } else {
+                    String error = "Authentication failed: " + response.code();
+                    Log.e(TAG, error);
+                    completeAuthentication(null, error);
+                }
+            }
+            
+            @Override
+            public void onFailure(Call<WillowOAuthResponse> call, Throwable t) {
+                String error = "Authentication network error: " + t.getMessage();
+                Log.e(TAG, error, t);
+                completeAuthentication(null, error);
+            }
+        });
+    }
+    
+    private void completeAuthentication(String token, String error) {
+        List<WillowEnergyDataManager.AuthenticationCallback> callbacks;
+        synchronized (stateLock) {
+            callbacks = new ArrayList<>(pendingCallbacks);
+            pendingCallbacks.clear();
+            authenticationInFlight = false;
+        }
+        
+        for (WillowEnergyDataManager.AuthenticationCallback callback : callbacks) {
+            if (token != null) {
+                callback.onSuccess(token);
+            } else {
+                callback.onError(error);
+            }
+        }
+    }
+    
+    /**
+     * Refresh the token synchronously. If another thread already replaced
+     * {@code staleHeader} the current token is returned without a new request.
+     *
+     * @return new authorization header, or null if the refresh failed
+     */
+    public String refreshToken(String staleHeader) {
+        synchronized (refreshLock) {
+            String current = getAuthorizationHeader();
+            if (current != null && !current.equals(staleHeader) && !isExpiringSoon()) {
+                return current;
+            }
+            
+            TokenState currentToken = token;
+            if (currentToken == null) {
+                Log.w(TAG, "Cannot refresh token without credentials");
+                return null;
+            }
+            Credentials refreshWith = currentToken.credentials;
+            
+            Log.d(TAG, "Refreshing access token");
+            try {
+                Response<WillowOAuthResponse> response = oauthService.getOAuthToken(
+                    refreshWith.clientId, refreshWith.clientSecret, WillowApiV3Config.GRANT_TYPE
+                ).execute();
+                
+                if (response.isSuccessful() && response.body() != null && response.body().isValid()) {
+                    updateToken(response.body(), refreshWith);
+                    return getAuthorizationHeader();
+                }
+                Log.e(TAG, "Token refresh failed: " + response.code());
+            } catch (IOException e) {
+                Log.e(TAG, "Token refresh network error: " + e.getMessage(), e);
+            }
+            return null;
+        }
+    }
+    
+    /**
+     * Store a fresh token with the credentials that obtained it and schedule its proactive refresh
+     */
+    private void updateToken(WillowOAuthResponse tokenResponse, Credentials issuedFor) {
+        long lifetimeMs = tokenResponse.getExpiresIn() * 1000L;
+        // Short-lived tokens are refreshed halfway through their lifetime instead
+        long delay = lifetimeMs > 2 * REFRESH_MARGIN_MS ? lifetimeMs - REFRESH_MARGIN_MS : lifetimeMs / 2;
+        delay = Math.max(MIN_REFRESH_DELAY_MS, delay);
+        
+        synchronized (stateLock) {
+            long now = System.currentTimeMillis();
+            token = new TokenState(tokenResponse.getAuthorizationHeader(), now + lifetimeMs, now + delay, issuedFor);
+            
+            if (scheduledRefresh != null) {
+                scheduledRefresh.cancel(false);
+            }
+            final String scheduledFor = token.authorizationHeader;
+            scheduledRefresh = refreshExecutor.schedule(
+                () -> refreshToken(scheduledFor), delay, TimeUnit.MILLISECONDS);
+            
+            Log.d(TAG, "Token valid for " + (lifetimeMs / 1000) + "s, refresh scheduled in " + (delay / 1000) + "s");
+        }
+    }
+    
+    /**
+     * Current authorization header value ("Bearer ...")
+     */
+    public String getAuthorizationHeader() {
+        TokenState current = token;
+        return current != null ? current.authorizationHeader : null;
+    }
+    
+    /**
+     * True once a token has been obtained; its credentials keep it fresh
+     */
+    public boolean isAuthenticated() {
+        return token != null;
+    }
+    
+    /**
+     * True if the token is missing or inside the refresh margin
+     */
+    public boolean isExpiringSoon() {
+        TokenState current = token;
+        return current == null || System.currentTimeMillis() >= current.refreshAt;
+    }
+    
+    public long getTokenExpirationTime() {
+        TokenState current = token;
+        return current != null ? current.expiresAt : 0;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.ecowattchtechdemo.willow.models;
 
+import com.example.ecowattchtechdemo.willow.timeseries.Timestamps;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import java.util.List;
 import java.util.Map;
@@ -15,8 +17,10 @@ public class DigitalTwin {
     @SerializedName("modelId")
     private String modelId;
     
+    // Decoded to epoch millis on arrival; Timestamps.INVALID if missing or unreadable
     @SerializedName("lastUpdateTime")
-    private String lastUpdateTime;
+    @JsonAdapter(value = EpochMillisAdapter.class, nullSafe = false)
+    private long lastUpdateTime = Timestamps.INVALID;
     
     @SerializedName("contents")
     private Map<String, Object> contents;
@@ -47,11 +51,14 @@ public class DigitalTwin {
         this.modelId = modelId;
     }
     
-    public String getLastUpdateTime() {
+    /**
+     * Get the last update time in epoch millis, or Timestamps.INVALID
+     */
+    public long getLastUpdateTime() {
         return lastUpdateTime;
     }
     
-    public void setLastUpdateTime(String lastUpdateTime) {
+    public void setLastUpdateTime(long lastUpdateTime) {
         this.lastUpdateTime = lastUpdateTime;
     }
     
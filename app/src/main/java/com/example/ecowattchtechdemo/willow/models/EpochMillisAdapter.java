@@ -0,0 +1,34 @@
+package com.example.ecowattchtechdemo.willow.models;
+
+import com.example.ecowattchtechdemo.willow.timeseries.Timestamps;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+
+/**
+ * Gson adapter that decodes ISO-8601 timestamp fields straight into epoch
+ * millis while a response is deserialized. Missing, null or unreadable
+ * timestamps become Timestamps.INVALID.
+ */
+public class EpochMillisAdapter extends TypeAdapter<Long> {
+    
+    @Override
+    public Long read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return Timestamps.INVALID;
+        }
+        return Timestamps.parseEpochMillis(in.nextString());
+    }
+    
+    @Override
+    public void write(JsonWriter out, Long epochMillis) throws IOException {
+        if (epochMillis == null || epochMillis == Timestamps.INVALID) {
+            out.nullValue();
+        } else {
+            out.value(Timestamps.format(epochMillis));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.ecowattchtechdemo.willow.models;
 
+import com.example.ecowattchtechdemo.willow.timeseries.Timestamps;
+import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
 import java.util.Map;
 
@@ -20,11 +22,14 @@ public class TimeSeriesPoint {
     @SerializedName("trendId")
     private String trendId;
     
+    // Decoded to epoch millis on arrival; Timestamps.INVALID if missing or unreadable
     @SerializedName("sourceTimestamp")
-    private String sourceTimestamp;
+    @JsonAdapter(value = EpochMillisAdapter.class, nullSafe = false)
+    private long sourceTimestamp = Timestamps.INVALID;
     
     @SerializedName("enqueuedTimestamp")
-    private String enqueuedTimestamp;
+    @JsonAdapter(value = EpochMillisAdapter.class, nullSafe = false)
+    private long enqueuedTimestamp = Timestamps.INVALID;
     
     @SerializedName("scalarValue")
     private Double scalarValue;
@@ -71,19 +76,25 @@ public class TimeSeriesPoint {
         this.trendId = trendId;
     }
     
-    public String getSourceTimestamp() {
+    /**
+     * Get the source timestamp in epoch millis, or Timestamps.INVALID
+     */
+    public long getSourceTimestamp() {
         return sourceTimestamp;
     }
     
-    public void setSourceTimestamp(String sourceTimestamp) {
+    public void setSourceTimestamp(long sourceTimestamp) {
         this.sourceTimestamp = sourceTimestamp;
     }
     
-    public String getEnqueuedTimestamp() {
+    /**
+     * Get the enqueued timestamp in epoch millis, or Timestamps.INVALID
+     */
+    public long getEnqueuedTimestamp() {
         return enqueuedTimestamp;
     }
     
-    public void setEnqueuedTimestamp(String enqueuedTimestamp) {
+    public void setEnqueuedTimestamp(long enqueuedTimestamp) {
         this.enqueuedTimestamp = enqueuedTimestamp;
     }
     
@@ -126,7 +137,7 @@ public class TimeSeriesPoint {
         return "TimeSeriesPoint{" +
                 "twinId='" + twinId + '\'' +
                 ", scalarValue=" + scalarValue +
-                ", sourceTimestamp='" + sourceTimestamp + '\'' +
+                ", sourceTimestamp='" + Timestamps.format(sourceTimestamp) + '\'' +
                 '}';
     }
     
@@ -134,6 +145,16 @@ public class TimeSeriesPoint {
      * Data quality indicators
      */
     public static class DataQuality {
+        // Bit flags for compact storage of quality indicators
+        public static final int FLAG_OFFLINE = 1;
+        public static final int FLAG_VALUE_OUT_OF_RANGE = 1 << 1;
+        public static final int FLAG_SPARSE = 1 << 2;
+        public static final int FLAG_FLATLINE = 1 << 3;
+        public static final int FLAG_DELAYED = 1 << 4;
+        
+        // Flags that make a reading unusable (see isGoodQuality)
+        public static final int BAD_QUALITY_MASK = FLAG_OFFLINE | FLAG_VALUE_OUT_OF_RANGE | FLAG_FLATLINE;
+        
         @SerializedName("offline")
         private boolean offline;
         
@@ -196,5 +217,18 @@ public class TimeSeriesPoint {
         public boolean isGoodQuality() {
             return !offline && !valueOutOfRange && !flatline;
         }
+        
+        /**
+         * Get quality indicators as FLAG_* bits
+         */
+        public int toFlags() {
+            int flags = 0;
+            if (offline) flags |= FLAG_OFFLINE;
+            if (valueOutOfRange) flags |= FLAG_VALUE_OUT_OF_RANGE;
+            if (sparse) flags |= FLAG_SPARSE;
+            if (flatline) flags |= FLAG_FLATLINE;
+            if (delayed) flags |= FLAG_DELAYED;
+            return flags;
+        }
     }
 }
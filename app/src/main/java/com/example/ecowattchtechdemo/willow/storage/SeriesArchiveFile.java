@@ -0,0 +1,239 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * One twin's long-term history as compressed blocks appended to a file.
+ *
+ * Layout: an 8-byte header (magic, version) followed by SeriesBlockEncoder
+ * blocks back to back. The block headers are scanned into an in-memory index
+ * on open, so any block can be read by index and a time range lookup is a
+ * binary search over the blocks. A block cut short by a crash is dropped.
+ */
+class SeriesArchiveFile {
+    
+    static final int MAGIC = 0x57544331; // "WTC1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    
+    // Expired blocks are only cut away once this many have piled up, since it rewrites the file
+    private static final int COMPACT_BLOCKS = 32;
+    
+    private final File path;
+    private RandomAccessFile file;
+    private FileChannel channel;
+    
+    private long[] offsets = new long[16];
+    private int[] lengths = new int[16];
+    private long[] firstTimestamps = new long[16];
+    private long[] lastTimestamps = new long[16];
+    private int blockCount;
+    private int readingCount;
+    private long endOffset = HEADER_SIZE;
+    
+    SeriesArchiveFile(File path) throws IOException {
+        this.path = path;
+        open();
+    }
+    
+    private void open() throws IOException {
+        file = new RandomAccessFile(path, "rw");
+        channel = file.getChannel();
+        blockCount = 0;
+        readingCount = 0;
+        endOffset = HEADER_SIZE;
+        
+        ByteBuffer header = ByteBuffer.allocate(SeriesBlockEncoder.HEADER_SIZE);
+        header.limit(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE || !readFully(header, 0)
+            || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+            // Missing or unreadable: start over
+            channel.truncate(0);
+            header.clear();
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.write(header, 0);
+            return;
+        }
+        
+        long size = channel.size();
+        while (endOffset + SeriesBlockEncoder.HEADER_SIZE <= size) {
+            header.clear();
+            if (!readFully(header, endOffset)) break;
+            
+            int length = header.getInt(SeriesBlockEncoder.OFFSET_LENGTH);
+            int count = header.getInt(SeriesBlockEncoder.OFFSET_COUNT);
+            if (length < SeriesBlockEncoder.HEADER_SIZE || count <= 0 || endOffset + length > size) break;
+            
+            index(endOffset, length, count, header.getLong(SeriesBlockEncoder.OFFSET_FIRST),
+                header.getLong(SeriesBlockEncoder.OFFSET_LAST));
+            endOffset += length;
+        }
+        if (endOffset < size) {
+            // Torn block at the end: drop it rather than serve garbage
+            channel.truncate(endOffset);
+        }
+    }
+    
+    /**
+     * Append a finished block. Its readings must all be newer than the archive's.
+     */
+    synchronized void append(byte[] block) throws IOException {
+        SeriesBlockDecoder decoder = new SeriesBlockDecoder(block);
+        if (decoder.size() == 0) return;
+        if (blockCount > 0 && decoder.getFirstTimestamp() <= lastTimestamps[blockCount - 1]) {
+            throw new IllegalArgumentException("Block overlaps archived readings");
+        }
+        
+        int length = SeriesBlockDecoder.blockLength(block, 0);
+        ByteBuffer buffer = ByteBuffer.wrap(block, 0, length);
+        long position = endOffset;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        index(endOffset, length, decoder.size(), decoder.getFirstTimestamp(), decoder.getLastTimestamp());
+        endOffset += length;
+    }
+    
+    synchronized int blockCount() {
+        return blockCount;
+    }
+    
+    synchronized int size() {
+        return readingCount;
+    }
+    
+    synchronized long firstTimestamp() {
+        return blockCount > 0 ? firstTimestamps[0] : Long.MIN_VALUE;
+    }
+    
+    synchronized long lastTimestamp() {
+        return blockCount > 0 ? lastTimestamps[blockCount - 1] : Long.MIN_VALUE;
+    }
+    
+    /**
+     * Get a decoder over one block, oldest block first
+     */
+    synchronized SeriesBlockDecoder readBlock(int blockIndex) throws IOException {
+        if (blockIndex < 0 || blockIndex >= blockCount) {
+            throw new IndexOutOfBoundsException("Block " + blockIndex + " of " + blockCount);
+        }
+        byte[] block = new byte[lengths[blockIndex]];
+        if (!readFully(ByteBuffer.wrap(block), offsets[blockIndex])) {
+            throw new IOException("Archive shorter than its index");
+        }
+        return new SeriesBlockDecoder(block);
+    }
+    
+    /**
+     * Visit readings with from <= epochMillis < to, oldest first
+     *
+     * @return number of readings visited
+     */
+    synchronized int query(long fromMillis, long toMillis, TimeSeriesStore.RecordVisitor visitor) throws IOException {
+        int visited = 0;
+        for (int b = firstBlockEndingAtOrAfter(fromMillis); b < blockCount && firstTimestamps[b] < toMillis; b++) {
+            SeriesBlockDecoder decoder = readBlock(b);
+            while (decoder.next()) {
+                long epochMillis = decoder.getTimestamp();
+                if (epochMillis < fromMillis) continue;
+                if (epochMillis >= toMillis) break;
+                
+                visitor.onRecord(epochMillis, decoder.getValue(), decoder.getQualityFlags());
+                visited++;
+            }
+        }
+        return visited;
+    }
+    
+    /**
+     * Drop blocks whose readings are all older than a cutoff. Rewrites the
+     * file, so it only happens once enough blocks have expired.
+     */
+    synchronized void dropBefore(long cutoffMillis) throws IOException {
+        int expired = firstBlockEndingAtOrAfter(cutoffMillis);
+        if (expired < COMPACT_BLOCKS) return;
+        
+        File compacted = new File(path.getPath() + ".tmp");
+        try (RandomAccessFile target = new RandomAccessFile(compacted, "rw")) {
+            FileChannel targetChannel = target.getChannel();
+            targetChannel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            targetChannel.write(header, 0);
+            targetChannel.position(HEADER_SIZE);
+            
+            long from = expired < blockCount ? offsets[expired] : endOffset;
+            long remaining = endOffset - from;
+            long written = 0;
+            while (written < remaining) {
+                written += channel.transferTo(from + written, remaining - written, targetChannel);
+            }
+            targetChannel.force(false);
+        }
+        
+        close();
+        if (!compacted.renameTo(path)) {
+            compacted.delete();
+            open();
+            throw new IOException("Cannot replace " + path);
+        }
+        open();
+    }
+    
+    synchronized void flush() throws IOException {
+        channel.force(false);
+    }
+    
+    synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+        file.close();
+    }
+    
+    /**
+     * Index of the first block whose newest reading is at or after a time
+     */
+    private int firstBlockEndingAtOrAfter(long epochMillis) {
+        int low = 0;
+        int high = blockCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lastTimestamps[mid] < epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void index(long offset, int length, int count, long firstTimestamp, long lastTimestamp) {
+        if (blockCount == offsets.length) {
+            int capacity = blockCount * 2;
+            offsets = Arrays.copyOf(offsets, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            firstTimestamps = Arrays.copyOf(firstTimestamps, capacity);
+            lastTimestamps = Arrays.copyOf(lastTimestamps, capacity);
+        }
+        offsets[blockCount] = offset;
+        lengths[blockCount] = length;
+        firstTimestamps[blockCount] = firstTimestamp;
+        lastTimestamps[blockCount] = lastTimestamp;
+        blockCount++;
+        readingCount += count;
+    }
+    
+    private boolean readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) return false;
+            position += read;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+/**
+ * Reads back a block written by SeriesBlockEncoder, one reading at a time:
+ *
+ *     while (decoder.next()) {
+ *         use(decoder.getTimestamp(), decoder.getValue(), decoder.getQualityFlags());
+ *     }
+ *
+ * Decoding works on the block's bytes in place and allocates nothing.
+ */
+public final class SeriesBlockDecoder {
+    
+    private final byte[] bytes;
+    private final int offset;
+    private final int count;
+    private final long firstTimestamp;
+    private final long lastTimestamp;
+    
+    private int bitPosition;
+    private int index;
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int mode;
+    private long scaled;
+    private int leadingZeros;
+    private int trailingZeros;
+    private int flags;
+    
+    /**
+     * @param bytes holds the block
+     * @param offset where the block starts in bytes
+     */
+    public SeriesBlockDecoder(byte[] bytes, int offset) {
+        if (bytes.length - offset < SeriesBlockEncoder.HEADER_SIZE
+            || bytes.length - offset < readInt(bytes, offset + SeriesBlockEncoder.OFFSET_LENGTH)) {
+            throw new IllegalArgumentException("Truncated series block");
+        }
+        this.bytes = bytes;
+        this.offset = offset;
+        this.count = readInt(bytes, offset + SeriesBlockEncoder.OFFSET_COUNT);
+        this.firstTimestamp = readLong(bytes, offset + SeriesBlockEncoder.OFFSET_FIRST);
+        this.lastTimestamp = readLong(bytes, offset + SeriesBlockEncoder.OFFSET_LAST);
+        rewind();
+    }
+    
+    public SeriesBlockDecoder(byte[] block) {
+        this(block, 0);
+    }
+    
+    /**
+     * Get the length in bytes of the block starting at offset, read from its header
+     */
+    public static int blockLength(byte[] bytes, int offset) {
+        return readInt(bytes, offset + SeriesBlockEncoder.OFFSET_LENGTH);
+    }
+    
+    /**
+     * Get the number of readings in the block
+     */
+    public int size() {
+        return count;
+    }
+    
+    public long getFirstTimestamp() {
+        return firstTimestamp;
+    }
+    
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+    
+    /**
+     * Go back to before the first reading
+     */
+    public void rewind() {
+        bitPosition = (offset + SeriesBlockEncoder.HEADER_SIZE) * 8;
+        index = 0;
+        delta = 0;
+        leadingZeros = 0;
+        trailingZeros = 0;
+    }
+    
+    /**
+     * Advance to the next reading
+     *
+     * @return false once every reading has been read
+     */
+    public boolean next() {
+        if (index == count) return false;
+        
+        if (index == 0) {
+            timestamp = firstTimestamp;
+            startMode();
+            flags = (int) readBits(8);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            if (mode == SeriesBlockEncoder.XOR_MODE) {
+                readXor();
+            } else {
+                readDecimal();
+            }
+            if (readBits(1) != 0) {
+                flags = (int) readBits(8);
+            }
+        }
+        index++;
+        return true;
+    }
+    
+    public long getTimestamp() {
+        return timestamp;
+    }
+    
+    public double getValue() {
+        return Double.longBitsToDouble(valueBits);
+    }
+    
+    public int getQualityFlags() {
+        return flags;
+    }
+    
+    private long readDeltaOfDelta() {
+        if (readBits(1) == 0) return 0;
+        if (readBits(1) == 0) return readSigned(7);
+        if (readBits(1) == 0) return readSigned(12);
+        if (readBits(1) == 0) return readSigned(20);
+        if (readBits(1) == 0) return readSigned(32);
+        return readBits(64);
+    }
+    
+    private void startMode() {
+        mode = (int) readBits(3);
+        valueBits = readBits(64);
+        if (mode != SeriesBlockEncoder.XOR_MODE) {
+            scaled = Math.round(Double.longBitsToDouble(valueBits) * SeriesBlockEncoder.DECIMAL_SCALES[mode]);
+        }
+        leadingZeros = 0;
+        trailingZeros = 0;
+    }
+    
+    private void readDecimal() {
+        long change;
+        if (readBits(1) == 0) {
+            return;
+        } else if (readBits(1) == 0) {
+            change = readSigned(7);
+        } else if (readBits(1) == 0) {
+            change = readSigned(12);
+        } else if (readBits(1) == 0) {
+            change = readSigned(20);
+        } else if (readBits(1) == 0) {
+            change = readSigned(32);
+        } else {
+            startMode();
+            return;
+        }
+        scaled += change;
+        valueBits = Double.doubleToRawLongBits(scaled / SeriesBlockEncoder.DECIMAL_SCALES[mode]);
+    }
+    
+    private void readXor() {
+        if (readBits(1) == 0) return;
+        
+        if (readBits(1) != 0) {
+            leadingZeros = (int) readBits(5);
+            int significantBits = (int) readBits(6) + 1;
+            trailingZeros = 64 - leadingZeros - significantBits;
+        }
+        int significantBits = 64 - leadingZeros - trailingZeros;
+        valueBits ^= readBits(significantBits) << trailingZeros;
+    }
+    
+    private long readSigned(int bitCount) {
+        long value = readBits(bitCount);
+        int shift = 64 - bitCount;
+        return (value << shift) >> shift;
+    }
+    
+    /**
+     * Read bitCount bits, most significant first
+     */
+    private long readBits(int bitCount) {
+        long value = 0;
+        while (bitCount > 0) {
+            int available = 8 - (bitPosition & 7);
+            int take = Math.min(available, bitCount);
+            int chunk = (bytes[bitPosition >>> 3] >>> (available - take)) & ((1 << take) - 1);
+            value = (value << take) | chunk;
+            bitPosition += take;
+            bitCount -= take;
+        }
+        return value;
+    }
+    
+    private static int readInt(byte[] source, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (source[offset + i] & 0xFF);
+        }
+        return value;
+    }
+    
+    private static long readLong(byte[] source, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (source[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
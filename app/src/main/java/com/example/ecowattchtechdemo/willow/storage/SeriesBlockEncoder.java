@@ -0,0 +1,301 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import java.util.Arrays;
+
+/**
+ * Compresses a run of readings into one block, Gorilla style: timestamps as
+ * delta-of-delta, values as the XOR with the previous value, and quality
+ * flags as a single bit while they stay the same. Meter readings mostly
+ * arrive as short decimals (123.4 kW), whose binary fractions XOR badly, so
+ * values that are exact decimals with up to six places are stored as the
+ * change in value * 10^scale instead. Regular 1-minute readings cost a bit
+ * per timestamp and one to two bytes per value.
+ *
+ * Block layout: a 24-byte header (block length in bytes, reading count,
+ * first and last epoch millis) followed by the bit stream. The first
+ * reading's value is a 3-bit mode (decimal scale 0-6, or 7 for XOR) plus
+ * the raw 64 bits, then 8 bits of flags. Every later reading is
+ *
+ * - delta-of-delta: '0' for none, then '10' + 7 bits, '110' + 12 bits,
+ *   '1110' + 20 bits, '11110' + 32 bits or '11111' + 64 bits, signed
+ * - in decimal mode, the change in the scaled value: '0' for none, then
+ *   '10' + 7 bits, '110' + 12 bits, '1110' + 20 bits or '11110' + 32 bits,
+ *   signed; '11111' switches mode with a new 3-bit mode and raw value
+ * - in XOR mode, which lasts to the end of the block: '0' if unchanged,
+ *   '10' + the meaningful bits when they fit the previous window, else
+ *   '11' + 5 bits of leading zeros + 6 bits of length - 1 + the bits
+ * - flags: '0' if unchanged, else '1' + 8 bits
+ *
+ * Read blocks back with SeriesBlockDecoder.
+ */
+public final class SeriesBlockEncoder {
+    
+    static final int HEADER_SIZE = 24;
+    static final int OFFSET_LENGTH = 0;
+    static final int OFFSET_COUNT = 4;
+    static final int OFFSET_FIRST = 8;
+    static final int OFFSET_LAST = 16;
+    
+    static final int XOR_MODE = 7;
+    static final double[] DECIMAL_SCALES = {1, 10, 100, 1000, 10000, 100000, 1000000};
+    
+    // Scaled values must stay exact integers in a double
+    private static final double MAX_SCALED = 1L << 52;
+    
+    private final int maxReadings;
+    private byte[] bytes = new byte[256];
+    private int bitPosition = HEADER_SIZE * 8;
+    private int count;
+    
+    private long firstTimestamp;
+    private long lastTimestamp;
+    private long lastDelta;
+    private long lastValueBits;
+    private int mode;
+    private long lastScaled;
+    private int lastLeadingZeros = Integer.MAX_VALUE;
+    private int lastTrailingZeros;
+    private int lastFlags;
+    
+    /**
+     * @param maxReadings readings after which the block is full
+     */
+    public SeriesBlockEncoder(int maxReadings) {
+        this.maxReadings = maxReadings;
+    }
+    
+    /**
+     * Add a reading. Readings must arrive in timestamp order.
+     *
+     * @param qualityFlags TimeSeriesPoint.DataQuality FLAG_* bits; only the low 8 bits are kept
+     * @return false if the block is full or the reading is not newer than the last one
+     */
+    public boolean add(long epochMillis, double value, int qualityFlags) {
+        if (count == maxReadings || (count > 0 && epochMillis <= lastTimestamp)) return false;
+        
+        long valueBits = Double.doubleToRawLongBits(value);
+        int flags = qualityFlags & 0xFF;
+        if (count == 0) {
+            firstTimestamp = epochMillis;
+            startMode(value);
+            writeBits(flags, 8);
+        } else {
+            long delta = epochMillis - lastTimestamp;
+            writeDeltaOfDelta(delta - lastDelta);
+            lastDelta = delta;
+            if (mode == XOR_MODE) {
+                writeXor(valueBits ^ lastValueBits);
+            } else {
+                writeDecimal(value);
+            }
+            if (flags == lastFlags) {
+                writeBits(0, 1);
+            } else {
+                writeBits(1, 1);
+                writeBits(flags, 8);
+            }
+        }
+        
+        lastTimestamp = epochMillis;
+        lastValueBits = valueBits;
+        lastFlags = flags;
+        count++;
+        return true;
+    }
+    
+    public int size() {
+        return count;
+    }
+    
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    
+    public boolean isFull() {
+        return count == maxReadings;
+    }
+    
+    /**
+     * Get the bytes the block would take if finished now
+     */
+    public int getEncodedLength() {
+        return (bitPosition + 7) >>> 3;
+    }
+    
+    /**
+     * Get the finished block. The encoder can keep taking readings afterwards;
+     * call reset() to start a new block.
+     */
+    public byte[] finish() {
+        int length = getEncodedLength();
+        byte[] block = Arrays.copyOf(bytes, length);
+        putInt(block, OFFSET_LENGTH, length);
+        putInt(block, OFFSET_COUNT, count);
+        putLong(block, OFFSET_FIRST, count > 0 ? firstTimestamp : Long.MIN_VALUE);
+        putLong(block, OFFSET_LAST, count > 0 ? lastTimestamp : Long.MIN_VALUE);
+        return block;
+    }
+    
+    /**
+     * Empty the encoder for the next block, keeping its buffer
+     */
+    public void reset() {
+        Arrays.fill(bytes, 0, getEncodedLength(), (byte) 0);
+        bitPosition = HEADER_SIZE * 8;
+        count = 0;
+        lastDelta = 0;
+        lastValueBits = 0;
+        mode = 0;
+        lastScaled = 0;
+        lastLeadingZeros = Integer.MAX_VALUE;
+        lastTrailingZeros = 0;
+        lastFlags = 0;
+    }
+    
+    private void writeDeltaOfDelta(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            writeBits(0, 1);
+        } else if (fits(deltaOfDelta, 7)) {
+            writeBits(0b10, 2);
+            writeBits(deltaOfDelta, 7);
+        } else if (fits(deltaOfDelta, 12)) {
+            writeBits(0b110, 3);
+            writeBits(deltaOfDelta, 12);
+        } else if (fits(deltaOfDelta, 20)) {
+            writeBits(0b1110, 4);
+            writeBits(deltaOfDelta, 20);
+        } else if (fits(deltaOfDelta, 32)) {
+            writeBits(0b11110, 5);
+            writeBits(deltaOfDelta, 32);
+        } else {
+            writeBits(0b11111, 5);
+            writeBits(deltaOfDelta, 64);
+        }
+    }
+    
+    /**
+     * Pick the mode for a value and store it in full
+     */
+    private void startMode(double value) {
+        mode = decimalScale(value);
+        writeBits(mode, 3);
+        writeBits(Double.doubleToRawLongBits(value), 64);
+        if (mode != XOR_MODE) {
+            lastScaled = Math.round(value * DECIMAL_SCALES[mode]);
+        }
+        lastLeadingZeros = Integer.MAX_VALUE;
+        lastTrailingZeros = 0;
+    }
+    
+    private void writeDecimal(double value) {
+        double scaled = value * DECIMAL_SCALES[mode];
+        long rounded = Math.round(scaled);
+        if (Math.abs(scaled) < MAX_SCALED && Double.doubleToRawLongBits(rounded / DECIMAL_SCALES[mode])
+            == Double.doubleToRawLongBits(value)) {
+            long change = rounded - lastScaled;
+            lastScaled = rounded;
+            if (change == 0) {
+                writeBits(0, 1);
+                return;
+            } else if (fits(change, 7)) {
+                writeBits(0b10, 2);
+                writeBits(change, 7);
+                return;
+            } else if (fits(change, 12)) {
+                writeBits(0b110, 3);
+                writeBits(change, 12);
+                return;
+            } else if (fits(change, 20)) {
+                writeBits(0b1110, 4);
+                writeBits(change, 20);
+                return;
+            } else if (fits(change, 32)) {
+                writeBits(0b11110, 5);
+                writeBits(change, 32);
+                return;
+            }
+        }
+        
+        // Not a decimal at this scale, or too big a jump
+        writeBits(0b11111, 5);
+        startMode(value);
+    }
+    
+    /**
+     * Smallest decimal scale at which value * 10^scale is an integer that
+     * gives back exactly the same double, or XOR_MODE if there is none
+     */
+    static int decimalScale(double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+        for (int scale = 0; scale < DECIMAL_SCALES.length; scale++) {
+            double scaled = value * DECIMAL_SCALES[scale];
+            if (!(Math.abs(scaled) < MAX_SCALED)) break;
+            
+            if (Double.doubleToRawLongBits(Math.round(scaled) / DECIMAL_SCALES[scale]) == valueBits) return scale;
+        }
+        return XOR_MODE;
+    }
+    
+    private void writeXor(long xor) {
+        if (xor == 0) {
+            writeBits(0, 1);
+            return;
+        }
+        
+        int leadingZeros = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailingZeros = Long.numberOfTrailingZeros(xor);
+        if (lastLeadingZeros != Integer.MAX_VALUE && leadingZeros >= lastLeadingZeros
+            && trailingZeros >= lastTrailingZeros) {
+            // Fits the previous window: no need to describe it again
+            writeBits(0b10, 2);
+            writeBits(xor >>> lastTrailingZeros, 64 - lastLeadingZeros - lastTrailingZeros);
+        } else {
+            int significantBits = 64 - leadingZeros - trailingZeros;
+            writeBits(0b11, 2);
+            writeBits(leadingZeros, 5);
+            writeBits(significantBits - 1, 6);
+            writeBits(xor >>> trailingZeros, significantBits);
+            lastLeadingZeros = leadingZeros;
+            lastTrailingZeros = trailingZeros;
+        }
+    }
+    
+    /**
+     * Append the low bitCount bits of value, most significant first
+     */
+    private void writeBits(long value, int bitCount) {
+        int needed = (bitPosition + bitCount + 7) >>> 3;
+        if (needed > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(needed, bytes.length * 2));
+        }
+        
+        while (bitCount > 0) {
+            int free = 8 - (bitPosition & 7);
+            int take = Math.min(free, bitCount);
+            int chunk = (int) (value >>> (bitCount - take)) & ((1 << take) - 1);
+            bytes[bitPosition >>> 3] |= (byte) (chunk << (free - take));
+            bitPosition += take;
+            bitCount -= take;
+        }
+    }
+    
+    /**
+     * Whether a value fits in bitCount bits as a signed number
+     */
+    private static boolean fits(long value, int bitCount) {
+        long limit = 1L << (bitCount - 1);
+        return value >= -limit && value < limit;
+    }
+    
+    private static void putInt(byte[] target, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            target[offset + i] = (byte) (value >>> (24 - 8 * i));
+        }
+    }
+    
+    private static void putLong(byte[] target, int offset, long value) {
+        for (int i = 0; i < 8; i++) {
+            target[offset + i] = (byte) (value >>> (56 - 8 * i));
+        }
+    }
+}
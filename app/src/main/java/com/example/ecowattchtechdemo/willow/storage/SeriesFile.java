@@ -0,0 +1,212 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * One twin's readings in a memory-mapped ring of fixed-size records.
+ *
+ * Layout: a 32-byte header (magic, version, capacity, record size, oldest
+ * slot, record count) followed by capacity records of epochMillis (long),
+ * value (double) and qualityFlags (int). Records are kept in timestamp order,
+ * so range lookups are a binary search over the ring.
+ */
+class SeriesFile {
+    
+    static final int MAGIC = 0x57545331; // "WTS1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 20;
+    
+    private static final int OFFSET_MAGIC = 0;
+    private static final int OFFSET_VERSION = 4;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_RECORD_SIZE = 12;
+    private static final int OFFSET_START = 16;
+    private static final int OFFSET_COUNT = 20;
+    
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private int start;
+    private int count;
+    
+    /**
+     * Open a series file, creating it with the given capacity if it is missing
+     * or unreadable. An existing file keeps the capacity it was created with.
+     */
+    SeriesFile(File path, int capacity) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        this.channel = file.getChannel();
+        
+        int existingCapacity = readExistingCapacity();
+        this.capacity = existingCapacity > 0 ? existingCapacity : capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) this.capacity * RECORD_SIZE);
+        
+        if (existingCapacity > 0) {
+            start = buffer.getInt(OFFSET_START);
+            count = buffer.getInt(OFFSET_COUNT);
+            if (start < 0 || start >= this.capacity || count < 0 || count > this.capacity) {
+                // Torn header: drop the contents rather than serve garbage
+                start = 0;
+                count = 0;
+                writeHeader();
+            }
+        } else {
+            buffer.putInt(OFFSET_MAGIC, MAGIC);
+            buffer.putInt(OFFSET_VERSION, VERSION);
+            buffer.putInt(OFFSET_CAPACITY, this.capacity);
+            buffer.putInt(OFFSET_RECORD_SIZE, RECORD_SIZE);
+            writeHeader();
+        }
+    }
+    
+    private int readExistingCapacity() throws IOException {
+        if (channel.size() < HEADER_SIZE) return 0;
+        
+        file.seek(0);
+        if (file.readInt() != MAGIC || file.readInt() != VERSION) return 0;
+        int existing = file.readInt();
+        int recordSize = file.readInt();
+        if (recordSize != RECORD_SIZE || existing <= 0) return 0;
+        return channel.size() >= HEADER_SIZE + (long) existing * RECORD_SIZE ? existing : 0;
+    }
+    
+    /**
+     * Append a reading. Readings at or before the newest stored timestamp are
+     * ignored; once the ring is full the oldest reading is overwritten.
+     *
+     * @return true if the reading was stored
+     */
+    synchronized boolean append(long epochMillis, double value, int qualityFlags, long retentionMs) {
+        if (count > 0 && epochMillis <= timestampAt(count - 1)) return false;
+        
+        if (count == capacity) {
+            start = (start + 1) % capacity;
+            count--;
+        }
+        
+        int offset = offsetOf(count);
+        buffer.putLong(offset, epochMillis);
+        buffer.putDouble(offset + 8, value);
+        buffer.putInt(offset + 16, qualityFlags);
+        count++;
+        
+        if (retentionMs > 0) {
+            dropBefore(epochMillis - retentionMs);
+        }
+        // The record is in place before the header counts it
+        writeHeader();
+        return true;
+    }
+    
+    /**
+     * Visit readings with from <= epochMillis < to, oldest first
+     *
+     * @return number of readings visited
+     */
+    synchronized int query(long fromMillis, long toMillis, TimeSeriesStore.RecordVisitor visitor) {
+        return query(fromMillis, toMillis, Integer.MAX_VALUE, visitor);
+    }
+    
+    /**
+     * Visit at most maxRecords readings with from <= epochMillis < to, oldest first
+     *
+     * @return number of readings visited
+     */
+    synchronized int query(long fromMillis, long toMillis, int maxRecords, TimeSeriesStore.RecordVisitor visitor) {
+        int visited = 0;
+        for (int i = lowerBound(fromMillis); i < count && visited < maxRecords; i++) {
+            int offset = offsetOf(i);
+            long epochMillis = buffer.getLong(offset);
+            if (epochMillis >= toMillis) break;
+            
+            visitor.onRecord(epochMillis, buffer.getDouble(offset + 8), buffer.getInt(offset + 16));
+            visited++;
+        }
+        return visited;
+    }
+    
+    synchronized int size() {
+        return count;
+    }
+    
+    /**
+     * Get the number of readings at or after a timestamp
+     */
+    synchronized int countFrom(long fromMillis) {
+        return count - lowerBound(fromMillis);
+    }
+    
+    /**
+     * Get the timestamp of the first reading at or after a timestamp, or Long.MIN_VALUE if there is none
+     */
+    synchronized long firstTimestampFrom(long fromMillis) {
+        int index = lowerBound(fromMillis);
+        return index < count ? timestampAt(index) : Long.MIN_VALUE;
+    }
+    
+    synchronized long firstTimestamp() {
+        return count > 0 ? timestampAt(0) : Long.MIN_VALUE;
+    }
+    
+    synchronized long lastTimestamp() {
+        return count > 0 ? timestampAt(count - 1) : Long.MIN_VALUE;
+    }
+    
+    synchronized void flush() {
+        buffer.force();
+    }
+    
+    /**
+     * Flush and release the file. The mapping itself stays valid until the
+     * buffer is garbage collected, which is how NIO unmaps.
+     */
+    synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+        file.close();
+    }
+    
+    /**
+     * Logical index of the first reading at or after a timestamp
+     */
+    private int lowerBound(long epochMillis) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestampAt(mid) < epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private void dropBefore(long cutoffMillis) {
+        int expired = lowerBound(cutoffMillis);
+        if (expired > 0) {
+            start = (start + expired) % capacity;
+            count -= expired;
+        }
+    }
+    
+    private long timestampAt(int index) {
+        return buffer.getLong(offsetOf(index));
+    }
+    
+    private int offsetOf(int index) {
+        return HEADER_SIZE + ((start + index) % capacity) * RECORD_SIZE;
+    }
+    
+    private void writeHeader() {
+        buffer.putInt(OFFSET_START, start);
+        buffer.putInt(OFFSET_COUNT, count);
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import android.content.Context;
+import android.util.Log;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * On-device history of readings, one append-only memory-mapped file per twin.
+ * Reads go straight to the mapped records, so recent readings can be
+ * queried by time range without parsing anything. Each twin keeps at most
+ * capacity readings, and readings older than the retention window are
+ * dropped as new ones arrive.
+ *
+ * Before they are dropped, readings are moved in blocks into a compressed
+ * archive per twin (see SeriesBlockEncoder), which keeps them for the much
+ * longer archive retention at a few bytes per reading. Queries read the
+ * archive and the mapped file as one series.
+ */
+public class TimeSeriesStore {
+    
+    private static final String TAG = "TimeSeriesStore";
+    private static final String DIRECTORY_NAME = "willow-timeseries";
+    private static final String FILE_SUFFIX = ".series";
+    private static final String ARCHIVE_SUFFIX = ".archive";
+    
+    // 14 days of 1-minute readings, about 400 KB per twin; older ones live on in the archive
+    public static final long DEFAULT_RETENTION_MS = 14L * 24 * 60 * 60 * 1000;
+    public static final int DEFAULT_CAPACITY = 14 * 24 * 60;
+    public static final long DEFAULT_ARCHIVE_RETENTION_MS = 366L * 24 * 60 * 60 * 1000;
+    
+    // A day of 1-minute readings per compressed block
+    public static final int ARCHIVE_BLOCK_READINGS = 24 * 60;
+    
+    /**
+     * Receives stored readings in timestamp order
+     */
+    public interface RecordVisitor {
+        void onRecord(long epochMillis, double value, int qualityFlags);
+    }
+    
+    private final File directory;
+    private final int capacity;
+    private final long retentionMs;
+    private final long archiveRetentionMs;
+    private final Map<String, SeriesFile> series = new ConcurrentHashMap<>();
+    private final Map<String, SeriesArchiveFile> archives = new ConcurrentHashMap<>();
+    
+    /**
+     * Open the store under the app's files directory with the default limits
+     */
+    public TimeSeriesStore(Context context) {
+        this(new File(context.getApplicationContext().getFilesDir(), DIRECTORY_NAME),
+            DEFAULT_CAPACITY, DEFAULT_RETENTION_MS, DEFAULT_ARCHIVE_RETENTION_MS);
+    }
+    
+    /**
+     * Open a store without an archive: readings are gone once the ring drops them
+     */
+    public TimeSeriesStore(File directory, int capacity, long retentionMs) {
+        this(directory, capacity, retentionMs, 0);
+    }
+    
+    /**
+     * @param capacity readings kept per twin; applies to files created from now on
+     * @param retentionMs age after which readings are dropped, or 0 to keep them until the ring is full
+     * @param archiveRetentionMs age after which archived readings are dropped, or 0 to not archive
+     */
+    public TimeSeriesStore(File directory, int capacity, long retentionMs, long archiveRetentionMs) {
+        this.directory = directory;
+        this.capacity = capacity;
+        this.retentionMs = retentionMs;
+        this.archiveRetentionMs = archiveRetentionMs;
+    }
+    
+    /**
+     * Store a reading for a twin. Readings must arrive in timestamp order;
+     * anything at or before the newest stored reading is ignored.
+     *
+     * @param qualityFlags TimeSeriesPoint.DataQuality FLAG_* bits, 0 if none reported
+     * @return true if the reading was stored
+     */
+    public boolean append(String twinId, long epochMillis, double value, int qualityFlags) {
+        SeriesFile file = open(twinId, true);
+        if (file == null) return false;
+        
+        if (archiveRetentionMs > 0) {
+            // Archive first, so readings this append is about to expire are kept
+            archive(twinId, file, epochMillis);
+        }
+        return file.append(epochMillis, value, qualityFlags, retentionMs);
+    }
+    
+    /**
+     * Visit a twin's readings with from <= epochMillis < to, oldest first
+     *
+     * @return number of readings visited
+     */
+    public int query(String twinId, long fromMillis, long toMillis, RecordVisitor visitor) {
+        int visited = 0;
+        long archivedUntil = Long.MIN_VALUE;
+        
+        SeriesArchiveFile archive = openArchive(twinId, false);
+        if (archive != null) {
+            archivedUntil = archive.lastTimestamp();
+            if (fromMillis <= archivedUntil) {
+                try {
+                    visited += archive.query(fromMillis, Math.min(toMillis, archivedUntil + 1), visitor);
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to read archive for " + twinId, e);
+                }
+            }
+        }
+        
+        // The ring still holds recently archived readings; skip those
+        SeriesFile file = open(twinId, false);
+        if (file != null) {
+            long ringFrom = archivedUntil == Long.MIN_VALUE ? fromMillis : Math.max(fromMillis, archivedUntil + 1);
+            visited += file.query(ringFrom, toMillis, visitor);
+        }
+        return visited;
+    }
+    
+    /**
+     * Get the number of readings stored for a twin
+     */
+    public int size(String twinId) {
+        SeriesArchiveFile archive = openArchive(twinId, false);
+        long archivedUntil = archive != null ? archive.lastTimestamp() : Long.MIN_VALUE;
+        int archived = archive != null ? archive.size() : 0;
+        
+        SeriesFile file = open(twinId, false);
+        if (file == null) return archived;
+        return archived + (archivedUntil == Long.MIN_VALUE ? file.size() : file.countFrom(archivedUntil + 1));
+    }
+    
+    /**
+     * Get the timestamp of a twin's newest reading, or Long.MIN_VALUE if there is none
+     */
+    public long getLastTimestamp(String twinId) {
+        SeriesFile file = open(twinId, false);
+        SeriesArchiveFile archive = openArchive(twinId, false);
+        return Math.max(file != null ? file.lastTimestamp() : Long.MIN_VALUE,
+            archive != null ? archive.lastTimestamp() : Long.MIN_VALUE);
+    }
+    
+    /**
+     * Get the timestamp of a twin's oldest reading, or Long.MIN_VALUE if there is none
+     */
+    public long getFirstTimestamp(String twinId) {
+        SeriesArchiveFile archive = openArchive(twinId, false);
+        if (archive != null && archive.blockCount() > 0) return archive.firstTimestamp();
+        
+        SeriesFile file = open(twinId, false);
+        return file != null ? file.firstTimestamp() : Long.MIN_VALUE;
+    }
+    
+    /**
+     * Write every open series back to storage. The OS does this on its own
+     * eventually; call it when the app is going to the background.
+     */
+    public void flush() {
+        for (SeriesFile file : series.values()) {
+            file.flush();
+        }
+        for (Map.Entry<String, SeriesArchiveFile> entry : archives.entrySet()) {
+            try {
+                entry.getValue().flush();
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to flush archive for " + entry.getKey(), e);
+            }
+        }
+    }
+    
+    /**
+     * Flush and close every open series. The store reopens them on next use.
+     */
+    public void close() {
+        for (Map.Entry<String, SeriesFile> entry : series.entrySet()) {
+            if (series.remove(entry.getKey(), entry.getValue())) {
+                try {
+                    entry.getValue().close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to close series for " + entry.getKey(), e);
+                }
+            }
+        }
+        for (Map.Entry<String, SeriesArchiveFile> entry : archives.entrySet()) {
+            if (archives.remove(entry.getKey(), entry.getValue())) {
+                try {
+                    entry.getValue().close();
+                } catch (IOException e) {
+                    Log.w(TAG, "Failed to close archive for " + entry.getKey(), e);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Move readings from the ring into compressed blocks once a block's worth
+     * has built up, or sooner when the ring is about to drop them
+     */
+    private void archive(String twinId, SeriesFile file, long nowMillis) {
+        SeriesArchiveFile archive = openArchive(twinId, true);
+        if (archive == null) return;
+        
+        // Small rings seal smaller blocks, so readings never fall out before being archived
+        int blockReadings = Math.max(1, Math.min(ARCHIVE_BLOCK_READINGS, capacity / 2));
+        synchronized (archive) {
+            try {
+                while (true) {
+                    long archivedUntil = archive.lastTimestamp();
+                    long from = archivedUntil == Long.MIN_VALUE ? Long.MIN_VALUE : archivedUntil + 1;
+                    int pending = file.countFrom(from);
+                    if (pending == 0) return;
+                    
+                    boolean expiring = retentionMs > 0 && file.firstTimestampFrom(from) < nowMillis - retentionMs / 2;
+                    if (pending < blockReadings && !expiring) return;
+                    
+                    SeriesBlockEncoder encoder = new SeriesBlockEncoder(blockReadings);
+                    file.query(from, Long.MAX_VALUE, blockReadings, encoder::add);
+                    archive.append(encoder.finish());
+                    archive.dropBefore(nowMillis - archiveRetentionMs);
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "Failed to archive readings for " + twinId, e);
+            }
+        }
+    }
+    
+    private SeriesFile open(String twinId, boolean create) {
+        SeriesFile file = series.get(twinId);
+        if (file != null) return file;
+        
+        File path = new File(directory, fileName(twinId, FILE_SUFFIX));
+        if (!create && !path.exists()) return null;
+        
+        synchronized (series) {
+            file = series.get(twinId);
+            if (file != null) return file;
+            
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.e(TAG, "Cannot create " + directory);
+                return null;
+            }
+            try {
+                file = new SeriesFile(path, capacity);
+                series.put(twinId, file);
+                return file;
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open series for " + twinId, e);
+                return null;
+            }
+        }
+    }
+    
+    private SeriesArchiveFile openArchive(String twinId, boolean create) {
+        SeriesArchiveFile archive = archives.get(twinId);
+        if (archive != null) return archive;
+        
+        File path = new File(directory, fileName(twinId, ARCHIVE_SUFFIX));
+        if (!create && !path.exists()) return null;
+        
+        synchronized (archives) {
+            archive = archives.get(twinId);
+            if (archive != null) return archive;
+            
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                Log.e(TAG, "Cannot create " + directory);
+                return null;
+            }
+            try {
+                archive = new SeriesArchiveFile(path);
+                archives.put(twinId, archive);
+                return archive;
+            } catch (IOException e) {
+                Log.e(TAG, "Failed to open archive for " + twinId, e);
+                return null;
+            }
+        }
+    }
+    
+    /**
+     * Twin IDs can hold characters that are not safe in file names, so keep the
+     * safe part for readability and add a hash to tell similar IDs apart
+     */
+    private static String fileName(String twinId, String suffix) {
+        return twinId.replaceAll("[^A-Za-z0-9_-]", "_") + "-" + Integer.toHexString(twinId.hashCode()) + suffix;
+    }
+}
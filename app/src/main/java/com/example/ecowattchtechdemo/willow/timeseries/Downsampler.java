@@ -0,0 +1,157 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+/**
+ * Reduces a series to about as many points as a chart has pixels while
+ * keeping its shape. Works on parallel primitive arrays of epoch millis and
+ * values, sorted by time, and writes the indexes of the points to keep into
+ * a caller-supplied array, so nothing is allocated per call and the caller
+ * can pick up flags or labels for the kept points from its own columns.
+ *
+ * Two modes:
+ * - Largest-Triangle-Three-Buckets picks one point per bucket, the one that
+ *   forms the largest triangle with its neighbours. Smooth lines that keep
+ *   visible peaks.
+ * - Min/max keeps the lowest and highest point of every pixel column, so no
+ *   spike is ever dropped. Up to two points per column.
+ */
+public final class Downsampler {
+    
+    private Downsampler() {}
+    
+    /**
+     * Get how large the index array passed to minMax must be
+     */
+    public static int minMaxCapacity(int pixelWidth) {
+        return 2 * Math.max(pixelWidth, 1) + 2;
+    }
+    
+    /**
+     * Largest-Triangle-Three-Buckets over points [from, from + length). The
+     * first and last points are always kept. If length is at most threshold,
+     * every point is kept.
+     *
+     * @param threshold number of points wanted, at least 3
+     * @param outIndexes receives the kept indexes in order; needs min(length, threshold) slots
+     * @return number of indexes written
+     * @throws IllegalArgumentException if threshold is less than 3, which leaves no room for
+     *         a point between the first and last
+     */
+    public static int lttb(long[] timestamps, double[] values, int from, int length, int threshold,
+                           int[] outIndexes) {
+        if (threshold < 3) {
+            throw new IllegalArgumentException("LTTB threshold must be at least 3: " + threshold);
+        }
+        if (length <= threshold) {
+            for (int i = 0; i < length; i++) {
+                outIndexes[i] = from + i;
+            }
+            return length;
+        }
+        
+        // Times relative to the first point keep the triangle areas precise
+        long origin = timestamps[from];
+        int end = from + length;
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        
+        int written = 0;
+        int selected = from;
+        outIndexes[written++] = selected;
+        
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int bucketStart = from + 1 + (int) (bucket * bucketSize);
+            int bucketEnd = from + 1 + (int) ((bucket + 1) * bucketSize);
+            
+            // The next bucket's average stands in for the point not chosen yet
+            int nextStart = bucketEnd;
+            int nextEnd = Math.min(from + 1 + (int) ((bucket + 2) * bucketSize), end);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += timestamps[i] - origin;
+                averageY += values[i];
+            }
+            int nextCount = nextEnd - nextStart;
+            averageX /= nextCount;
+            averageY /= nextCount;
+            
+            double selectedX = timestamps[selected] - origin;
+            double selectedY = values[selected];
+            double largestArea = -1;
+            int largest = bucketStart;
+            for (int i = bucketStart; i < bucketEnd; i++) {
+                // Twice the triangle's area; the factor does not change which is largest
+                double area = Math.abs((selectedX - averageX) * (values[i] - selectedY)
+                    - (selectedX - (timestamps[i] - origin)) * (averageY - selectedY));
+                if (area > largestArea) {
+                    largestArea = area;
+                    largest = i;
+                }
+            }
+            
+            selected = largest;
+            outIndexes[written++] = selected;
+        }
+        
+        outIndexes[written++] = end - 1;
+        return written;
+    }
+    
+    /**
+     * Keep the lowest and highest point in each of pixelWidth equal time
+     * columns over points [from, from + length), plus the first and last
+     * points. Kept indexes come out in time order.
+     *
+     * @param outIndexes receives the kept indexes; needs minMaxCapacity(pixelWidth) slots
+     * @return number of indexes written
+     */
+    public static int minMax(long[] timestamps, double[] values, int from, int length, int pixelWidth,
+                             int[] outIndexes) {
+        if (length <= 0) return 0;
+        
+        int end = from + length;
+        int columns = Math.max(pixelWidth, 1);
+        if (length <= 2 * columns) {
+            for (int i = 0; i < length; i++) {
+                outIndexes[i] = from + i;
+            }
+            return length;
+        }
+        
+        long first = timestamps[from];
+        // Columns per millisecond; the +1 keeps the last point inside the last column
+        double scale = columns / ((double) (timestamps[end - 1] - first) + 1);
+        
+        int written = 0;
+        outIndexes[written++] = from;
+        
+        int column = -1;
+        int minIndex = -1;
+        int maxIndex = -1;
+        for (int i = from + 1; i < end - 1; i++) {
+            int pointColumn = (int) ((timestamps[i] - first) * scale);
+            if (pointColumn != column) {
+                written = emitColumn(minIndex, maxIndex, outIndexes, written);
+                column = pointColumn;
+                minIndex = i;
+                maxIndex = i;
+            } else {
+                if (values[i] < values[minIndex]) minIndex = i;
+                if (values[i] > values[maxIndex]) maxIndex = i;
+            }
+        }
+        written = emitColumn(minIndex, maxIndex, outIndexes, written);
+        
+        outIndexes[written++] = end - 1;
+        return written;
+    }
+    
+    private static int emitColumn(int minIndex, int maxIndex, int[] outIndexes, int written) {
+        if (minIndex < 0) return written;
+        
+        outIndexes[written++] = Math.min(minIndex, maxIndex);
+        if (minIndex != maxIndex) {
+            outIndexes[written++] = Math.max(minIndex, maxIndex);
+        }
+        return written;
+    }
+}
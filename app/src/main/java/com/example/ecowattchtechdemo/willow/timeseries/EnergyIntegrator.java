@@ -0,0 +1,184 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Running kWh total for one building's local day, built from kW samples
+ * with time-weighted trapezoids. Each sample costs O(1): only the previous
+ * sample and the running totals are kept.
+ *
+ * An interval is left out of the total, and counted as a gap instead, when
+ * it is longer than the allowed gap or when the sample that closes it is
+ * flagged sparse or delayed. Samples with offline, out-of-range or flatline
+ * readings are dropped. An interval that crosses local midnight is split at
+ * midnight, with the kW there interpolated, so each day gets its own share.
+ */
+public class EnergyIntegrator {
+    
+    private static final double MILLIS_PER_HOUR = 60 * 60 * 1000.0;
+    private static final int GAP_FLAGS =
+        TimeSeriesPoint.DataQuality.FLAG_SPARSE | TimeSeriesPoint.DataQuality.FLAG_DELAYED;
+    
+    private final TimeZone zone;
+    private final long maxGapMs;
+    
+    private boolean hasLast;
+    private long lastMillis;
+    private double lastKW;
+    
+    private long dayStart = Long.MIN_VALUE;
+    private long dayEnd = Long.MIN_VALUE;
+    private double dayKWh;
+    private long dayCoveredMs;
+    private long dayGapMs;
+    
+    private long previousDayStart = Long.MIN_VALUE;
+    private double previousDayKWh = Double.NaN;
+    
+    /**
+     * @param zone time zone whose midnight ends a day
+     * @param maxGapMs longest interval between samples that is still integrated
+     */
+    public EnergyIntegrator(TimeZone zone, long maxGapMs) {
+        this.zone = zone;
+        this.maxGapMs = maxGapMs;
+    }
+    
+    /**
+     * Add a kW sample. Samples must arrive in time order; older or repeated
+     * ones, and ones with an unreadable timestamp, are ignored.
+     *
+     * @param qualityFlags TimeSeriesPoint.DataQuality FLAG_* bits
+     * @return true if the sample was used
+     */
+    public synchronized boolean add(long epochMillis, double kW, int qualityFlags) {
+        if (epochMillis == Timestamps.INVALID) return false;
+        if ((qualityFlags & TimeSeriesPoint.DataQuality.BAD_QUALITY_MASK) != 0) return false;
+        if (hasLast && epochMillis <= lastMillis) return false;
+        
+        if (!hasLast) {
+            startDay(epochMillis);
+        } else {
+            boolean gap = (qualityFlags & GAP_FLAGS) != 0 || epochMillis - lastMillis > maxGapMs;
+            long segmentStart = lastMillis;
+            double segmentStartKW = lastKW;
+            
+            if (epochMillis >= dayEnd) {
+                // Close out the current day at midnight, then go straight to the
+                // sample's day rather than stepping through every day in between
+                long closedDayEnd = dayEnd;
+                double boundaryKW = interpolate(epochMillis, kW, closedDayEnd);
+                accumulate(segmentStart, segmentStartKW, closedDayEnd, boundaryKW, gap);
+                previousDayStart = dayStart;
+                previousDayKWh = dayKWh;
+                startDay(epochMillis);
+                
+                if (dayStart != closedDayEnd) {
+                    // Whole days were skipped; only the last of them is kept
+                    long skippedDayStart = startOfDay(dayStart - 1);
+                    double skippedStartKW = interpolate(epochMillis, kW, skippedDayStart);
+                    double skippedEndKW = interpolate(epochMillis, kW, dayStart);
+                    previousDayStart = skippedDayStart;
+                    previousDayKWh = gap ? 0
+                        : (skippedStartKW + skippedEndKW) / 2 * ((dayStart - skippedDayStart) / MILLIS_PER_HOUR);
+                }
+                segmentStart = dayStart;
+                segmentStartKW = interpolate(epochMillis, kW, dayStart);
+            }
+            accumulate(segmentStart, segmentStartKW, epochMillis, kW, gap);
+        }
+        
+        hasLast = true;
+        lastMillis = epochMillis;
+        lastKW = kW;
+        return true;
+    }
+    
+    /**
+     * Get the kWh integrated so far for the local day containing a moment, 0
+     * if nothing was integrated that day, or NaN for days no longer kept
+     */
+    public synchronized double getKWhForDay(long epochMillis) {
+        if (dayStart == Long.MIN_VALUE) return 0;
+        if (epochMillis >= dayEnd) return 0;
+        if (epochMillis >= dayStart) return dayKWh;
+        if (previousDayStart != Long.MIN_VALUE && epochMillis >= previousDayStart) return previousDayKWh;
+        return Double.NaN;
+    }
+    
+    /**
+     * Get how much of the day containing a moment is covered by integrated
+     * intervals, so callers can tell a real total from a partial one
+     */
+    public synchronized long getCoveredMillis(long epochMillis) {
+        return dayStart != Long.MIN_VALUE && epochMillis >= dayStart && epochMillis < dayEnd ? dayCoveredMs : 0;
+    }
+    
+    /**
+     * Get how much of the current day fell into gaps and was left out
+     */
+    public synchronized long getGapMillis() {
+        return dayGapMs;
+    }
+    
+    /**
+     * Get the start of the current local day, or Long.MIN_VALUE before the first sample
+     */
+    public synchronized long getDayStart() {
+        return dayStart;
+    }
+    
+    private void accumulate(long fromMillis, double fromKW, long toMillis, double toKW, boolean gap) {
+        long span = toMillis - fromMillis;
+        if (span <= 0) return;
+        
+        if (gap) {
+            dayGapMs += span;
+        } else {
+            dayKWh += (fromKW + toKW) / 2 * (span / MILLIS_PER_HOUR);
+            dayCoveredMs += span;
+        }
+    }
+    
+    /**
+     * kW on the straight line from the previous sample to the new one
+     */
+    private double interpolate(long epochMillis, double kW, long atMillis) {
+        double fraction = (double) (atMillis - lastMillis) / (epochMillis - lastMillis);
+        return lastKW + (kW - lastKW) * fraction;
+    }
+    
+    /**
+     * Begin the local day containing a moment. Uses Calendar so DST days get
+     * their real 23 or 25 hours; this runs once per day, not per sample.
+     */
+    private void startDay(long epochMillis) {
+        Calendar calendar = midnightBefore(epochMillis);
+        dayStart = calendar.getTimeInMillis();
+        calendar.add(Calendar.DAY_OF_MONTH, 1);
+        dayEnd = calendar.getTimeInMillis();
+        
+        dayKWh = 0;
+        dayCoveredMs = 0;
+        dayGapMs = 0;
+    }
+    
+    /**
+     * Start of the local day containing a moment
+     */
+    private long startOfDay(long epochMillis) {
+        return midnightBefore(epochMillis).getTimeInMillis();
+    }
+    
+    private Calendar midnightBefore(long epochMillis) {
+        Calendar calendar = Calendar.getInstance(zone);
+        calendar.setTimeInMillis(epochMillis);
+        calendar.set(Calendar.HOUR_OF_DAY, 0);
+        calendar.set(Calendar.MINUTE, 0);
+        calendar.set(Calendar.SECOND, 0);
+        calendar.set(Calendar.MILLISECOND, 0);
+        return calendar;
+    }
+}
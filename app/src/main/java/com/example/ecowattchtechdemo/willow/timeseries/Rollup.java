@@ -0,0 +1,59 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+/**
+ * Min, max, sum and count of the readings in a time range
+ */
+public final class Rollup {
+    
+    public static final Rollup EMPTY = new Rollup(Double.NaN, Double.NaN, 0, 0);
+    
+    private final double min;
+    private final double max;
+    private final double sum;
+    private final int count;
+    
+    public Rollup(double min, double max, double sum, int count) {
+        this.min = min;
+        this.max = max;
+        this.sum = sum;
+        this.count = count;
+    }
+    
+    /**
+     * Get the smallest reading, or NaN if there were none
+     */
+    public double getMin() {
+        return min;
+    }
+    
+    /**
+     * Get the largest reading, or NaN if there were none
+     */
+    public double getMax() {
+        return max;
+    }
+    
+    public double getSum() {
+        return sum;
+    }
+    
+    public int getCount() {
+        return count;
+    }
+    
+    /**
+     * Get the mean reading, or NaN if there were none
+     */
+    public double getAverage() {
+        return count > 0 ? sum / count : Double.NaN;
+    }
+    
+    public boolean isEmpty() {
+        return count == 0;
+    }
+    
+    @Override
+    public String toString() {
+        return "Rollup{min=" + min + ", max=" + max + ", sum=" + sum + ", count=" + count + "}";
+    }
+}
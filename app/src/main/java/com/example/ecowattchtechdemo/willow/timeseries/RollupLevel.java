@@ -0,0 +1,163 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * One resolution of a twin's rollups: buckets sorted by start time, with
+ * min, max, sum and count in parallel primitive arrays. New buckets are
+ * appended at the end; a late reading updates or inserts just its own bucket.
+ * Not thread-safe; RollupPyramid guards each twin with its own lock.
+ */
+final class RollupLevel {
+    
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private double[] mins = new double[INITIAL_CAPACITY];
+    private double[] maxes = new double[INITIAL_CAPACITY];
+    private double[] sums = new double[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    
+    // Live buckets are head .. head + size - 1; evicting the oldest just moves head
+    private int head;
+    private int size;
+    
+    // Buckets starting before this have been evicted, so the level cannot answer for them
+    private long retainedFrom = Long.MIN_VALUE;
+    
+    /**
+     * Add a reading to the bucket starting at bucketStart, creating the bucket
+     * if needed. Buckets that were already evicted are not brought back.
+     */
+    void add(long bucketStart, double value) {
+        if (bucketStart < retainedFrom) return;
+        
+        int index = size > 0 && bucketStart > starts[head + size - 1] ? size : lowerBound(bucketStart);
+        if (index < size && starts[head + index] == bucketStart) {
+            int at = head + index;
+            mins[at] = Math.min(mins[at], value);
+            maxes[at] = Math.max(maxes[at], value);
+            sums[at] += value;
+            counts[at]++;
+            return;
+        }
+        
+        insert(index, bucketStart, value);
+    }
+    
+    /**
+     * Drop buckets starting before a cutoff
+     */
+    void evictBefore(long cutoffMillis) {
+        if (cutoffMillis <= retainedFrom) return;
+        
+        retainedFrom = cutoffMillis;
+        // Usually nothing or a single bucket expires, so walk rather than search
+        while (size > 0 && starts[head] < cutoffMillis) {
+            head++;
+            size--;
+        }
+        if (size == 0) {
+            head = 0;
+        }
+    }
+    
+    /**
+     * Whether buckets starting at or after this time are all still held
+     */
+    boolean covers(long epochMillis) {
+        return epochMillis >= retainedFrom;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    /**
+     * Logical index of the bucket starting exactly at a time, or -1
+     */
+    int indexOf(long bucketStart) {
+        int index = lowerBound(bucketStart);
+        return index < size && starts[head + index] == bucketStart ? index : -1;
+    }
+    
+    /**
+     * Logical index of the first bucket starting at or after a time
+     */
+    int lowerBound(long epochMillis) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[head + mid] < epochMillis) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    long startAt(int index) {
+        return starts[head + index];
+    }
+    
+    double minAt(int index) {
+        return mins[head + index];
+    }
+    
+    double maxAt(int index) {
+        return maxes[head + index];
+    }
+    
+    double sumAt(int index) {
+        return sums[head + index];
+    }
+    
+    int countAt(int index) {
+        return counts[head + index];
+    }
+    
+    private void insert(int index, long bucketStart, double value) {
+        if (head + size == starts.length) {
+            // Reuse the space freed by eviction when there is plenty, otherwise grow
+            relocate(head > 0 && size < starts.length / 2 ? starts.length : starts.length * 2);
+        }
+        
+        int at = head + index;
+        int tail = size - index;
+        if (tail > 0) {
+            System.arraycopy(starts, at, starts, at + 1, tail);
+            System.arraycopy(mins, at, mins, at + 1, tail);
+            System.arraycopy(maxes, at, maxes, at + 1, tail);
+            System.arraycopy(sums, at, sums, at + 1, tail);
+            System.arraycopy(counts, at, counts, at + 1, tail);
+        }
+        starts[at] = bucketStart;
+        mins[at] = value;
+        maxes[at] = value;
+        sums[at] = value;
+        counts[at] = 1;
+        size++;
+    }
+    
+    /**
+     * Move the live buckets to the front of arrays of the given capacity
+     */
+    private void relocate(int capacity) {
+        if (capacity == starts.length) {
+            System.arraycopy(starts, head, starts, 0, size);
+            System.arraycopy(mins, head, mins, 0, size);
+            System.arraycopy(maxes, head, maxes, 0, size);
+            System.arraycopy(sums, head, sums, 0, size);
+            System.arraycopy(counts, head, counts, 0, size);
+        } else {
+            starts = Arrays.copyOfRange(starts, head, head + capacity);
+            mins = Arrays.copyOfRange(mins, head, head + capacity);
+            maxes = Arrays.copyOfRange(maxes, head, head + capacity);
+            sums = Arrays.copyOfRange(sums, head, head + capacity);
+            counts = Arrays.copyOfRange(counts, head, head + capacity);
+        }
+        head = 0;
+    }
+}
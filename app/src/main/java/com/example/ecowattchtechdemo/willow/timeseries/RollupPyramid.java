@@ -0,0 +1,404 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Min/max/sum/count rollups per twin at 1-minute, 15-minute, hourly and daily
+ * resolution, kept up to date as readings are ingested. Each reading updates
+ * one bucket per resolution, so a late reading corrects only the buckets it
+ * falls in. Daily buckets follow local midnight in the given zone.
+ *
+ * Readings are de-duplicated, so overlapping polls and history backfills
+ * can be fed in freely. Within the 1-minute retention window (relative to
+ * the twin's newest reading) that is by exact timestamp. Older readings
+ * still update every coarser resolution that keeps their buckets, so a
+ * month of history streamed in after live polling fills the 15-minute,
+ * hourly and daily buckets it covers; at that age they are de-duplicated
+ * per minute, so a minute that already holds a reading takes no more.
+ * Readings older than the daily retention are ignored.
+ */
+public class RollupPyramid implements TimeSeriesSink {
+    
+    private static final long MINUTE_MS = 60 * 1000L;
+    private static final long DAY_MS = 24 * 60 * MINUTE_MS;
+    
+    public enum Resolution {
+        MINUTE(MINUTE_MS, 2 * DAY_MS),
+        FIFTEEN_MINUTES(15 * MINUTE_MS, 31 * DAY_MS),
+        HOUR(60 * MINUTE_MS, 92 * DAY_MS),
+        // Nominal width; the actual buckets run from local midnight to local midnight
+        DAY(DAY_MS, 731 * DAY_MS);
+        
+        private final long widthMillis;
+        private final long retentionMillis;
+        
+        Resolution(long widthMillis, long retentionMillis) {
+            this.widthMillis = widthMillis;
+            this.retentionMillis = retentionMillis;
+        }
+        
+        public long getWidthMillis() {
+            return widthMillis;
+        }
+        
+        /**
+         * How far behind a twin's newest reading this resolution keeps buckets
+         */
+        public long getRetentionMillis() {
+            return retentionMillis;
+        }
+        
+        /**
+         * Get the coarsest resolution no wider than a step, e.g. the chart
+         * range divided by the number of points it can draw
+         */
+        public static Resolution forStep(long stepMillis) {
+            for (int i = RESOLUTIONS.length - 1; i > 0; i--) {
+                if (RESOLUTIONS[i].widthMillis <= stepMillis) return RESOLUTIONS[i];
+            }
+            return MINUTE;
+        }
+    }
+    
+    /**
+     * Receives buckets in start time order
+     */
+    public interface RollupVisitor {
+        void onBucket(long startMillis, long endMillis, double min, double max, double sum, int count);
+    }
+    
+    private static final Resolution[] RESOLUTIONS = Resolution.values();
+    
+    private final TimeZone zone;
+    private final Map<String, TwinRollups> twins = new ConcurrentHashMap<>();
+    
+    /**
+     * @param zone time zone whose midnight starts a daily bucket
+     */
+    public RollupPyramid(TimeZone zone) {
+        this.zone = zone;
+    }
+    
+    @Override
+    public void onPoint(String twinId, long sourceTimestamp, double value, int qualityFlags) {
+        add(twinId, sourceTimestamp, value, qualityFlags);
+    }
+    
+    /**
+     * Add a reading to every resolution. Offline, out-of-range and flatline
+     * readings are left out.
+     *
+     * @param qualityFlags TimeSeriesPoint.DataQuality FLAG_* bits
+     * @return true if the reading was counted; false if it was rejected, a duplicate or too old for every resolution
+     */
+    public boolean add(String twinId, long epochMillis, double value, int qualityFlags) {
+        if (twinId == null || epochMillis == Timestamps.INVALID || Double.isNaN(value) || Double.isInfinite(value)) {
+            return false;
+        }
+        if ((qualityFlags & TimeSeriesPoint.DataQuality.BAD_QUALITY_MASK) != 0) return false;
+        
+        return twins.computeIfAbsent(twinId, id -> new TwinRollups(zone)).add(epochMillis, value);
+    }
+    
+    /**
+     * Add every reading in a batch
+     *
+     * @return number of readings counted
+     */
+    public int addAll(TimeSeriesBatch batch) {
+        int added = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            if (add(batch.getTwinId(i), batch.getTimestamp(i), batch.getValue(i), batch.getQualityFlags(i))) {
+                added++;
+            }
+        }
+        return added;
+    }
+    
+    /**
+     * Visit a twin's buckets at one resolution that start in [from, to).
+     * The visitor runs under the twin's lock, so keep it short.
+     *
+     * @return number of buckets visited
+     */
+    public int query(String twinId, Resolution resolution, long fromMillis, long toMillis, RollupVisitor visitor) {
+        TwinRollups rollups = twins.get(twinId);
+        return rollups != null ? rollups.query(resolution, fromMillis, toMillis, visitor) : 0;
+    }
+    
+    /**
+     * Summarize a twin's readings in [from, to), with both ends rounded up to
+     * the minute. The range is covered with the coarsest buckets that fit,
+     * so a month costs about thirty daily buckets plus finer ones at the
+     * edges. Edges older than the finer resolutions' retention are left out.
+     */
+    public Rollup summarize(String twinId, long fromMillis, long toMillis) {
+        TwinRollups rollups = twins.get(twinId);
+        return rollups != null ? rollups.summarize(fromMillis, toMillis) : Rollup.EMPTY;
+    }
+    
+    /**
+     * Forget a twin's rollups
+     */
+    public void remove(String twinId) {
+        twins.remove(twinId);
+    }
+    
+    private static long ceilToMinute(long epochMillis) {
+        return -Math.floorDiv(-epochMillis, MINUTE_MS) * MINUTE_MS;
+    }
+    
+    /**
+     * All resolutions for one twin, guarded by the twin's own lock
+     */
+    private static final class TwinRollups {
+        private final RollupLevel[] levels = new RollupLevel[RESOLUTIONS.length];
+        private final RecentTimestamps seen = new RecentTimestamps();
+        private final MinuteMarks seenMinutes = new MinuteMarks();
+        private final Calendar calendar;
+        private long newest = Long.MIN_VALUE;
+        
+        // The local day last looked up, so daily buckets cost a Calendar only once per day
+        private long dayStart = Long.MIN_VALUE;
+        private long dayEnd = Long.MIN_VALUE;
+        
+        TwinRollups(TimeZone zone) {
+            calendar = Calendar.getInstance(zone);
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = new RollupLevel();
+            }
+        }
+        
+        synchronized boolean add(long epochMillis, double value) {
+            boolean recent = newest == Long.MIN_VALUE || epochMillis >= newest - Resolution.MINUTE.retentionMillis;
+            if (recent) {
+                if (!seen.add(epochMillis)) return false;
+            } else {
+                if (epochMillis < newest - Resolution.DAY.retentionMillis) return false;
+                if (seenMinutes.isMarked(epochMillis)) return false;
+            }
+            seenMinutes.mark(epochMillis);
+            
+            // Each level drops readings for buckets it no longer keeps, so old ones land in the coarser levels only
+            for (int i = 0; i < levels.length; i++) {
+                levels[i].add(bucketStart(RESOLUTIONS[i], epochMillis), value);
+            }
+            
+            if (epochMillis > newest) {
+                newest = epochMillis;
+                for (int i = 0; i < levels.length; i++) {
+                    levels[i].evictBefore(newest - RESOLUTIONS[i].retentionMillis);
+                }
+                seen.evictBefore(newest - Resolution.MINUTE.retentionMillis);
+                seenMinutes.evictBefore(newest - Resolution.DAY.retentionMillis);
+            }
+            return true;
+        }
+        
+        synchronized int query(Resolution resolution, long fromMillis, long toMillis, RollupVisitor visitor) {
+            RollupLevel level = levels[resolution.ordinal()];
+            int visited = 0;
+            for (int i = level.lowerBound(fromMillis); i < level.size(); i++) {
+                long start = level.startAt(i);
+                if (start >= toMillis) break;
+                
+                visitor.onBucket(start, bucketEnd(resolution, start), level.minAt(i), level.maxAt(i),
+                    level.sumAt(i), level.countAt(i));
+                visited++;
+            }
+            return visited;
+        }
+        
+        synchronized Rollup summarize(long fromMillis, long toMillis) {
+            RollupLevel days = levels[Resolution.DAY.ordinal()];
+            RollupLevel minutes = levels[Resolution.MINUTE.ordinal()];
+            if (days.size() == 0) return Rollup.EMPTY;
+            
+            // Only walk the span that actually holds readings
+            long t = Math.max(ceilToMinute(fromMillis), days.startAt(0));
+            long end = ceilToMinute(toMillis);
+            if (minutes.size() > 0) {
+                end = Math.min(end, minutes.startAt(minutes.size() - 1) + MINUTE_MS);
+            }
+            
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            int count = 0;
+            while (t < end) {
+                long next = Long.MIN_VALUE;
+                int finestCovering = -1;
+                for (int r = levels.length - 1; r >= 0; r--) {
+                    if (!levels[r].covers(t)) break;
+                    finestCovering = r;
+                    
+                    Resolution resolution = RESOLUTIONS[r];
+                    if (bucketStart(resolution, t) != t) continue;
+                    long bucketEnd = bucketEnd(resolution, t);
+                    if (bucketEnd > end) continue;
+                    
+                    int index = levels[r].indexOf(t);
+                    if (index >= 0) {
+                        min = Math.min(min, levels[r].minAt(index));
+                        max = Math.max(max, levels[r].maxAt(index));
+                        sum += levels[r].sumAt(index);
+                        count += levels[r].countAt(index);
+                    }
+                    next = bucketEnd;
+                    break;
+                }
+                if (next == Long.MIN_VALUE) {
+                    // No held bucket starts here; skip the rest of the finest one that still covers t
+                    Resolution resolution = RESOLUTIONS[Math.max(finestCovering, 0)];
+                    next = Math.max(bucketEnd(resolution, bucketStart(resolution, t)), t + MINUTE_MS);
+                }
+                t = next;
+            }
+            return count > 0 ? new Rollup(min, max, sum, count) : Rollup.EMPTY;
+        }
+        
+        private long bucketStart(Resolution resolution, long epochMillis) {
+            if (resolution == Resolution.DAY) {
+                localDay(epochMillis);
+                return dayStart;
+            }
+            return Math.floorDiv(epochMillis, resolution.widthMillis) * resolution.widthMillis;
+        }
+        
+        private long bucketEnd(Resolution resolution, long bucketStart) {
+            if (resolution == Resolution.DAY) {
+                localDay(bucketStart);
+                return dayEnd;
+            }
+            return bucketStart + resolution.widthMillis;
+        }
+        
+        /**
+         * Point dayStart and dayEnd at the local day containing a moment. Uses
+         * Calendar so DST days get their real 23 or 25 hours.
+         */
+        private void localDay(long epochMillis) {
+            if (epochMillis >= dayStart && epochMillis < dayEnd) return;
+            
+            calendar.setTimeInMillis(epochMillis);
+            calendar.set(Calendar.HOUR_OF_DAY, 0);
+            calendar.set(Calendar.MINUTE, 0);
+            calendar.set(Calendar.SECOND, 0);
+            calendar.set(Calendar.MILLISECOND, 0);
+            dayStart = calendar.getTimeInMillis();
+            calendar.add(Calendar.DAY_OF_MONTH, 1);
+            dayEnd = calendar.getTimeInMillis();
+        }
+    }
+    
+    /**
+     * One bit per minute that has had a reading counted, kept as long as the
+     * daily buckets, for telling re-sent readings from new ones once they are
+     * older than the exact timestamps in RecentTimestamps. Days without
+     * readings take no space; a day with any costs 184 bytes.
+     */
+    private static final class MinuteMarks {
+        private static final int MINUTES_PER_DAY = 24 * 60;
+        
+        private final Map<Long, long[]> days = new HashMap<>();
+        private long retainedFromDay = Long.MIN_VALUE;
+        
+        boolean isMarked(long epochMillis) {
+            long[] bits = days.get(Math.floorDiv(epochMillis, DAY_MS));
+            int minute = minuteOfDay(epochMillis);
+            return bits != null && (bits[minute >>> 6] & (1L << minute)) != 0;
+        }
+        
+        void mark(long epochMillis) {
+            long day = Math.floorDiv(epochMillis, DAY_MS);
+            long[] bits = days.get(day);
+            if (bits == null) {
+                bits = new long[(MINUTES_PER_DAY + 63) / 64];
+                days.put(day, bits);
+            }
+            int minute = minuteOfDay(epochMillis);
+            bits[minute >>> 6] |= 1L << minute;
+        }
+        
+        void evictBefore(long cutoffMillis) {
+            long cutoffDay = Math.floorDiv(cutoffMillis, DAY_MS);
+            // Runs for every new reading, but only does work once a day
+            if (cutoffDay <= retainedFromDay) return;
+            
+            retainedFromDay = cutoffDay;
+            Iterator<Long> iterator = days.keySet().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next() < cutoffDay) {
+                    iterator.remove();
+                }
+            }
+        }
+        
+        private static int minuteOfDay(long epochMillis) {
+            return (int) (Math.floorMod(epochMillis, DAY_MS) / MINUTE_MS);
+        }
+    }
+    
+    /**
+     * Sorted timestamps of the readings counted within the 1-minute retention
+     * window, for telling re-sent readings from new ones
+     */
+    private static final class RecentTimestamps {
+        private long[] timestamps = new long[64];
+        private int head;
+        private int size;
+        
+        /**
+         * @return false if the timestamp was already present
+         */
+        boolean add(long epochMillis) {
+            int index = size > 0 && epochMillis > timestamps[head + size - 1] ? size : lowerBound(epochMillis);
+            if (index < size && timestamps[head + index] == epochMillis) return false;
+            
+            if (head + size == timestamps.length) {
+                if (head > 0 && size < timestamps.length / 2) {
+                    System.arraycopy(timestamps, head, timestamps, 0, size);
+                } else {
+                    timestamps = Arrays.copyOfRange(timestamps, head, head + timestamps.length * 2);
+                }
+                head = 0;
+            }
+            int at = head + index;
+            System.arraycopy(timestamps, at, timestamps, at + 1, size - index);
+            timestamps[at] = epochMillis;
+            size++;
+            return true;
+        }
+        
+        void evictBefore(long cutoffMillis) {
+            while (size > 0 && timestamps[head] < cutoffMillis) {
+                head++;
+                size--;
+            }
+            if (size == 0) {
+                head = 0;
+            }
+        }
+        
+        private int lowerBound(long epochMillis) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (timestamps[head + mid] < epochMillis) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+}
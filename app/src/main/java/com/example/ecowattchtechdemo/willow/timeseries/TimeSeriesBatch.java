@@ -0,0 +1,256 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar batch of time series points: epoch millis, values and quality
+ * flags in parallel primitive arrays, with twin IDs dictionary-encoded. Only
+ * points that carry a value are kept. Latest, sum and filter run as plain
+ * loops over the arrays, with no boxing and no per-point objects.
+ */
+public final class TimeSeriesBatch {
+    
+    private static final TimeSeriesBatch EMPTY =
+        new TimeSeriesBatch(new String[0], new int[0], new long[0], new double[0], new byte[0], 0);
+    
+    private final String[] twinIds;
+    private final int[] twinIndexes;
+    private final long[] timestamps;
+    private final double[] values;
+    private final byte[] qualityFlags;
+    private final int size;
+    
+    private TimeSeriesBatch(String[] twinIds, int[] twinIndexes, long[] timestamps, double[] values,
+                            byte[] qualityFlags, int size) {
+        this.twinIds = twinIds;
+        this.twinIndexes = twinIndexes;
+        this.timestamps = timestamps;
+        this.values = values;
+        this.qualityFlags = qualityFlags;
+        this.size = size;
+    }
+    
+    public static TimeSeriesBatch empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * Convert points already deserialized by Retrofit
+     */
+    public static TimeSeriesBatch fromPoints(List<TimeSeriesPoint> points) {
+        Builder builder = new Builder(points.size());
+        for (TimeSeriesPoint point : points) {
+            Double value = point.getScalarValue();
+            if (value == null) continue;
+            
+            int flags = point.getDataQuality() != null ? point.getDataQuality().toFlags() : 0;
+            builder.add(point.getTwinId(), point.getSourceTimestamp(), value, flags);
+        }
+        return builder.build();
+    }
+    
+    /**
+     * Collects points into a batch. Also a TimeSeriesSink, so a streamed
+     * payload can be decoded straight into columns without TimeSeriesPoint
+     * objects. The batch takes over the builder's arrays, so a builder is
+     * spent once build() is called.
+     */
+    public static final class Builder implements TimeSeriesSink {
+        private final Map<String, Integer> dictionary = new HashMap<>();
+        private String[] twinIds = new String[4];
+        private int[] twinIndexes;
+        private long[] timestamps;
+        private double[] values;
+        private byte[] qualityFlags;
+        private int size;
+        
+        public Builder() {
+            this(16);
+        }
+        
+        public Builder(int expectedSize) {
+            int capacity = Math.max(1, expectedSize);
+            twinIndexes = new int[capacity];
+            timestamps = new long[capacity];
+            values = new double[capacity];
+            qualityFlags = new byte[capacity];
+        }
+        
+        @Override
+        public void onPoint(String twinId, long sourceTimestamp, double value, int flags) {
+            add(twinId, sourceTimestamp, value, flags);
+        }
+        
+        /**
+         * @param flags TimeSeriesPoint.DataQuality FLAG_* bits
+         */
+        public Builder add(String twinId, long epochMillis, double value, int flags) {
+            if (size == timestamps.length) {
+                int capacity = size * 2;
+                twinIndexes = Arrays.copyOf(twinIndexes, capacity);
+                timestamps = Arrays.copyOf(timestamps, capacity);
+                values = Arrays.copyOf(values, capacity);
+                qualityFlags = Arrays.copyOf(qualityFlags, capacity);
+            }
+            twinIndexes[size] = encode(twinId);
+            timestamps[size] = epochMillis;
+            values[size] = value;
+            qualityFlags[size] = (byte) flags;
+            size++;
+            return this;
+        }
+        
+        private int encode(String twinId) {
+            Integer index = dictionary.get(twinId);
+            if (index != null) return index;
+            
+            int next = dictionary.size();
+            if (next == twinIds.length) {
+                twinIds = Arrays.copyOf(twinIds, next * 2);
+            }
+            twinIds[next] = twinId;
+            dictionary.put(twinId, next);
+            return next;
+        }
+        
+        public TimeSeriesBatch build() {
+            if (size == 0) return EMPTY;
+            return new TimeSeriesBatch(Arrays.copyOf(twinIds, dictionary.size()), twinIndexes, timestamps,
+                values, qualityFlags, size);
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    public long getTimestamp(int index) {
+        return timestamps[index];
+    }
+    
+    public double getValue(int index) {
+        return values[index];
+    }
+    
+    public int getQualityFlags(int index) {
+        return qualityFlags[index];
+    }
+    
+    public String getTwinId(int index) {
+        return twinIds[twinIndexes[index]];
+    }
+    
+    /**
+     * Get the number of distinct twins in the batch
+     */
+    public int getTwinCount() {
+        return twinIds.length;
+    }
+    
+    /**
+     * Index of the newest point with none of the excluded flags set, or -1.
+     * Points with unreadable timestamps are never picked, since there is no
+     * telling when they were read.
+     *
+     * @param excludedFlags e.g. DataQuality.BAD_QUALITY_MASK, or 0 to consider every point
+     */
+    public int latestIndex(int excludedFlags) {
+        int latest = -1;
+        long latestTimestamp = Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            if ((qualityFlags[i] & excludedFlags) != 0 || timestamps[i] == Timestamps.INVALID) continue;
+            if (latest == -1 || timestamps[i] > latestTimestamp) {
+                latest = i;
+                latestTimestamp = timestamps[i];
+            }
+        }
+        return latest;
+    }
+    
+    /**
+     * Sum of the values with none of the excluded flags set
+     */
+    public double sum(int excludedFlags) {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            if ((qualityFlags[i] & excludedFlags) == 0) {
+                total += values[i];
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Number of points with none of the excluded flags set
+     */
+    public int count(int excludedFlags) {
+        int matching = 0;
+        for (int i = 0; i < size; i++) {
+            if ((qualityFlags[i] & excludedFlags) == 0) {
+                matching++;
+            }
+        }
+        return matching;
+    }
+    
+    /**
+     * Points with none of the excluded flags set. Shares the twin dictionary.
+     */
+    public TimeSeriesBatch filter(int excludedFlags) {
+        boolean[] keep = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            keep[i] = (qualityFlags[i] & excludedFlags) == 0;
+        }
+        return select(keep);
+    }
+    
+    /**
+     * Points belonging to any of the given twins, in their original order.
+     * Shares the twin dictionary.
+     */
+    public TimeSeriesBatch forTwins(Collection<String> wantedTwinIds) {
+        boolean[] wanted = new boolean[twinIds.length];
+        for (int t = 0; t < twinIds.length; t++) {
+            wanted[t] = wantedTwinIds.contains(twinIds[t]);
+        }
+        
+        boolean[] keep = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            keep[i] = wanted[twinIndexes[i]];
+        }
+        return select(keep);
+    }
+    
+    private TimeSeriesBatch select(boolean[] keep) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) kept++;
+        }
+        if (kept == size) return this;
+        if (kept == 0) return EMPTY;
+        
+        int[] keptTwins = new int[kept];
+        long[] keptTimestamps = new long[kept];
+        double[] keptValues = new double[kept];
+        byte[] keptFlags = new byte[kept];
+        int next = 0;
+        for (int i = 0; i < size; i++) {
+            if (!keep[i]) continue;
+            keptTwins[next] = twinIndexes[i];
+            keptTimestamps[next] = timestamps[i];
+            keptValues[next] = values[i];
+            keptFlags[next] = qualityFlags[i];
+            next++;
+        }
+        return new TimeSeriesBatch(twinIds, keptTwins, keptTimestamps, keptValues, keptFlags, kept);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+/**
+ * Receives time series points one at a time as they are decoded, so large
+ * responses never have to be materialized as a list
+ */
+public interface TimeSeriesSink {
+    
+    /**
+     * Called once per point that carries a scalar value
+     *
+     * @param twinId capability twin the reading belongs to
+     * @param sourceTimestamp source timestamp in epoch millis, or Timestamps.INVALID
+     * @param value scalar reading
+     * @param qualityFlags TimeSeriesPoint.DataQuality FLAG_* bits, 0 if none reported
+     */
+    void onPoint(String twinId, long sourceTimestamp, double value, int qualityFlags);
+}
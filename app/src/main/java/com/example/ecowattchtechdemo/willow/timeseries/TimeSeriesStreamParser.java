@@ -0,0 +1,182 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming decoder for Willow time series payloads built on Gson's JsonReader.
+ * Accepts both the paged object form ({"data": [...], "continuationToken": ...})
+ * and the bare array form returned by the latest-value endpoints. Points are
+ * pushed to a TimeSeriesSink as they are read; per-point properties are skipped.
+ */
+public class TimeSeriesStreamParser {
+    
+    /**
+     * Result summary of a streamed parse
+     */
+    public static class Result {
+        private final int pointCount;
+        private final String continuationToken;
+        private final String errorMessage;
+        
+        Result(int pointCount, String continuationToken, String errorMessage) {
+            this.pointCount = pointCount;
+            this.continuationToken = continuationToken;
+            this.errorMessage = errorMessage;
+        }
+        
+        public int getPointCount() {
+            return pointCount;
+        }
+        
+        public String getContinuationToken() {
+            return continuationToken;
+        }
+        
+        public String getErrorMessage() {
+            return errorMessage;
+        }
+    }
+    
+    private TimeSeriesStreamParser() {}
+    
+    /**
+     * Decode a payload, pushing each valued point into the sink
+     */
+    public static Result parse(Reader source, TimeSeriesSink sink) throws IOException {
+        JsonReader reader = new JsonReader(source);
+        try {
+            if (reader.peek() == JsonToken.BEGIN_ARRAY) {
+                int count = readPoints(reader, sink);
+                return new Result(count, null, null);
+            }
+            
+            int count = 0;
+            String continuationToken = null;
+            String errorMessage = null;
+            
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                    continue;
+                }
+                switch (name) {
+                    case "data":
+                        count += readPoints(reader, sink);
+                        break;
+                    case "continuationToken":
+                        continuationToken = reader.nextString();
+                        break;
+                    case "errorData":
+                        errorMessage = readErrorMessage(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            return new Result(count, continuationToken, errorMessage);
+        } finally {
+            reader.close();
+        }
+    }
+    
+    private static int readPoints(JsonReader reader, TimeSeriesSink sink) throws IOException {
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (readPoint(reader, sink)) {
+                count++;
+            }
+        }
+        reader.endArray();
+        return count;
+    }
+    
+    /**
+     * Read one point object; returns true if it had a value and was delivered
+     */
+    private static boolean readPoint(JsonReader reader, TimeSeriesSink sink) throws IOException {
+        String twinId = null;
+        long sourceTimestamp = Timestamps.INVALID;
+        double value = 0;
+        boolean hasValue = false;
+        int qualityFlags = 0;
+        
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (name) {
+                case "twinId":
+                    twinId = reader.nextString();
+                    break;
+                case "sourceTimestamp":
+                    sourceTimestamp = Timestamps.parseEpochMillis(reader.nextString());
+                    break;
+                case "scalarValue":
+                    value = reader.nextDouble();
+                    hasValue = true;
+                    break;
+                case "dataQuality":
+                    qualityFlags = readQualityFlags(reader);
+                    break;
+                default:
+                    // properties, ids and enqueue time are not needed downstream
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        
+        if (!hasValue) return false;
+        sink.onPoint(twinId, sourceTimestamp, value, qualityFlags);
+        return true;
+    }
+    
+    private static int readQualityFlags(JsonReader reader) throws IOException {
+        int flags = 0;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() != JsonToken.BOOLEAN) {
+                reader.skipValue();
+                continue;
+            }
+            if (!reader.nextBoolean()) continue;
+            switch (name) {
+                case "offline": flags |= TimeSeriesPoint.DataQuality.FLAG_OFFLINE; break;
+                case "valueOutOfRange": flags |= TimeSeriesPoint.DataQuality.FLAG_VALUE_OUT_OF_RANGE; break;
+                case "sparse": flags |= TimeSeriesPoint.DataQuality.FLAG_SPARSE; break;
+                case "flatline": flags |= TimeSeriesPoint.DataQuality.FLAG_FLATLINE; break;
+                case "delayed": flags |= TimeSeriesPoint.DataQuality.FLAG_DELAYED; break;
+                default: break;
+            }
+        }
+        reader.endObject();
+        return flags;
+    }
+    
+    private static String readErrorMessage(JsonReader reader) throws IOException {
+        String message = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("message".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+                message = reader.nextString();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return message;
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Conversion between Willow's ISO-8601 timestamps and epoch time. Willow
+ * sends sourceTimestamp, enqueuedTimestamp and lastUpdateTime with varying
+ * fractional precision and, from some connectors, UTC offsets, so comparing
+ * them as Strings orders them wrongly; decode them with this instead.
+ */
+public final class Timestamps {
+    
+    // Returned for timestamps that are missing or cannot be read; sorts before every real one
+    public static final long INVALID = Long.MIN_VALUE;
+    
+    private static final long MILLIS_PER_SECOND = 1000L;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+    private static final long SECONDS_PER_DAY = 86400L;
+    private static final long MAX_NANOS_SECONDS = Long.MAX_VALUE / NANOS_PER_SECOND - 1;
+    
+    // SimpleDateFormat is not thread-safe, so each thread keeps its own
+    private static final ThreadLocal<SimpleDateFormat> MILLIS_FORMAT = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            return utcFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+        }
+    };
+    
+    private Timestamps() {}
+    
+    /**
+     * Parse an ISO-8601 timestamp such as 2025-01-15T10:30:00.1234567Z or
+     * 2025-01-15T03:30:00-07:00 into epoch millis. Digits are read in place,
+     * so decoding allocates nothing. Fractional seconds beyond millis are
+     * truncated; a timestamp without a zone is taken as UTC.
+     *
+     * @return epoch millis, or INVALID
+     */
+    public static long parseEpochMillis(CharSequence timestamp) {
+        return parse(timestamp, MILLIS_PER_SECOND);
+    }
+    
+    /**
+     * Same as parseEpochMillis but keeping up to nanosecond precision. Covers
+     * the years 1678 to 2261, which is what fits in a long.
+     *
+     * @return epoch nanos, or INVALID
+     */
+    public static long parseEpochNanos(CharSequence timestamp) {
+        return parse(timestamp, NANOS_PER_SECOND);
+    }
+    
+    /**
+     * Shared decoder: yyyy-MM-ddTHH:mm:ss[.fffffffff][Z|±HH:mm|±HHmm|±HH]
+     */
+    private static long parse(CharSequence text, long unitsPerSecond) {
+        if (text == null) return INVALID;
+        int length = text.length();
+        if (length < 19 || text.charAt(4) != '-' || text.charAt(7) != '-' || text.charAt(13) != ':'
+            || text.charAt(16) != ':') {
+            return INVALID;
+        }
+        char separator = text.charAt(10);
+        if (separator != 'T' && separator != 't' && separator != ' ') return INVALID;
+        
+        int year = digits(text, 0, 4);
+        int month = digits(text, 5, 2);
+        int day = digits(text, 8, 2);
+        int hour = digits(text, 11, 2);
+        int minute = digits(text, 14, 2);
+        int second = digits(text, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month)
+            || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 60) {
+            return INVALID;
+        }
+        
+        // Fraction: keep up to nine digits as nanos, skip any further ones
+        int position = 19;
+        long fractionNanos = 0;
+        if (position < length && (text.charAt(position) == '.' || text.charAt(position) == ',')) {
+            position++;
+            int fractionDigits = 0;
+            while (position < length && isDigit(text.charAt(position))) {
+                if (fractionDigits < 9) {
+                    fractionNanos = fractionNanos * 10 + (text.charAt(position) - '0');
+                    fractionDigits++;
+                }
+                position++;
+            }
+            if (fractionDigits == 0) return INVALID;
+            for (int i = fractionDigits; i < 9; i++) {
+                fractionNanos *= 10;
+            }
+        }
+        
+        int offsetSeconds = 0;
+        if (position < length) {
+            char zone = text.charAt(position);
+            if (zone == 'Z' || zone == 'z') {
+                position++;
+            } else if (zone == '+' || zone == '-') {
+                if (position + 3 > length) return INVALID;
+                int offsetHours = digits(text, position + 1, 2);
+                int offsetMinutes = 0;
+                position += 3;
+                if (position < length) {
+                    // Minutes are exactly two digits, with or without a colon before them
+                    if (text.charAt(position) == ':') {
+                        position++;
+                    }
+                    if (position + 2 != length) return INVALID;
+                    offsetMinutes = digits(text, position, 2);
+                    position += 2;
+                }
+                if (offsetHours < 0 || offsetHours > 18 || offsetMinutes < 0 || offsetMinutes > 59) return INVALID;
+                offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (zone == '-' ? -1 : 1);
+            }
+        }
+        if (position != length) return INVALID;
+        
+        long epochSeconds = daysFromCivil(year, month, day) * SECONDS_PER_DAY
+            + hour * 3600L + minute * 60L + second - offsetSeconds;
+        if (unitsPerSecond == NANOS_PER_SECOND
+            && (epochSeconds > MAX_NANOS_SECONDS || epochSeconds < -MAX_NANOS_SECONDS)) {
+            return INVALID;
+        }
+        return epochSeconds * unitsPerSecond + fractionNanos / (NANOS_PER_SECOND / unitsPerSecond);
+    }
+    
+    /**
+     * Format epoch millis as 2025-01-15T10:30:00.123Z
+     */
+    public static String format(long epochMillis) {
+        return MILLIS_FORMAT.get().format(new Date(epochMillis));
+    }
+    
+    /**
+     * Read a fixed-width run of decimal digits, or -1 if any is not a digit
+     */
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            char c = text.charAt(i);
+            if (!isDigit(c)) return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+    
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+    
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+    
+    /**
+     * Days since 1970-01-01 for a proleptic Gregorian date (Howard Hinnant's days_from_civil)
+     */
+    private static long daysFromCivil(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+    
+    private static SimpleDateFormat utcFormat(String pattern) {
+        SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        format.setLenient(false);
+        return format;
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for SeriesArchiveFile, on files in a temporary folder
+ */
+public class SeriesArchiveFileTest {
+    
+    private static final int BLOCK_READINGS = 10;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private File path;
+    private SeriesArchiveFile archive;
+    
+    @Before
+    public void setUp() throws IOException {
+        path = new File(folder.getRoot(), "twin.archive");
+        archive = new SeriesArchiveFile(path);
+    }
+    
+    @After
+    public void tearDown() throws IOException {
+        archive.close();
+    }
+    
+    @Test
+    public void newArchive_isEmpty() {
+        assertEquals(0, archive.blockCount());
+        assertEquals(0, archive.size());
+        assertEquals(Long.MIN_VALUE, archive.firstTimestamp());
+        assertEquals(Long.MIN_VALUE, archive.lastTimestamp());
+        assertEquals(SeriesArchiveFile.HEADER_SIZE, path.length());
+    }
+    
+    @Test
+    public void query_visitsTheRangeAcrossBlocks() throws IOException {
+        appendBlocks(0, 5);
+        
+        List<Long> visited = query(reading(7), reading(23));
+        assertEquals(16, visited.size());
+        assertEquals(reading(7), (long) visited.get(0));
+        assertEquals(reading(22), (long) visited.get(15));
+        assertEquals(50, query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertEquals(0, query(reading(50), Long.MAX_VALUE).size());
+    }
+    
+    @Test
+    public void reopen_rebuildsTheIndex() throws IOException {
+        appendBlocks(0, 3);
+        archive.close();
+        
+        archive = new SeriesArchiveFile(path);
+        assertEquals(3, archive.blockCount());
+        assertEquals(30, archive.size());
+        assertEquals(reading(0), archive.firstTimestamp());
+        assertEquals(reading(29), archive.lastTimestamp());
+        assertValues(archive.readBlock(1), 10);
+        
+        appendBlocks(3, 1);
+        assertEquals(40, query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+    
+    @Test
+    public void tornBlock_isDroppedOnOpen() throws IOException {
+        appendBlocks(0, 2);
+        long intact = path.length() - SeriesBlockDecoder.blockLength(block(1), 0);
+        archive.close();
+        truncate(path.length() - 3);
+        
+        archive = new SeriesArchiveFile(path);
+        assertEquals(1, archive.blockCount());
+        assertEquals(10, archive.size());
+        assertEquals(intact, path.length());
+        
+        // The torn block's readings can be archived again
+        appendBlocks(1, 1);
+        assertEquals(20, query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+    }
+    
+    @Test
+    public void tornBlockHeader_isDroppedOnOpen() throws IOException {
+        appendBlocks(0, 1);
+        long intact = path.length();
+        archive.close();
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.seek(intact);
+            file.write(new byte[SeriesBlockEncoder.HEADER_SIZE - 1]);
+        }
+        
+        archive = new SeriesArchiveFile(path);
+        assertEquals(1, archive.blockCount());
+        assertEquals(intact, path.length());
+    }
+    
+    @Test
+    public void unreadableHeader_startsOver() throws IOException {
+        appendBlocks(0, 2);
+        archive.close();
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.writeInt(0x12345678);
+        }
+        
+        archive = new SeriesArchiveFile(path);
+        assertEquals(0, archive.blockCount());
+        assertEquals(SeriesArchiveFile.HEADER_SIZE, path.length());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void overlappingBlock_isRejected() throws IOException {
+        appendBlocks(0, 2);
+        archive.append(block(1));
+    }
+    
+    @Test
+    public void dropBefore_waitsForEnoughExpiredBlocks() throws IOException {
+        appendBlocks(0, 40);
+        long length = path.length();
+        
+        archive.dropBefore(reading(31 * BLOCK_READINGS));
+        assertEquals(40, archive.blockCount());
+        assertEquals(length, path.length());
+    }
+    
+    @Test
+    public void dropBefore_compactsExpiredBlocks() throws IOException {
+        appendBlocks(0, 40);
+        // Cuts inside block 35, which is kept whole
+        archive.dropBefore(reading(35 * BLOCK_READINGS + 4));
+        
+        assertEquals(5, archive.blockCount());
+        assertEquals(50, archive.size());
+        assertEquals(reading(350), archive.firstTimestamp());
+        assertEquals(reading(399), archive.lastTimestamp());
+        assertEquals(50, query(Long.MIN_VALUE, Long.MAX_VALUE).size());
+        assertFalse(new File(path.getPath() + ".tmp").exists());
+        
+        appendBlocks(40, 1);
+        archive.close();
+        archive = new SeriesArchiveFile(path);
+        assertEquals(6, archive.blockCount());
+        assertEquals(reading(350), archive.firstTimestamp());
+        assertEquals(reading(409), archive.lastTimestamp());
+    }
+    
+    @Test
+    public void dropBefore_everyBlock_leavesAnEmptyArchive() throws IOException {
+        appendBlocks(0, 32);
+        archive.dropBefore(Long.MAX_VALUE);
+        
+        assertEquals(0, archive.blockCount());
+        assertEquals(SeriesArchiveFile.HEADER_SIZE, path.length());
+        appendBlocks(32, 1);
+        assertEquals(10, archive.size());
+    }
+    
+    private static long reading(int index) {
+        return SeriesBlockCodecTest.START + index * SeriesBlockCodecTest.MINUTE;
+    }
+    
+    /**
+     * Block of BLOCK_READINGS readings whose values are their reading index
+     */
+    private static byte[] block(int blockIndex) {
+        SeriesBlockEncoder encoder = new SeriesBlockEncoder(BLOCK_READINGS);
+        for (int i = 0; i < BLOCK_READINGS; i++) {
+            int index = blockIndex * BLOCK_READINGS + i;
+            encoder.add(reading(index), index, 0);
+        }
+        return encoder.finish();
+    }
+    
+    private void appendBlocks(int firstBlock, int blocks) throws IOException {
+        for (int b = firstBlock; b < firstBlock + blocks; b++) {
+            archive.append(block(b));
+        }
+    }
+    
+    private List<Long> query(long fromMillis, long toMillis) throws IOException {
+        List<Long> visited = new ArrayList<>();
+        archive.query(fromMillis, toMillis, (epochMillis, value, qualityFlags) -> {
+            assertEquals(epochMillis, reading((int) value));
+            visited.add(epochMillis);
+        });
+        return visited;
+    }
+    
+    private static void assertValues(SeriesBlockDecoder decoder, int firstIndex) {
+        int index = firstIndex;
+        while (decoder.next()) {
+            assertEquals(reading(index), decoder.getTimestamp());
+            assertEquals(index, decoder.getValue(), 0);
+            index++;
+        }
+        assertEquals(firstIndex + BLOCK_READINGS, index);
+    }
+    
+    private void truncate(long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "rw")) {
+            file.setLength(length);
+        }
+    }
+}
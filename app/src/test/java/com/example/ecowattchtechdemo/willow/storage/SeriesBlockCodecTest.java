@@ -0,0 +1,195 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the SeriesBlockEncoder / SeriesBlockDecoder round trip
+ */
+public class SeriesBlockCodecTest {
+    
+    static final long START = 1736937000000L;
+    static final long MINUTE = 60000L;
+    
+    @Test
+    public void regularDecimalReadings_roundTripCompactly() {
+        int length = 1440;
+        long[] timestamps = new long[length];
+        double[] values = new double[length];
+        Random random = new Random(1);
+        long scaled = 1234;
+        for (int i = 0; i < length; i++) {
+            timestamps[i] = START + i * MINUTE;
+            scaled += random.nextInt(21) - 10;
+            values[i] = scaled / 10.0;
+        }
+        
+        byte[] block = encode(timestamps, values, new int[length]);
+        assertRoundTrip(block, timestamps, values, new int[length]);
+        // A bit for the timestamp, one to two bytes for the value and a bit for the flags
+        assertTrue("bytes per reading: " + (double) block.length / length, block.length < 2 * length);
+    }
+    
+    @Test
+    public void decimalScaleChanges_switchMode() {
+        long[] timestamps = minutes(8);
+        double[] values = {12, 12.5, 12.25, 1e9, 12.125, -3, 0.000001, 7};
+        assertRoundTrip(encode(timestamps, values, new int[8]), timestamps, values, new int[8]);
+    }
+    
+    @Test
+    public void nonDecimalValue_switchesToXorForTheRestOfTheBlock() {
+        long[] timestamps = minutes(7);
+        double[] values = {1.5, 2.5, 0.1 + 0.2, 3.5, 3.5, Math.PI, 4};
+        assertRoundTrip(encode(timestamps, values, new int[7]), timestamps, values, new int[7]);
+    }
+    
+    @Test
+    public void xorFromTheFirstReading_roundTrips() {
+        int length = 500;
+        long[] timestamps = minutes(length);
+        double[] values = new double[length];
+        Random random = new Random(2);
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextGaussian() * Math.pow(10, random.nextInt(12) - 6);
+        }
+        assertRoundTrip(encode(timestamps, values, new int[length]), timestamps, values, new int[length]);
+    }
+    
+    @Test
+    public void specialValues_keepTheirExactBits() {
+        long[] timestamps = minutes(10);
+        double[] values = {-0.0, 0.0, Double.NaN, Double.longBitsToDouble(0x7ff0000000000123L),
+            Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MIN_VALUE, -Double.MAX_VALUE, -0.0, 5};
+        assertRoundTrip(encode(timestamps, values, new int[10]), timestamps, values, new int[10]);
+        
+        // Starting in decimal mode must not turn -0.0 into 0.0
+        double[] fromDecimal = {2, -0.0, 0.0, Double.NaN, 1};
+        long[] fiveMinutes = minutes(5);
+        assertRoundTrip(encode(fiveMinutes, fromDecimal, new int[5]), fiveMinutes, fromDecimal, new int[5]);
+    }
+    
+    @Test
+    public void everyDeltaOfDeltaWidth_roundTrips() {
+        long[] gaps = {1, 1, 60, 60 + 63, 60, 1, 2047, 4000, 524287, 900000,
+            1L << 31, 1L << 33, 5, 1L << 45, 1, (1L << 45) + 17, 3};
+        long[] timestamps = new long[gaps.length + 1];
+        timestamps[0] = START;
+        for (int i = 0; i < gaps.length; i++) {
+            timestamps[i + 1] = timestamps[i] + gaps[i];
+        }
+        double[] values = new double[timestamps.length];
+        Arrays.fill(values, 1);
+        assertRoundTrip(encode(timestamps, values, new int[timestamps.length]), timestamps, values,
+            new int[timestamps.length]);
+    }
+    
+    @Test
+    public void deltaOfDeltaBeyond32Bits_fromTheEpochRange() {
+        long[] timestamps = {Long.MIN_VALUE / 4, 0, 1, Long.MAX_VALUE / 4};
+        double[] values = {1, 2, 3, 4};
+        assertRoundTrip(encode(timestamps, values, new int[4]), timestamps, values, new int[4]);
+    }
+    
+    @Test
+    public void qualityFlags_roundTripAndKeepLowByte() {
+        long[] timestamps = minutes(5);
+        double[] values = {1, 1, 1, 1, 1};
+        int[] flags = {0, 0, 0x12, 0x12, 0x1FF};
+        byte[] block = encode(timestamps, values, flags);
+        assertRoundTrip(block, timestamps, values, new int[] {0, 0, 0x12, 0x12, 0xFF});
+    }
+    
+    @Test
+    public void add_rejectsOutOfOrderReadingsAndFullBlocks() {
+        SeriesBlockEncoder encoder = new SeriesBlockEncoder(2);
+        assertTrue(encoder.add(START, 1, 0));
+        assertFalse(encoder.add(START, 2, 0));
+        assertFalse(encoder.add(START - 1, 2, 0));
+        assertTrue(encoder.add(START + 1, 2, 0));
+        assertTrue(encoder.isFull());
+        assertFalse(encoder.add(START + 2, 3, 0));
+        assertEquals(2, new SeriesBlockDecoder(encoder.finish()).size());
+    }
+    
+    @Test
+    public void reset_startsAFreshBlock() {
+        SeriesBlockEncoder encoder = new SeriesBlockEncoder(100);
+        for (int i = 0; i < 100; i++) {
+            encoder.add(START + i * MINUTE, Math.sqrt(i), i & 1);
+        }
+        encoder.finish();
+        encoder.reset();
+        assertTrue(encoder.isEmpty());
+        
+        long[] timestamps = minutes(3);
+        double[] values = {7.5, 8, 8.5};
+        for (int i = 0; i < 3; i++) {
+            encoder.add(timestamps[i], values[i], 0);
+        }
+        assertRoundTrip(encoder.finish(), timestamps, values, new int[3]);
+    }
+    
+    @Test
+    public void blockInsideALargerBuffer_isReadInPlace() {
+        long[] timestamps = minutes(4);
+        double[] values = {1.1, 2.2, 3.3, 4.4};
+        byte[] block = encode(timestamps, values, new int[4]);
+        byte[] buffer = new byte[block.length + 10];
+        System.arraycopy(block, 0, buffer, 7, block.length);
+        
+        assertEquals(block.length, SeriesBlockDecoder.blockLength(buffer, 7));
+        SeriesBlockDecoder decoder = new SeriesBlockDecoder(buffer, 7);
+        assertEquals(timestamps[0], decoder.getFirstTimestamp());
+        assertEquals(timestamps[3], decoder.getLastTimestamp());
+        int read = 0;
+        while (decoder.next()) {
+            assertEquals(values[read++], decoder.getValue(), 0);
+        }
+        assertEquals(4, read);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedBlock_isRejected() {
+        byte[] block = encode(minutes(3), new double[] {1, 2, 3}, new int[3]);
+        new SeriesBlockDecoder(Arrays.copyOf(block, block.length - 1));
+    }
+    
+    static long[] minutes(int length) {
+        long[] timestamps = new long[length];
+        for (int i = 0; i < length; i++) {
+            timestamps[i] = START + i * MINUTE;
+        }
+        return timestamps;
+    }
+    
+    static byte[] encode(long[] timestamps, double[] values, int[] flags) {
+        SeriesBlockEncoder encoder = new SeriesBlockEncoder(timestamps.length);
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue("reading " + i + " refused", encoder.add(timestamps[i], values[i], flags[i]));
+        }
+        byte[] block = encoder.finish();
+        assertEquals(encoder.getEncodedLength(), block.length);
+        return block;
+    }
+    
+    private static void assertRoundTrip(byte[] block, long[] timestamps, double[] values, int[] flags) {
+        SeriesBlockDecoder decoder = new SeriesBlockDecoder(block);
+        assertEquals(timestamps.length, decoder.size());
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < timestamps.length; i++) {
+                assertTrue(decoder.next());
+                assertEquals("timestamp " + i, timestamps[i], decoder.getTimestamp());
+                assertEquals("value " + i, Double.doubleToRawLongBits(values[i]),
+                    Double.doubleToRawLongBits(decoder.getValue()));
+                assertEquals("flags " + i, flags[i], decoder.getQualityFlags());
+            }
+            assertFalse(decoder.next());
+            decoder.rewind();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Bytes per reading and encode/decode throughput of SeriesBlockEncoder over
+ * a million readings in archive-sized blocks, for a few kinds of series.
+ * Skipped unless run with -Dwillow.benchmark=true, e.g.
+ * ./gradlew testDebugUnitTest --tests '*Benchmark' -Dwillow.benchmark=true
+ */
+public class SeriesCodecBenchmark {
+    
+    private static final int READINGS = 1000000;
+    private static final int RUNS = 7;
+    
+    @Test
+    public void codec() {
+        Assume.assumeTrue(Boolean.getBoolean("willow.benchmark"));
+        
+        Random random = new Random(1);
+        long[] regular = new long[READINGS];
+        long[] jittered = new long[READINGS];
+        double[] decimal = new double[READINGS];
+        double[] raw = new double[READINGS];
+        double[] constant = new double[READINGS];
+        long scaled = 12345;
+        double level = 120;
+        for (int i = 0; i < READINGS; i++) {
+            regular[i] = SeriesBlockCodecTest.START + i * SeriesBlockCodecTest.MINUTE;
+            // Connectors report a few seconds either side of the minute
+            jittered[i] = regular[i] + random.nextInt(4000);
+            scaled += random.nextInt(41) - 20;
+            decimal[i] = scaled / 10.0;
+            level += random.nextGaussian();
+            raw[i] = level;
+            constant[i] = 42;
+        }
+        
+        run("1-min, 1-decimal meter", regular, decimal);
+        run("jittered, 1-decimal meter", jittered, decimal);
+        run("1-min, raw doubles", regular, raw);
+        run("1-min, constant", regular, constant);
+    }
+    
+    private static void run(String name, long[] timestamps, double[] values) {
+        int blockReadings = TimeSeriesStore.ARCHIVE_BLOCK_READINGS;
+        int blockCount = (timestamps.length + blockReadings - 1) / blockReadings;
+        byte[][] blocks = new byte[blockCount][];
+        SeriesBlockEncoder encoder = new SeriesBlockEncoder(blockReadings);
+        
+        long encodeNanos = Long.MAX_VALUE;
+        long decodeNanos = Long.MAX_VALUE;
+        long bytes = 0;
+        double sink = 0;
+        // The first runs warm up the JIT; the best run is reported
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            bytes = 0;
+            for (int b = 0; b < blockCount; b++) {
+                encoder.reset();
+                int end = Math.min(timestamps.length, (b + 1) * blockReadings);
+                for (int i = b * blockReadings; i < end; i++) {
+                    encoder.add(timestamps[i], values[i], 0);
+                }
+                blocks[b] = encoder.finish();
+                bytes += blocks[b].length;
+            }
+            long middle = System.nanoTime();
+            for (byte[] block : blocks) {
+                SeriesBlockDecoder decoder = new SeriesBlockDecoder(block);
+                while (decoder.next()) {
+                    sink += decoder.getValue() + decoder.getTimestamp();
+                }
+            }
+            long end = System.nanoTime();
+            encodeNanos = Math.min(encodeNanos, middle - start);
+            decodeNanos = Math.min(decodeNanos, end - middle);
+        }
+        System.out.println(String.format(Locale.US,
+            "%-26s %.2f bytes/reading (ring: %d), encode %.0f M/s, decode %.0f M/s [%.0f]",
+            name, (double) bytes / timestamps.length, SeriesFile.RECORD_SIZE,
+            timestamps.length * 1e3 / encodeNanos, timestamps.length * 1e3 / decodeNanos, sink % 10));
+    }
+}
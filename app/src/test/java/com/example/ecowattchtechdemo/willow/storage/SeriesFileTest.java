@@ -0,0 +1,196 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the memory-mapped ring in SeriesFile, on files in a
+ * temporary folder
+ */
+public class SeriesFileTest {
+    
+    // Where the header keeps the oldest slot and the record count
+    private static final int OFFSET_START = 16;
+    private static final int OFFSET_COUNT = 20;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void append_ignoresReadingsNotNewerThanTheLast() throws IOException {
+        SeriesFile file = new SeriesFile(folder.newFile(), 10);
+        assertTrue(file.append(reading(5), 5, 0, 0));
+        assertFalse(file.append(reading(5), 6, 0, 0));
+        assertFalse(file.append(reading(4), 4, 0, 0));
+        assertEquals(1, file.size());
+        file.close();
+    }
+    
+    @Test
+    public void fullRing_wrapsOverTheOldestReadings() throws IOException {
+        SeriesFile file = new SeriesFile(folder.newFile(), 5);
+        appendRange(file, 0, 12, 0);
+        
+        assertEquals(5, file.size());
+        assertEquals(reading(7), file.firstTimestamp());
+        assertEquals(reading(11), file.lastTimestamp());
+        assertEquals(indexes(7, 12), query(file, Long.MIN_VALUE, Long.MAX_VALUE));
+        file.close();
+    }
+    
+    @Test
+    public void rangeLookups_workAcrossTheWrap() throws IOException {
+        // Capacity 7 after 10 readings: the oldest sits at slot 3 and the newest at slot 2
+        SeriesFile file = new SeriesFile(folder.newFile(), 7);
+        appendRange(file, 0, 10, 0);
+        
+        assertEquals(indexes(4, 9), query(file, reading(4), reading(9)));
+        assertEquals(indexes(3, 10), query(file, reading(0), reading(100)));
+        assertEquals(indexes(9, 10), query(file, reading(9), Long.MAX_VALUE));
+        assertEquals(indexes(0, 0), query(file, reading(10), Long.MAX_VALUE));
+        assertEquals(indexes(0, 0), query(file, reading(0), reading(3)));
+        // Between readings rounds up to the next one
+        assertEquals(indexes(6, 8), query(file, reading(5) + 1, reading(7) + 1));
+        
+        assertEquals(4, file.countFrom(reading(6)));
+        assertEquals(7, file.countFrom(Long.MIN_VALUE));
+        assertEquals(0, file.countFrom(reading(10)));
+        assertEquals(reading(8), file.firstTimestampFrom(reading(7) + 1));
+        assertEquals(Long.MIN_VALUE, file.firstTimestampFrom(reading(9) + 1));
+        file.close();
+    }
+    
+    @Test
+    public void query_stopsAtMaxRecords() throws IOException {
+        SeriesFile file = new SeriesFile(folder.newFile(), 4);
+        appendRange(file, 0, 6, 0);
+        
+        List<Long> visited = new ArrayList<>();
+        assertEquals(3, file.query(Long.MIN_VALUE, Long.MAX_VALUE, 3, (epochMillis, value, flags) ->
+            visited.add(epochMillis)));
+        assertEquals(reading(2), (long) visited.get(0));
+        assertEquals(reading(4), (long) visited.get(2));
+        file.close();
+    }
+    
+    @Test
+    public void retention_dropsReadingsOlderThanTheNewestMinusRetention() throws IOException {
+        SeriesFile file = new SeriesFile(folder.newFile(), 100);
+        long retention = 10 * SeriesBlockCodecTest.MINUTE;
+        appendRange(file, 0, 30, retention);
+        
+        // The reading exactly at the cutoff stays
+        assertEquals(11, file.size());
+        assertEquals(reading(19), file.firstTimestamp());
+        
+        // A gap expires everything but the new reading
+        file.append(reading(100), 100, 0, retention);
+        assertEquals(1, file.size());
+        assertEquals(indexes(100, 101), query(file, Long.MIN_VALUE, Long.MAX_VALUE));
+        file.close();
+    }
+    
+    @Test
+    public void reopen_keepsReadingsAndTheExistingCapacity() throws IOException {
+        File path = folder.newFile();
+        SeriesFile file = new SeriesFile(path, 6);
+        appendRange(file, 0, 9, 0);
+        file.close();
+        
+        file = new SeriesFile(path, 50);
+        assertEquals(6, file.size());
+        assertEquals(indexes(3, 9), query(file, Long.MIN_VALUE, Long.MAX_VALUE));
+        
+        // Still a ring of 6
+        appendRange(file, 9, 11, 0);
+        assertEquals(6, file.size());
+        assertEquals(indexes(5, 11), query(file, Long.MIN_VALUE, Long.MAX_VALUE));
+        file.close();
+    }
+    
+    @Test
+    public void tornHeader_dropsTheContents() throws IOException {
+        File path = folder.newFile();
+        SeriesFile file = new SeriesFile(path, 6);
+        appendRange(file, 0, 4, 0);
+        file.close();
+        writeHeaderInt(path, OFFSET_COUNT, 7);
+        
+        file = new SeriesFile(path, 6);
+        assertEquals(0, file.size());
+        assertEquals(Long.MIN_VALUE, file.lastTimestamp());
+        appendRange(file, 0, 2, 0);
+        file.close();
+        
+        writeHeaderInt(path, OFFSET_START, -1);
+        file = new SeriesFile(path, 6);
+        assertEquals(0, file.size());
+        file.close();
+    }
+    
+    @Test
+    public void unreadableFile_isRecreatedWithTheRequestedCapacity() throws IOException {
+        File path = folder.newFile();
+        SeriesFile file = new SeriesFile(path, 4);
+        appendRange(file, 0, 4, 0);
+        file.close();
+        try (RandomAccessFile raw = new RandomAccessFile(path, "rw")) {
+            // Cut short: the header promises more records than the file holds
+            raw.setLength(SeriesFile.HEADER_SIZE + SeriesFile.RECORD_SIZE);
+        }
+        
+        file = new SeriesFile(path, 8);
+        assertEquals(0, file.size());
+        appendRange(file, 0, 8, 0);
+        assertEquals(8, file.size());
+        file.close();
+    }
+    
+    private static long reading(int index) {
+        return SeriesBlockCodecTest.START + index * SeriesBlockCodecTest.MINUTE;
+    }
+    
+    private static void appendRange(SeriesFile file, int from, int to, long retentionMs) {
+        for (int i = from; i < to; i++) {
+            assertTrue(file.append(reading(i), i, i & 3, retentionMs));
+        }
+    }
+    
+    /**
+     * Timestamps of readings [from, to)
+     */
+    private static List<Long> indexes(int from, int to) {
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            timestamps.add(reading(i));
+        }
+        return timestamps;
+    }
+    
+    private static List<Long> query(SeriesFile file, long fromMillis, long toMillis) {
+        List<Long> visited = new ArrayList<>();
+        int count = file.query(fromMillis, toMillis, (epochMillis, value, qualityFlags) -> {
+            assertEquals(reading((int) value), epochMillis);
+            assertEquals((int) value & 3, qualityFlags);
+            visited.add(epochMillis);
+        });
+        assertEquals(visited.size(), count);
+        return visited;
+    }
+    
+    private static void writeHeaderInt(File path, int offset, int value) throws IOException {
+        try (RandomAccessFile raw = new RandomAccessFile(path, "rw")) {
+            raw.seek(offset);
+            raw.writeInt(value);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ecowattchtechdemo.willow.storage;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for TimeSeriesStore, on a store in a temporary folder
+ */
+public class TimeSeriesStoreTest {
+    
+    private static final String TWIN = "TWIN-1:energy/kW";
+    private static final long MINUTE = SeriesBlockCodecTest.MINUTE;
+    
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    private TimeSeriesStore store;
+    
+    @After
+    public void tearDown() {
+        if (store != null) {
+            store.close();
+        }
+    }
+    
+    @Test
+    public void unknownTwin_isEmpty() {
+        store = new TimeSeriesStore(directory(), 10, 0);
+        assertEquals(0, store.size(TWIN));
+        assertEquals(Long.MIN_VALUE, store.getFirstTimestamp(TWIN));
+        assertEquals(Long.MIN_VALUE, store.getLastTimestamp(TWIN));
+        assertEquals(0, store.query(TWIN, Long.MIN_VALUE, Long.MAX_VALUE, (epochMillis, value, flags) -> fail()));
+        assertFalse(directory().exists());
+    }
+    
+    @Test
+    public void twins_areStoredSeparately() {
+        store = new TimeSeriesStore(directory(), 10, 0);
+        appendRange(store, TWIN, 0, 3);
+        appendRange(store, "TWIN-1:energy/kWh", 0, 5);
+        
+        assertEquals(3, store.size(TWIN));
+        assertEquals(5, store.size("TWIN-1:energy/kWh"));
+        assertFalse(store.append(TWIN, reading(2), 2, 0));
+    }
+    
+    @Test
+    public void ringWithoutArchive_keepsTheNewestCapacityReadings() {
+        store = new TimeSeriesStore(directory(), 10, 0);
+        appendRange(store, TWIN, 0, 25);
+        
+        assertEquals(10, store.size(TWIN));
+        assertEquals(reading(15), store.getFirstTimestamp(TWIN));
+        assertEquals(reading(24), store.getLastTimestamp(TWIN));
+        assertEquals(indexes(18, 22), query(store, reading(18), reading(22)));
+    }
+    
+    @Test
+    public void retentionWithoutArchive_dropsOldReadings() {
+        store = new TimeSeriesStore(directory(), 100, 10 * MINUTE);
+        appendRange(store, TWIN, 0, 30);
+        
+        assertEquals(11, store.size(TWIN));
+        assertEquals(reading(19), store.getFirstTimestamp(TWIN));
+        assertEquals(indexes(19, 30), query(store, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void reopen_keepsReadingsAndTheFileCapacity() {
+        store = new TimeSeriesStore(directory(), 8, 0);
+        appendRange(store, TWIN, 0, 12);
+        store.close();
+        
+        store = new TimeSeriesStore(directory(), 100, 0);
+        assertEquals(8, store.size(TWIN));
+        appendRange(store, TWIN, 12, 20);
+        assertEquals(8, store.size(TWIN));
+        assertEquals(indexes(12, 20), query(store, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void archive_keepsReadingsTheRingHasWrappedOver() {
+        // Blocks of capacity / 2 = 10 readings
+        store = new TimeSeriesStore(directory(), 20, 0, 365L * 24 * 60 * MINUTE);
+        appendRange(store, TWIN, 0, 75);
+        
+        assertEquals(75, store.size(TWIN));
+        assertEquals(reading(0), store.getFirstTimestamp(TWIN));
+        assertEquals(reading(74), store.getLastTimestamp(TWIN));
+        assertEquals(indexes(0, 75), query(store, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    @Test
+    public void query_joinsArchiveAndRingWithoutDuplicates() {
+        store = new TimeSeriesStore(directory(), 20, 0, 365L * 24 * 60 * MINUTE);
+        appendRange(store, TWIN, 0, 45);
+        
+        // Readings 0-39 are archived, 25-44 are in the ring; the ones in both are visited once
+        assertEquals(indexes(35, 43), query(store, reading(35), reading(43)));
+        assertEquals(indexes(5, 30), query(store, reading(5), reading(30)));
+        assertEquals(indexes(39, 41), query(store, reading(39), reading(41)));
+        assertEquals(indexes(40, 45), query(store, reading(40), Long.MAX_VALUE));
+        assertEquals(indexes(0, 10), query(store, Long.MIN_VALUE, reading(10)));
+        
+        store.close();
+        store = new TimeSeriesStore(directory(), 20, 0, 365L * 24 * 60 * MINUTE);
+        assertEquals(45, store.size(TWIN));
+        assertEquals(indexes(35, 43), query(store, reading(35), reading(43)));
+    }
+    
+    @Test
+    public void expiringReadings_areArchivedBeforeTheRingDropsThem() {
+        // Blocks would hold 50 readings, but retention would drop readings well before that
+        store = new TimeSeriesStore(directory(), 100, 10 * MINUTE, 365L * 24 * 60 * MINUTE);
+        appendRange(store, TWIN, 0, 40);
+        
+        assertEquals(40, store.size(TWIN));
+        assertEquals(indexes(0, 40), query(store, Long.MIN_VALUE, Long.MAX_VALUE));
+    }
+    
+    private File directory() {
+        return new File(folder.getRoot(), "series");
+    }
+    
+    private static long reading(int index) {
+        return SeriesBlockCodecTest.START + index * MINUTE;
+    }
+    
+    private static void appendRange(TimeSeriesStore store, String twinId, int from, int to) {
+        for (int i = from; i < to; i++) {
+            assertTrue(store.append(twinId, reading(i), i, i & 3));
+        }
+    }
+    
+    private static List<Long> indexes(int from, int to) {
+        List<Long> timestamps = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            timestamps.add(reading(i));
+        }
+        return timestamps;
+    }
+    
+    private static List<Long> query(TimeSeriesStore store, long fromMillis, long toMillis) {
+        List<Long> visited = new ArrayList<>();
+        int count = store.query(TWIN, fromMillis, toMillis, (epochMillis, value, qualityFlags) -> {
+            assertEquals(reading((int) value), epochMillis);
+            assertEquals((int) value & 3, qualityFlags);
+            visited.add(epochMillis);
+        });
+        assertEquals(visited.size(), count);
+        return visited;
+    }
+}
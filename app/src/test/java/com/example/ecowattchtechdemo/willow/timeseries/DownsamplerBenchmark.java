@@ -0,0 +1,47 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.util.Locale;
+
+/**
+ * Timing for Downsampler over 10^4 to 10^7 points reduced to a 1000-pixel
+ * chart. Skipped unless run with -Dwillow.benchmark=true, e.g.
+ * ./gradlew testDebugUnitTest --tests '*Benchmark' -Dwillow.benchmark=true
+ */
+public class DownsamplerBenchmark {
+    
+    private static final int PIXELS = 1000;
+    private static final int RUNS = 7;
+    
+    @Test
+    public void downsample() {
+        Assume.assumeTrue(Boolean.getBoolean("willow.benchmark"));
+        
+        int[] lttbOut = new int[PIXELS];
+        int[] minMaxOut = new int[Downsampler.minMaxCapacity(PIXELS)];
+        for (int length = 10000; length <= 10000000; length *= 10) {
+            long[] timestamps = DownsamplerTest.timestamps(length);
+            double[] values = DownsamplerTest.noise(length, length);
+            
+            long lttbNanos = Long.MAX_VALUE;
+            long minMaxNanos = Long.MAX_VALUE;
+            int sink = 0;
+            // The first runs warm up the JIT; the best run is reported
+            for (int run = 0; run < RUNS; run++) {
+                long start = System.nanoTime();
+                sink += Downsampler.lttb(timestamps, values, 0, length, PIXELS, lttbOut);
+                long middle = System.nanoTime();
+                sink += Downsampler.minMax(timestamps, values, 0, length, PIXELS, minMaxOut);
+                long end = System.nanoTime();
+                lttbNanos = Math.min(lttbNanos, middle - start);
+                minMaxNanos = Math.min(minMaxNanos, end - middle);
+            }
+            System.out.println(String.format(Locale.US,
+                "%,d points: lttb %.2f ms (%.0f Mpoints/s), minMax %.2f ms (%.0f Mpoints/s) [%d]",
+                length, lttbNanos / 1e6, length * 1e3 / lttbNanos,
+                minMaxNanos / 1e6, length * 1e3 / minMaxNanos, sink));
+        }
+    }
+}
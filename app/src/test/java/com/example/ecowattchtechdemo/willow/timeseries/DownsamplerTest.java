@@ -0,0 +1,141 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the LTTB and min/max downsampling in Downsampler
+ */
+public class DownsamplerTest {
+    
+    private static final long START = 1736937000000L;
+    private static final long STEP = 60000L;
+    
+    @Test
+    public void lttb_keepsEveryPointUnderThreshold() {
+        long[] timestamps = timestamps(5);
+        double[] values = new double[5];
+        int[] out = new int[5];
+        assertEquals(5, Downsampler.lttb(timestamps, values, 0, 5, 10, out));
+        assertArrayEquals(new int[] {0, 1, 2, 3, 4}, out);
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void lttb_rejectsThresholdBelowThree() {
+        Downsampler.lttb(timestamps(100), new double[100], 0, 100, 2, new int[2]);
+    }
+    
+    @Test
+    public void lttb_keepsEndsAndPeak() {
+        long[] timestamps = timestamps(1000);
+        double[] values = new double[1000];
+        values[437] = 50;
+        int[] out = new int[20];
+        int written = Downsampler.lttb(timestamps, values, 0, 1000, 20, out);
+        
+        assertEquals(20, written);
+        assertEquals(0, out[0]);
+        assertEquals(999, out[written - 1]);
+        assertTrue(contains(out, written, 437));
+        assertIncreasing(out, written);
+    }
+    
+    @Test
+    public void lttb_picksOnePointFromEachBucket() {
+        int length = 500;
+        int threshold = 12;
+        long[] timestamps = timestamps(length + 7);
+        double[] values = noise(length + 7, 1);
+        int[] out = new int[threshold];
+        int written = Downsampler.lttb(timestamps, values, 7, length, threshold, out);
+        
+        assertEquals(threshold, written);
+        assertEquals(7, out[0]);
+        assertEquals(7 + length - 1, out[written - 1]);
+        double bucketSize = (double) (length - 2) / (threshold - 2);
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int index = out[bucket + 1] - 7;
+            assertTrue(index >= 1 + (int) (bucket * bucketSize));
+            assertTrue(index < 1 + (int) ((bucket + 1) * bucketSize));
+        }
+    }
+    
+    @Test
+    public void minMax_keepsEverySpikeAndDip() {
+        int length = 10000;
+        int pixelWidth = 200;
+        long[] timestamps = timestamps(length);
+        double[] values = noise(length, 2);
+        int[] spikes = {13, 2020, 5555, 9876};
+        int[] dips = {404, 7777};
+        for (int index : spikes) values[index] = 100;
+        for (int index : dips) values[index] = -100;
+        
+        int[] out = new int[Downsampler.minMaxCapacity(pixelWidth)];
+        int written = Downsampler.minMax(timestamps, values, 0, length, pixelWidth, out);
+        
+        assertTrue(written <= out.length);
+        assertEquals(0, out[0]);
+        assertEquals(length - 1, out[written - 1]);
+        for (int index : spikes) assertTrue(contains(out, written, index));
+        for (int index : dips) assertTrue(contains(out, written, index));
+        assertIncreasing(out, written);
+    }
+    
+    @Test
+    public void minMax_keepsEveryPointWhenFew() {
+        int[] out = new int[Downsampler.minMaxCapacity(10)];
+        assertEquals(0, Downsampler.minMax(new long[0], new double[0], 0, 0, 10, out));
+        assertEquals(20, Downsampler.minMax(timestamps(20), new double[20], 0, 20, 10, out));
+        assertEquals(19, out[19]);
+    }
+    
+    @Test
+    public void minMax_staysWithinCapacityForIrregularTimes() {
+        int length = 5000;
+        long[] timestamps = new long[length];
+        Random random = new Random(3);
+        long time = START;
+        for (int i = 0; i < length; i++) {
+            time += 1 + random.nextInt(i % 100 == 0 ? 3600000 : 1000);
+            timestamps[i] = time;
+        }
+        int[] out = new int[Downsampler.minMaxCapacity(1)];
+        int written = Downsampler.minMax(timestamps, noise(length, 4), 0, length, 1, out);
+        assertTrue(written <= out.length);
+        assertIncreasing(out, written);
+    }
+    
+    static long[] timestamps(int length) {
+        long[] timestamps = new long[length];
+        for (int i = 0; i < length; i++) {
+            timestamps[i] = START + i * STEP;
+        }
+        return timestamps;
+    }
+    
+    static double[] noise(int length, long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = random.nextDouble();
+        }
+        return values;
+    }
+    
+    private static boolean contains(int[] indexes, int count, int index) {
+        for (int i = 0; i < count; i++) {
+            if (indexes[i] == index) return true;
+        }
+        return false;
+    }
+    
+    private static void assertIncreasing(int[] indexes, int count) {
+        for (int i = 1; i < count; i++) {
+            assertTrue("indexes out of order at " + i, indexes[i] > indexes[i - 1]);
+        }
+    }
+}
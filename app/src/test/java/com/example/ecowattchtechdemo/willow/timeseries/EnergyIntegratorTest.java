@@ -0,0 +1,114 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import java.util.TimeZone;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the daily kWh integration in EnergyIntegrator
+ */
+public class EnergyIntegratorTest {
+    
+    private static final long HOUR = 60 * 60 * 1000L;
+    private static final long DAY = 24 * HOUR;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    
+    // 2025-01-15T00:00:00Z
+    private static final long MIDNIGHT = 1736899200000L;
+    
+    @Test
+    public void invalidTimestamp_isIgnored() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, HOUR);
+        assertFalse(integrator.add(Timestamps.INVALID, 10, 0));
+        assertEquals(Long.MIN_VALUE, integrator.getDayStart());
+        
+        assertTrue(integrator.add(MIDNIGHT, 10, 0));
+        assertFalse(integrator.add(Timestamps.INVALID, 10, 0));
+        assertTrue(integrator.add(MIDNIGHT + HOUR, 10, 0));
+        assertEquals(10, integrator.getKWhForDay(MIDNIGHT), 1e-9);
+    }
+    
+    @Test
+    public void badQualityAndOutOfOrderSamples_areIgnored() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, HOUR);
+        assertTrue(integrator.add(MIDNIGHT, 10, 0));
+        assertFalse(integrator.add(MIDNIGHT + HOUR / 2, 99, TimeSeriesPoint.DataQuality.FLAG_OFFLINE));
+        assertFalse(integrator.add(MIDNIGHT, 10, 0));
+        assertTrue(integrator.add(MIDNIGHT + HOUR, 10, 0));
+        assertEquals(10, integrator.getKWhForDay(MIDNIGHT), 1e-9);
+    }
+    
+    @Test
+    public void trapezoids_areIntegrated() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, HOUR);
+        integrator.add(MIDNIGHT, 0, 0);
+        integrator.add(MIDNIGHT + HOUR, 10, 0);
+        assertEquals(5, integrator.getKWhForDay(MIDNIGHT), 1e-9);
+        assertEquals(HOUR, integrator.getCoveredMillis(MIDNIGHT));
+    }
+    
+    @Test
+    public void longOrFlaggedIntervals_countAsGaps() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, HOUR);
+        integrator.add(MIDNIGHT, 10, 0);
+        integrator.add(MIDNIGHT + 2 * HOUR, 10, 0);
+        integrator.add(MIDNIGHT + 3 * HOUR, 10, TimeSeriesPoint.DataQuality.FLAG_SPARSE);
+        assertEquals(0, integrator.getKWhForDay(MIDNIGHT), 1e-9);
+        assertEquals(3 * HOUR, integrator.getGapMillis());
+    }
+    
+    @Test
+    public void intervalAcrossMidnight_isSplit() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, 3 * HOUR);
+        integrator.add(MIDNIGHT - HOUR, 0, 0);
+        integrator.add(MIDNIGHT + HOUR, 20, 0);
+        
+        // 10 kW at midnight: 5 kWh before it, 15 kWh after
+        assertEquals(MIDNIGHT, integrator.getDayStart());
+        assertEquals(5, integrator.getKWhForDay(MIDNIGHT - 1), 1e-9);
+        assertEquals(15, integrator.getKWhForDay(MIDNIGHT), 1e-9);
+        assertEquals(HOUR, integrator.getCoveredMillis(MIDNIGHT));
+    }
+    
+    @Test
+    public void dstDay_hasItsRealLength() {
+        TimeZone newYork = TimeZone.getTimeZone("America/New_York");
+        // 2025-03-09 starts at 05:00Z and has 23 hours
+        long dayStart = 1741496400000L;
+        EnergyIntegrator integrator = new EnergyIntegrator(newYork, DAY);
+        integrator.add(dayStart, 1, 0);
+        integrator.add(dayStart + 23 * HOUR, 1, 0);
+        
+        assertEquals(dayStart + 23 * HOUR, integrator.getDayStart());
+        assertEquals(23, integrator.getKWhForDay(dayStart), 1e-9);
+    }
+    
+    @Test
+    public void skippedDays_keepOnlyTheLastOne() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, Long.MAX_VALUE);
+        integrator.add(MIDNIGHT + 12 * HOUR, 1, 0);
+        integrator.add(MIDNIGHT + 3 * DAY + 12 * HOUR, 1, 0);
+        
+        assertEquals(MIDNIGHT + 3 * DAY, integrator.getDayStart());
+        assertEquals(12, integrator.getKWhForDay(MIDNIGHT + 3 * DAY), 1e-9);
+        assertEquals(24, integrator.getKWhForDay(MIDNIGHT + 2 * DAY), 1e-9);
+        assertTrue(Double.isNaN(integrator.getKWhForDay(MIDNIGHT + DAY)));
+    }
+    
+    @Test(timeout = 1000)
+    public void hugeGap_jumpsStraightToTheSamplesDay() {
+        EnergyIntegrator integrator = new EnergyIntegrator(UTC, HOUR);
+        integrator.add(MIDNIGHT, 10, 0);
+        // Ten thousand years on: one Calendar step, not one per day
+        long later = MIDNIGHT + 10000 * 365L * DAY + 6 * HOUR;
+        assertTrue(integrator.add(later, 10, 0));
+        
+        assertEquals(later - 6 * HOUR, integrator.getDayStart());
+        assertEquals(0, integrator.getKWhForDay(later), 1e-9);
+        assertEquals(0, integrator.getKWhForDay(later - 6 * HOUR - 1), 1e-9);
+        assertEquals(6 * HOUR, integrator.getGapMillis());
+        assertEquals(0, integrator.getCoveredMillis(later));
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import com.example.ecowattchtechdemo.willow.timeseries.RollupPyramid.Resolution;
+import java.util.TimeZone;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for RollupPyramid ingestion, de-duplication and backfill
+ */
+public class RollupPyramidTest {
+    
+    private static final long MINUTE = 60 * 1000L;
+    private static final long HOUR = 60 * MINUTE;
+    private static final long DAY = 24 * HOUR;
+    private static final String TWIN = "twin";
+    
+    // 2025-01-15T00:00:00Z
+    private static final long MIDNIGHT = 1736899200000L;
+    
+    private final RollupPyramid pyramid = new RollupPyramid(TimeZone.getTimeZone("UTC"));
+    
+    @Test
+    public void reading_updatesEveryResolution() {
+        assertTrue(pyramid.add(TWIN, MIDNIGHT + 90 * MINUTE + 5000, 4, 0));
+        assertTrue(pyramid.add(TWIN, MIDNIGHT + 95 * MINUTE, 8, 0));
+        
+        assertBucket(Resolution.MINUTE, MIDNIGHT + 90 * MINUTE, 4, 4, 1);
+        assertBucket(Resolution.FIFTEEN_MINUTES, MIDNIGHT + 90 * MINUTE, 4, 8, 2);
+        assertBucket(Resolution.HOUR, MIDNIGHT + HOUR, 4, 8, 2);
+        assertBucket(Resolution.DAY, MIDNIGHT, 4, 8, 2);
+    }
+    
+    @Test
+    public void badAndDuplicateReadings_areNotCounted() {
+        assertTrue(pyramid.add(TWIN, MIDNIGHT, 4, 0));
+        assertFalse(pyramid.add(TWIN, MIDNIGHT, 4, 0));
+        assertFalse(pyramid.add(TWIN, MIDNIGHT + MINUTE, 4, TimeSeriesPoint.DataQuality.FLAG_OFFLINE));
+        assertFalse(pyramid.add(TWIN, Timestamps.INVALID, 4, 0));
+        assertFalse(pyramid.add(TWIN, MIDNIGHT + MINUTE, Double.NaN, 0));
+        
+        // Distinct readings within one minute are both kept while recent
+        assertTrue(pyramid.add(TWIN, MIDNIGHT + 30000, 6, 0));
+        assertBucket(Resolution.MINUTE, MIDNIGHT, 4, 6, 2);
+    }
+    
+    @Test
+    public void lateReading_correctsOnlyItsBuckets() {
+        pyramid.add(TWIN, MIDNIGHT, 4, 0);
+        pyramid.add(TWIN, MIDNIGHT + 2 * HOUR, 6, 0);
+        assertTrue(pyramid.add(TWIN, MIDNIGHT + HOUR, 10, 0));
+        
+        assertBucket(Resolution.HOUR, MIDNIGHT, 4, 4, 1);
+        assertBucket(Resolution.HOUR, MIDNIGHT + HOUR, 10, 10, 1);
+        assertBucket(Resolution.HOUR, MIDNIGHT + 2 * HOUR, 6, 6, 1);
+        assertBucket(Resolution.DAY, MIDNIGHT, 4, 10, 3);
+    }
+    
+    @Test
+    public void historyAfterLivePolling_backfillsCoarserLevels() {
+        long now = MIDNIGHT + 60 * DAY;
+        pyramid.add(TWIN, now, 1, 0);
+        
+        // A month of hourly history, streamed in after the live reading
+        long from = now - 30 * DAY;
+        int added = 0;
+        for (long t = from; t < now; t += HOUR) {
+            if (pyramid.add(TWIN, t, 2, 0)) added++;
+        }
+        assertEquals(30 * 24, added);
+        
+        // Too old for the 1-minute level, but the daily and hourly ones take it
+        assertEquals(0, pyramid.query(TWIN, Resolution.MINUTE, from, from + DAY, noop()));
+        assertBucket(Resolution.DAY, from, 2, 2, 24);
+        assertBucket(Resolution.HOUR, from + 5 * HOUR, 2, 2, 1);
+        assertBucket(Resolution.FIFTEEN_MINUTES, from + 5 * HOUR, 2, 2, 1);
+        
+        // Streaming the same history again counts nothing twice
+        for (long t = from; t < now; t += HOUR) {
+            assertFalse(pyramid.add(TWIN, t, 2, 0));
+        }
+        assertBucket(Resolution.DAY, from, 2, 2, 24);
+    }
+    
+    @Test
+    public void readingsRepeatedAfterTheExactWindow_areNotCountedTwice() {
+        pyramid.add(TWIN, MIDNIGHT, 3, 0);
+        pyramid.add(TWIN, MIDNIGHT + 5 * DAY, 1, 0);
+        
+        // Now older than the exact-timestamp window, but its minute is remembered
+        assertFalse(pyramid.add(TWIN, MIDNIGHT, 3, 0));
+        assertBucket(Resolution.DAY, MIDNIGHT, 3, 3, 1);
+    }
+    
+    @Test
+    public void readingsOlderThanDailyRetention_areIgnored() {
+        long now = MIDNIGHT + 800 * DAY;
+        pyramid.add(TWIN, now, 1, 0);
+        assertFalse(pyramid.add(TWIN, now - Resolution.DAY.getRetentionMillis() - DAY, 2, 0));
+        assertTrue(pyramid.add(TWIN, now - Resolution.DAY.getRetentionMillis() + DAY, 2, 0));
+    }
+    
+    @Test
+    public void summarize_usesCoarseBucketsForLongRanges() {
+        long now = MIDNIGHT + 10 * DAY;
+        for (long t = MIDNIGHT; t <= now; t += HOUR) {
+            pyramid.add(TWIN, t, 1, 0);
+        }
+        Rollup rollup = pyramid.summarize(TWIN, MIDNIGHT, MIDNIGHT + 5 * DAY);
+        assertEquals(5 * 24, rollup.getCount());
+        assertEquals(5 * 24, rollup.getSum(), 1e-9);
+        assertEquals(1, rollup.getAverage(), 1e-9);
+        assertTrue(pyramid.summarize("other", MIDNIGHT, now).isEmpty());
+    }
+    
+    private void assertBucket(Resolution resolution, long start, double min, double max, int count) {
+        int[] found = new int[1];
+        pyramid.query(TWIN, resolution, start, start + 1, (bucketStart, bucketEnd, bucketMin, bucketMax, sum, bucketCount) -> {
+            assertEquals(start, bucketStart);
+            assertEquals(min, bucketMin, 1e-9);
+            assertEquals(max, bucketMax, 1e-9);
+            assertEquals(count, bucketCount);
+            found[0]++;
+        });
+        assertEquals(resolution + " bucket at " + start, 1, found[0]);
+    }
+    
+    private static RollupPyramid.RollupVisitor noop() {
+        return (start, end, min, max, sum, count) -> { };
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for TimeSeriesBatch lookups
+ */
+public class TimeSeriesBatchTest {
+    
+    @Test
+    public void latestIndex_picksNewestTimestamp() {
+        TimeSeriesBatch batch = new TimeSeriesBatch.Builder()
+            .add("a", 2000, 2, 0)
+            .add("a", 3000, 3, 0)
+            .add("b", 1000, 1, 0)
+            .build();
+        assertEquals(1, batch.latestIndex(0));
+    }
+    
+    @Test
+    public void latestIndex_skipsExcludedFlags() {
+        TimeSeriesBatch batch = new TimeSeriesBatch.Builder()
+            .add("a", 2000, 2, 0)
+            .add("a", 3000, 3, TimeSeriesPoint.DataQuality.FLAG_OFFLINE)
+            .build();
+        assertEquals(0, batch.latestIndex(TimeSeriesPoint.DataQuality.BAD_QUALITY_MASK));
+        assertEquals(1, batch.latestIndex(0));
+    }
+    
+    @Test
+    public void latestIndex_neverPicksInvalidTimestamps() {
+        TimeSeriesBatch batch = new TimeSeriesBatch.Builder()
+            .add("a", Timestamps.INVALID, 9, 0)
+            .add("a", 1000, 1, 0)
+            .build();
+        assertEquals(1, batch.latestIndex(0));
+        
+        TimeSeriesBatch unreadable = new TimeSeriesBatch.Builder()
+            .add("a", Timestamps.INVALID, 9, 0)
+            .build();
+        assertEquals(-1, unreadable.latestIndex(0));
+        assertEquals(-1, TimeSeriesBatch.empty().latestIndex(0));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesResponse;
+import com.google.gson.Gson;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Time and allocation of decoding a time series page with
+ * TimeSeriesStreamParser against the Gson body path (TimeSeriesResponse, then
+ * TimeSeriesBatch.fromPoints). Both read UTF-8 bytes through a Reader, as a
+ * response body's charStream() does. Skipped unless run with
+ * -Dwillow.benchmark=true, e.g.
+ * ./gradlew testDebugUnitTest --tests '*Benchmark' -Dwillow.benchmark=true
+ */
+public class TimeSeriesStreamParserBenchmark {
+    
+    private static final int RUNS = 9;
+    
+    @Test
+    public void parse() throws IOException {
+        Assume.assumeTrue(Boolean.getBoolean("willow.benchmark"));
+        
+        Gson gson = HttpClientProvider.getGson();
+        for (int points = 100000; points >= 1000; points /= 10) {
+            byte[] body = TimeSeriesStreamParserTest.payload(points, points).getBytes(StandardCharsets.UTF_8);
+            
+            long streamNanos = Long.MAX_VALUE;
+            long gsonNanos = Long.MAX_VALUE;
+            long streamBytes = Long.MAX_VALUE;
+            long gsonBytes = Long.MAX_VALUE;
+            int sink = 0;
+            // The first runs, and the largest page, warm up the JIT; the best run is reported
+            for (int run = 0; run < RUNS; run++) {
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                TimeSeriesBatch.Builder builder = new TimeSeriesBatch.Builder();
+                TimeSeriesStreamParser.parse(reader(body), builder);
+                sink += builder.build().size();
+                streamNanos = Math.min(streamNanos, System.nanoTime() - start);
+                streamBytes = Math.min(streamBytes, allocatedBytes() - allocated);
+                
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                try (Reader reader = reader(body)) {
+                    TimeSeriesResponse response = gson.fromJson(reader, TimeSeriesResponse.class);
+                    sink += TimeSeriesBatch.fromPoints(response.getData()).size();
+                }
+                gsonNanos = Math.min(gsonNanos, System.nanoTime() - start);
+                gsonBytes = Math.min(gsonBytes, allocatedBytes() - allocated);
+            }
+            System.out.println(String.format(Locale.US,
+                "%,d points (%,d KB): stream %.2f ms, %,d B/point; gson %.2f ms, %,d B/point [%d]",
+                points, body.length / 1024, streamNanos / 1e6, streamBytes / points,
+                gsonNanos / 1e6, gsonBytes / points, sink));
+        }
+    }
+    
+    private static Reader reader(byte[] body) {
+        return new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Bytes allocated so far by this thread, or 0 where the JVM cannot tell
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+}
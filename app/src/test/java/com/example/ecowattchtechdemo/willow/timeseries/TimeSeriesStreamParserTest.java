@@ -0,0 +1,151 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import com.example.ecowattchtechdemo.network.HttpClientProvider;
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesPoint;
+import com.example.ecowattchtechdemo.willow.models.TimeSeriesResponse;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for TimeSeriesStreamParser, including a check that it
+ * decodes the same points as the Gson body path it replaces
+ */
+public class TimeSeriesStreamParserTest {
+    
+    // 2025-01-15T10:30:00Z
+    private static final long BASE = 1736937000000L;
+    
+    @Test
+    public void pagedObject_deliversValuedPoints() throws IOException {
+        String json = "{\"data\": ["
+            + "{\"twinId\": \"A\", \"sourceTimestamp\": \"2025-01-15T10:30:00.5Z\", \"scalarValue\": 12.5,"
+            + " \"properties\": {\"unit\": \"kW\", \"tags\": [1, {\"x\": null}]},"
+            + " \"dataQuality\": {\"offline\": true, \"sparse\": false, \"delayed\": true, \"note\": \"x\"}},"
+            + "{\"twinId\": \"B\", \"sourceTimestamp\": \"2025-01-15T03:31:00-07:00\", \"scalarValue\": null},"
+            + "{\"twinId\": \"B\", \"sourceTimestamp\": \"2025-01-15T10:32:00Z\"},"
+            + "{\"twinId\": \"B\", \"sourceTimestamp\": \"2025-01-15T03:33:00-07:00\", \"scalarValue\": -3,"
+            + " \"enqueuedTimestamp\": \"2025-01-15T10:33:01Z\", \"dataQuality\": null}"
+            + "], \"continuationToken\": \"page-2\"}";
+        
+        TimeSeriesBatch.Builder builder = new TimeSeriesBatch.Builder();
+        TimeSeriesStreamParser.Result result = TimeSeriesStreamParser.parse(new StringReader(json), builder);
+        TimeSeriesBatch batch = builder.build();
+        
+        assertEquals(2, result.getPointCount());
+        assertEquals("page-2", result.getContinuationToken());
+        assertNull(result.getErrorMessage());
+        assertEquals(2, batch.size());
+        assertEquals("A", batch.getTwinId(0));
+        assertEquals(BASE + 500, batch.getTimestamp(0));
+        assertEquals(12.5, batch.getValue(0), 0);
+        assertEquals(TimeSeriesPoint.DataQuality.FLAG_OFFLINE | TimeSeriesPoint.DataQuality.FLAG_DELAYED,
+            batch.getQualityFlags(0));
+        assertEquals("B", batch.getTwinId(1));
+        assertEquals(BASE + 3 * 60000, batch.getTimestamp(1));
+        assertEquals(-3, batch.getValue(1), 0);
+        assertEquals(0, batch.getQualityFlags(1));
+    }
+    
+    @Test
+    public void bareArray_isAccepted() throws IOException {
+        String json = "[{\"twinId\": \"A\", \"sourceTimestamp\": \"2025-01-15T10:30:00Z\", \"scalarValue\": 1}]";
+        TimeSeriesBatch.Builder builder = new TimeSeriesBatch.Builder();
+        TimeSeriesStreamParser.Result result = TimeSeriesStreamParser.parse(new StringReader(json), builder);
+        
+        assertEquals(1, result.getPointCount());
+        assertNull(result.getContinuationToken());
+        assertEquals(BASE, builder.build().getTimestamp(0));
+    }
+    
+    @Test
+    public void nullsAndUnknownFields_areSkipped() throws IOException {
+        String json = "{\"meta\": {\"total\": 3}, \"data\": null, \"continuationToken\": null}";
+        TimeSeriesStreamParser.Result result = TimeSeriesStreamParser.parse(new StringReader(json),
+            (twinId, sourceTimestamp, value, flags) -> fail());
+        assertEquals(0, result.getPointCount());
+        assertNull(result.getContinuationToken());
+    }
+    
+    @Test
+    public void unreadableTimestamp_isDeliveredAsInvalid() throws IOException {
+        String json = "[{\"twinId\": \"A\", \"sourceTimestamp\": \"yesterday\", \"scalarValue\": 1}]";
+        TimeSeriesBatch.Builder builder = new TimeSeriesBatch.Builder();
+        TimeSeriesStreamParser.parse(new StringReader(json), builder);
+        assertEquals(Timestamps.INVALID, builder.build().getTimestamp(0));
+    }
+    
+    @Test
+    public void errorData_messageIsReported() throws IOException {
+        String json = "{\"data\": [], \"errorData\": {\"code\": 7, \"message\": \"partial result\"}}";
+        TimeSeriesStreamParser.Result result = TimeSeriesStreamParser.parse(new StringReader(json),
+            (twinId, sourceTimestamp, value, flags) -> fail());
+        assertEquals("partial result", result.getErrorMessage());
+    }
+    
+    @Test(expected = IOException.class)
+    public void truncatedPayload_throws() throws IOException {
+        TimeSeriesStreamParser.parse(new StringReader("{\"data\": [{\"twinId\": \"A\", \"scalarVa"),
+            (twinId, sourceTimestamp, value, flags) -> { });
+    }
+    
+    @Test
+    public void decodesTheSamePointsAsGson() throws IOException {
+        String json = payload(2000, 1);
+        
+        TimeSeriesBatch.Builder builder = new TimeSeriesBatch.Builder();
+        TimeSeriesStreamParser.Result result = TimeSeriesStreamParser.parse(new StringReader(json), builder);
+        TimeSeriesBatch streamed = builder.build();
+        
+        TimeSeriesResponse response = HttpClientProvider.getGson().fromJson(json, TimeSeriesResponse.class);
+        TimeSeriesBatch gson = TimeSeriesBatch.fromPoints(response.getData());
+        
+        assertEquals(response.getContinuationToken(), result.getContinuationToken());
+        assertEquals(gson.size(), result.getPointCount());
+        assertEquals(gson.size(), streamed.size());
+        assertTrue(streamed.size() > 1500);
+        for (int i = 0; i < gson.size(); i++) {
+            assertEquals(gson.getTwinId(i), streamed.getTwinId(i));
+            assertEquals(gson.getTimestamp(i), streamed.getTimestamp(i));
+            assertEquals(gson.getValue(i), streamed.getValue(i), 0);
+            assertEquals(gson.getQualityFlags(i), streamed.getQualityFlags(i));
+        }
+    }
+    
+    /**
+     * A page shaped like Willow's multi-twin time series response, with a few
+     * valueless points, per-point properties and the odd quality flag
+     */
+    static String payload(int points, long seed) {
+        Random random = new Random(seed);
+        StringBuilder json = new StringBuilder(points * 300);
+        json.append("{\"data\":[");
+        for (int i = 0; i < points; i++) {
+            if (i > 0) json.append(',');
+            long epochSeconds = BASE / 1000 + i * 60L;
+            json.append("{\"connectorId\":\"3f1c2a9e-0d4b-4c51-9a7e-5b2f8d6e1c03\",\"twinId\":\"BLDG-")
+                .append(String.format(Locale.US, "%04d", i % 8)).append("-CAP-").append(i % 3)
+                .append("\",\"externalId\":\"ext-").append(i % 24)
+                .append("\",\"trendId\":\"7a6b5c4d-").append(i % 24)
+                .append("\",\"sourceTimestamp\":\"").append(Timestamps.format(epochSeconds * 1000))
+                .append("\",\"enqueuedTimestamp\":\"").append(Timestamps.format(epochSeconds * 1000 + 1234))
+                .append('"');
+            if (random.nextInt(10) != 0) {
+                json.append(",\"scalarValue\":").append(String.format(Locale.US, "%.3f", random.nextDouble() * 500));
+            }
+            json.append(",\"properties\":{\"unit\":\"kW\",\"source\":{\"gateway\":\"gw-").append(i % 4)
+                .append("\",\"tags\":[\"energy\",\"meter\"]}}");
+            json.append(",\"dataQuality\":{\"offline\":").append(random.nextInt(50) == 0)
+                .append(",\"valueOutOfRange\":false,\"sparse\":").append(random.nextInt(20) == 0)
+                .append(",\"flatline\":false,\"delayed\":").append(random.nextInt(30) == 0).append('}');
+            json.append('}');
+        }
+        json.append("],\"continuationToken\":\"eyJwYWdlIjoyfQ==\"}");
+        return json.toString();
+    }
+}
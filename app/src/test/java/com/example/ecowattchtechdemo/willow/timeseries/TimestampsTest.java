@@ -0,0 +1,70 @@
+package com.example.ecowattchtechdemo.willow.timeseries;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for the ISO-8601 decoding in Timestamps
+ */
+public class TimestampsTest {
+    
+    // 2025-01-15T10:30:00Z
+    private static final long BASE = 1736937000000L;
+    
+    @Test
+    public void utc_isParsed() {
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15T10:30:00Z"));
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15t10:30:00z"));
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15 10:30:00Z"));
+    }
+    
+    @Test
+    public void missingZone_isUtc() {
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15T10:30:00"));
+    }
+    
+    @Test
+    public void fraction_isTruncatedToUnit() {
+        assertEquals(BASE + 123, Timestamps.parseEpochMillis("2025-01-15T10:30:00.1234567Z"));
+        assertEquals(BASE + 100, Timestamps.parseEpochMillis("2025-01-15T10:30:00,1Z"));
+        assertEquals(BASE * 1000000L + 123456789L,
+            Timestamps.parseEpochNanos("2025-01-15T10:30:00.1234567891Z"));
+    }
+    
+    @Test
+    public void offsetForms_areParsed() {
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15T16:00:00+05:30"));
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15T16:00:00+0530"));
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15T15:30:00+05"));
+        assertEquals(BASE, Timestamps.parseEpochMillis("2025-01-15T03:30:00-07:00"));
+        assertEquals(BASE + 500, Timestamps.parseEpochMillis("2025-01-15T03:30:00.5-0700"));
+    }
+    
+    @Test
+    public void incompleteOffsets_areInvalid() {
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+05:"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+05:3"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+053"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+05:300"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+5"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+05::30"));
+    }
+    
+    @Test
+    public void outOfRangeOffsets_areInvalid() {
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+19:00"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+05:60"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T15:30:00+0a:00"));
+    }
+    
+    @Test
+    public void malformedTimestamps_areInvalid() {
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis(null));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis(""));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-02-29T10:30:00Z"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T10:30:00.Z"));
+        assertEquals(Timestamps.INVALID, Timestamps.parseEpochMillis("2025-01-15T10:30:00Zjunk"));
+    }
+}